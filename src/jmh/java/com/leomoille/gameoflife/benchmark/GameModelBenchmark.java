@@ -0,0 +1,69 @@
+package com.leomoille.gameoflife.benchmark;
+
+import com.leomoille.gameoflife.model.GameModel;
+import com.leomoille.gameoflife.model.LifeLikeRule;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to compute one generation of a random soup.
+ * <p>
+ * The soup is refilled before every iteration so that the density stays close
+ * to the requested one; within an iteration it settles like any real run.
+ * <p>
+ * The {@code kernel} parameter compares the scalar bit-sliced kernel with the
+ * Vector API one; forks are started with the incubator module so both exist.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class GameModelBenchmark {
+    @Param({"50", "256", "1024", "4096"})
+    private int size;
+
+    @Param({"0.1", "0.3", "0.5"})
+    private double density;
+
+    @Param({"B3/S23", "B36/S23", "B2/S"})
+    private String rule;
+
+    @Param({"1"})
+    private int parallelism;
+
+    @Param({"scalar", "vector"})
+    private String kernel;
+
+    private GameModel model;
+
+    @Setup(Level.Trial)
+    public void createModel() {
+        boolean vector = this.kernel.equals("vector");
+        if (vector && !LifeLikeRule.isVectorKernelAvailable()) {
+            throw new IllegalStateException("The Vector API is not available on this JVM");
+        }
+        LifeLikeRule.setVectorKernelEnabled(vector);
+        this.model = new GameModel(this.size, this.size);
+        this.model.setRuleStrategy(new LifeLikeRule(this.rule));
+        this.model.setParallelism(this.parallelism);
+    }
+
+    @Setup(Level.Iteration)
+    public void fillSoup() {
+        this.model.randomize(this.density);
+    }
+
+    @TearDown(Level.Trial)
+    public void shutdown() {
+        this.model.shutdown();
+    }
+
+    @Benchmark
+    public int nextGeneration() {
+        this.model.nextGeneration();
+        return this.model.getGeneration();
+    }
+}
@@ -0,0 +1,71 @@
+package com.leomoille.gameoflife.benchmark;
+
+import com.leomoille.gameoflife.controller.GameController;
+import com.leomoille.gameoflife.model.GameEngine;
+import com.leomoille.gameoflife.model.GameModel;
+import com.leomoille.gameoflife.view.CoalescingNotifier;
+import com.leomoille.gameoflife.view.GamePanel;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to paint one frame of the grid into an offscreen image.
+ * <p>
+ * The image has the size of a typical viewport, so large grids are clipped the
+ * way they are inside the scroll pane. Runs headless.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class GamePanelBenchmark {
+    private static final int VIEWPORT_WIDTH = 1280;
+    private static final int VIEWPORT_HEIGHT = 800;
+
+    @Param({"50", "256", "1024", "4096"})
+    private int size;
+
+    @Param({"0.1", "0.3", "0.5"})
+    private double density;
+
+    @Param({"2", "20"})
+    private int cellSize;
+
+    private GameModel model;
+    private GamePanel panel;
+    private BufferedImage image;
+    private Graphics2D graphics;
+
+    @Setup(Level.Trial)
+    public void createPanel() {
+        this.model = new GameModel(this.size, this.size);
+        this.model.randomize(this.density);
+        GameController controller = new GameController(this.model, new GameEngine(this.model));
+
+        this.panel = new GamePanel(controller);
+        this.panel.setModel(new CoalescingNotifier(this.model));
+        this.panel.setCellSize(this.cellSize);
+        this.panel.setDoubleBuffered(false);
+        this.panel.setSize(this.panel.getPreferredSize());
+
+        this.image = new BufferedImage(VIEWPORT_WIDTH, VIEWPORT_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        this.graphics = this.image.createGraphics();
+        this.graphics.setClip(0, 0, VIEWPORT_WIDTH, VIEWPORT_HEIGHT);
+    }
+
+    @TearDown(Level.Trial)
+    public void disposeGraphics() {
+        this.graphics.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage paint() {
+        this.panel.paint(this.graphics);
+        return this.image;
+    }
+}
@@ -0,0 +1,62 @@
+package com.leomoille.gameoflife.benchmark;
+
+import com.leomoille.gameoflife.model.Grid;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the {@link Grid} operations used outside of the stepping loop:
+ * neighbor counting over the whole grid, filling and resizing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GridBenchmark {
+    @Param({"50", "256", "1024", "4096"})
+    private int size;
+
+    @Param({"0.1", "0.3", "0.5"})
+    private double density;
+
+    private Grid grid;
+
+    @Setup(Level.Iteration)
+    public void createGrid() {
+        this.grid = new Grid(this.size, this.size);
+        this.grid.randomize(this.density);
+    }
+
+    /**
+     * Counts the neighbors of every cell, as a cell-by-cell rule would.
+     */
+    @Benchmark
+    public long getAliveNeighbors() {
+        long total = 0;
+        for (int y = 0; y < this.size; y++) {
+            for (int x = 0; x < this.size; x++) {
+                total += this.grid.getAliveNeighbors(x, y);
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public Grid randomize() {
+        this.grid.randomize(this.density);
+        return this.grid;
+    }
+
+    /**
+     * Grows the grid by one cell in each direction and back, keeping the cells.
+     */
+    @Benchmark
+    public Grid resize() {
+        this.grid.resize(this.size + 1, this.size + 1);
+        this.grid.resize(this.size, this.size);
+        return this.grid;
+    }
+}
@@ -0,0 +1,403 @@
+package com.leomoille.gameoflife.app;
+
+import com.leomoille.gameoflife.model.BoundaryMode;
+import com.leomoille.gameoflife.model.Checkpointer;
+import com.leomoille.gameoflife.model.CycleDetector;
+import com.leomoille.gameoflife.model.GameModel;
+import com.leomoille.gameoflife.model.Grid;
+import com.leomoille.gameoflife.model.LatencyHistogram;
+import com.leomoille.gameoflife.model.LifeLikeRule;
+import com.leomoille.gameoflife.model.Pattern;
+import com.leomoille.gameoflife.model.Snapshot;
+import com.leomoille.gameoflife.model.TickMetrics;
+import com.leomoille.gameoflife.model.hashlife.HashLifeUniverse;
+import com.leomoille.gameoflife.model.io.PatternFiles;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Runs a simulation without any user interface and reports how fast it went.
+ * <p>
+ * Only the model is used, so no AWT or Swing class is loaded and the program
+ * can run on machines without a display. Generations are computed back to
+ * back, without the delay of the interactive engine.
+ * <p>
+ * Add {@code --add-modules jdk.incubator.vector} to the JVM options to step
+ * with the Vector API.
+ * <p>
+ * With {@code --mapped DIR}, the grids are memory-mapped files in {@code DIR}:
+ * the board is bounded by the disk rather than the heap, and running the same
+ * command again resumes from the last generation instead of a new soup.
+ * <p>
+ * {@code --pattern FILE} starts from an RLE or macrocell pattern instead of a
+ * random soup, and {@code --save FILE} writes the last generation (as
+ * macrocell if the name ends with {@code .mc}, as RLE otherwise).
+ * <p>
+ * {@code --checkpoint FILE} writes a binary snapshot of the run every
+ * {@code --checkpoint-every} generations and at the end, in the background.
+ * When the file already exists, the run resumes from it.
+ * <p>
+ * {@code --stop-on-cycle} ends the run early once the grid died out, became
+ * still or started oscillating, and reports the period.
+ * <p>
+ * {@code --hashlife} computes the generations with {@link HashLifeUniverse}
+ * instead: the soup or pattern is placed in an unbounded universe and
+ * advanced in a single jump, so that runs of millions of generations are
+ * practical. {@code --memory} bounds its node cache.
+ * <p>
+ * Usage:
+ * <pre>
+ * java -cp gameoflife.jar com.leomoille.gameoflife.app.HeadlessMain \
+ *     --size 1024x1024 --rule B3/S23 --seed 42 --density 0.2 --generations 1000
+ * </pre>
+ */
+public class HeadlessMain {
+    private static final String USAGE = """
+            Usage: HeadlessMain [options]
+              --size WIDTHxHEIGHT   Grid size, or a single number for a square grid (default 1024)
+              --rule RULE           Rule in B/S notation (default: the pattern's rule, or B3/S23)
+              --boundary MODE       dead, torus or mirror (default dead)
+              --seed SEED           Seed of the initial soup (default 0)
+              --density P           Probability of a cell being alive initially (default 0.2)
+              --generations N       Number of generations to compute (default 1000)
+              --hashlife            Jump N generations with HashLife, in an unbounded universe
+              --memory MB           Memory budget of the HashLife node cache (default 256)
+              --threads N           Worker threads, 1 to step sequentially (default: all cores)
+              --off-heap            Store the grid outside of the Java heap
+              --mapped DIR          Store the grid in files in DIR, resuming the run they hold
+              --pattern FILE        Start from an RLE or macrocell pattern, centered, instead of a soup
+              --save FILE           Write the last generation to an RLE or macrocell (.mc) file
+              --checkpoint FILE     Resume from this snapshot if it exists, and keep it up to date
+              --checkpoint-every N  Generations between two checkpoints (default 1000)
+              --stop-on-cycle       Stop when the grid dies out, is still or oscillates
+            """;
+
+    private int width = 1024;
+    private int height = 1024;
+    // Null when not given: the pattern's rule, or B3/S23.
+    private String rule = null;
+    // Null when not given: dead for a new grid, the stored mode for a resumed one.
+    private BoundaryMode boundaryMode = null;
+    private long seed = 0L;
+    private double density = 0.2;
+    private long generations = 1000;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private boolean offHeap = false;
+    private Path mappedDirectory = null;
+    private Path patternFile = null;
+    private Path saveFile = null;
+    private Path checkpointFile = null;
+    private int checkpointInterval = 1000;
+    private boolean stopOnCycle = false;
+    private boolean hashLife = false;
+    private long memoryBudget = HashLifeUniverse.DEFAULT_MEMORY_BUDGET;
+
+    public static void main(String[] args) {
+        HeadlessMain run = new HeadlessMain();
+        try {
+            run.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(USAGE);
+            System.exit(2);
+            return;
+        }
+        try {
+            run.run();
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Reads the command line options.
+     *
+     * @throws IllegalArgumentException on an unknown option or an invalid value.
+     */
+    private void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (option.equals("--help") || option.equals("-h")) {
+                throw new IllegalArgumentException("Headless Game of Life simulation");
+            }
+            if (option.equals("--off-heap")) {
+                this.offHeap = true;
+                continue;
+            }
+            if (option.equals("--stop-on-cycle")) {
+                this.stopOnCycle = true;
+                continue;
+            }
+            if (option.equals("--hashlife")) {
+                this.hashLife = true;
+                continue;
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + option);
+            }
+            String value = args[++i];
+            try {
+                switch (option) {
+                    case "--size" -> this.parseSize(value);
+                    case "--rule" -> this.rule = value;
+                    case "--boundary" -> this.boundaryMode = parseBoundaryMode(value);
+                    case "--seed" -> this.seed = Long.parseLong(value);
+                    case "--density" -> this.density = Double.parseDouble(value);
+                    case "--generations" -> this.generations = Long.parseLong(value);
+                    case "--threads" -> this.threads = Integer.parseInt(value);
+                    case "--mapped" -> this.mappedDirectory = Path.of(value);
+                    case "--pattern" -> this.patternFile = Path.of(value);
+                    case "--save" -> this.saveFile = Path.of(value);
+                    case "--checkpoint" -> this.checkpointFile = Path.of(value);
+                    case "--checkpoint-every" -> this.checkpointInterval = Integer.parseInt(value);
+                    case "--memory" -> this.memoryBudget = Long.parseLong(value) << 20;
+                    default -> throw new IllegalArgumentException("Unknown option: " + option);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value for " + option + ": " + value);
+            }
+        }
+        if (this.width <= 0 || this.height <= 0) {
+            throw new IllegalArgumentException("The grid size must be positive");
+        }
+        if (this.density < 0 || this.density > 1) {
+            throw new IllegalArgumentException("The density must be between 0 and 1");
+        }
+        if (this.checkpointInterval <= 0) {
+            throw new IllegalArgumentException("The checkpoint interval must be positive");
+        }
+        if (this.generations < 0) {
+            throw new IllegalArgumentException("The number of generations cannot be negative");
+        }
+        if (this.hashLife) {
+            if (this.offHeap || this.mappedDirectory != null || this.checkpointFile != null || this.stopOnCycle
+                    || this.saveFile != null || this.boundaryMode != null) {
+                throw new IllegalArgumentException("--hashlife cannot be combined with --off-heap, --mapped, "
+                        + "--checkpoint, --stop-on-cycle, --save or --boundary");
+            }
+            if (this.memoryBudget <= 0) {
+                throw new IllegalArgumentException("The memory budget must be positive");
+            }
+        } else if (this.generations > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("More than " + Integer.MAX_VALUE + " generations need --hashlife");
+        }
+        // Fail before the run on a malformed rule.
+        if (this.rule != null) {
+            new LifeLikeRule(this.rule);
+        }
+    }
+
+    private static BoundaryMode parseBoundaryMode(String value) {
+        try {
+            return BoundaryMode.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown boundary mode: " + value);
+        }
+    }
+
+    private void parseSize(String value) {
+        int separator = value.toLowerCase(Locale.ROOT).indexOf('x');
+        if (separator < 0) {
+            this.width = Integer.parseInt(value);
+            this.height = this.width;
+        } else {
+            this.width = Integer.parseInt(value.substring(0, separator));
+            this.height = Integer.parseInt(value.substring(separator + 1));
+        }
+    }
+
+    private void run() throws IOException {
+        Pattern pattern = null;
+        long readNanos = 0L;
+        if (this.patternFile != null) {
+            long readStart = System.nanoTime();
+            pattern = PatternFiles.read(this.patternFile);
+            readNanos = System.nanoTime() - readStart;
+        }
+        if (this.hashLife) {
+            this.runHashLife(pattern, readNanos);
+            return;
+        }
+
+        Snapshot snapshot = null;
+        if (this.checkpointFile != null && Files.exists(this.checkpointFile)) {
+            snapshot = Snapshot.read(this.checkpointFile);
+            if (this.mappedDirectory == null) {
+                this.width = snapshot.getWidth();
+                this.height = snapshot.getHeight();
+            }
+        }
+
+        GameModel model = this.mappedDirectory != null
+                ? GameModel.openMapped(this.mappedDirectory, this.width, this.height)
+                : new GameModel(this.width, this.height, this.offHeap);
+        if (snapshot != null) {
+            model.restore(snapshot);
+        }
+        boolean resumed = snapshot != null || model.getGeneration() > 0;
+        if (snapshot == null || this.rule != null) {
+            model.setRuleStrategy(new LifeLikeRule(this.resolveRule(pattern)));
+        }
+        LifeLikeRule lifeLikeRule = (LifeLikeRule) model.getRuleStrategy();
+        if (this.boundaryMode != null || !resumed) {
+            model.setBoundaryMode(this.boundaryMode != null ? this.boundaryMode : BoundaryMode.DEAD);
+        }
+        model.setParallelism(this.threads);
+        model.setCycleDetection(this.stopOnCycle);
+        CycleDetector detector = model.getCycleDetector();
+        if (!resumed) {
+            if (pattern != null) {
+                model.loadPattern(pattern);
+            } else {
+                model.randomize(this.density, this.seed);
+            }
+        }
+        int firstGeneration = model.getGeneration();
+        int gridWidth = model.getGrid().getWidth();
+        int gridHeight = model.getGrid().getHeight();
+
+        Checkpointer checkpointer = this.checkpointFile != null ? new Checkpointer(this.checkpointFile) : null;
+        TickMetrics metrics = new TickMetrics();
+        long start = System.nanoTime();
+        for (long i = 0; i < this.generations; i++) {
+            long tickStart = System.nanoTime();
+            model.nextGeneration();
+            metrics.record(tickStart, System.nanoTime(), -1L, -1L, -1L);
+            if (checkpointer != null && model.getGeneration() % this.checkpointInterval == 0) {
+                checkpointer.submit(model.snapshot());
+            }
+            if (detector != null && detector.getPeriod() != 0) {
+                break;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        if (checkpointer != null) {
+            checkpointer.submit(model.snapshot());
+            checkpointer.close();
+        }
+        long population = model.getGrid().getPopulation();
+        BoundaryMode mode = model.getBoundaryMode();
+        String storage = this.mappedDirectory != null ? "mapped to " + this.mappedDirectory
+                : this.offHeap ? "off-heap" : "heap";
+        try {
+            if (this.saveFile != null) {
+                PatternFiles.write(this.saveFile, model.toPattern());
+            }
+        } finally {
+            model.shutdown();
+        }
+
+        double seconds = elapsed / 1e9;
+        String ruleName = model.getRuleStrategy().getName();
+        if (resumed) {
+            System.out.printf(Locale.ROOT, "grid:          %dx%d, %s, %s, resumed at generation %d%n",
+                    gridWidth, gridHeight, ruleName, mode, firstGeneration);
+        } else if (pattern != null) {
+            System.out.printf(Locale.ROOT, "grid:          %dx%d, %s, %s, pattern %s%n",
+                    gridWidth, gridHeight, ruleName, mode, this.patternFile);
+            System.out.printf(Locale.ROOT, "pattern:       %dx%d, %d cells, read in %.1f ms%n",
+                    pattern.getWidth(), pattern.getHeight(), pattern.getPopulation(), readNanos / 1e6);
+        } else {
+            System.out.printf(Locale.ROOT, "grid:          %dx%d, %s, %s, seed %d, density %.3f%n",
+                    gridWidth, gridHeight, ruleName, mode, this.seed, this.density);
+        }
+        System.out.printf(Locale.ROOT, "kernel:        %s, %s%n", lifeLikeRule.isVectorized() ? "vector" : "scalar",
+                storage);
+        int computed = model.getGeneration() - firstGeneration;
+        System.out.printf(Locale.ROOT, "generations:   %d%n", computed);
+        System.out.printf(Locale.ROOT, "wall time:     %.3f s%n", seconds);
+        System.out.printf(Locale.ROOT, "generations/s: %.1f%n", seconds > 0 ? computed / seconds : 0.0);
+        LatencyHistogram durations = metrics.getDurations();
+        System.out.printf(Locale.ROOT, "tick:          p50 %.3f ms, p99 %.3f ms, max %.3f ms%n",
+                durations.getValueAtPercentile(50) / 1e6, durations.getValueAtPercentile(99) / 1e6,
+                durations.getMax() / 1e6);
+        System.out.printf(Locale.ROOT, "population:    %d%n", population);
+        if (detector != null) {
+            if (detector.isExtinct()) {
+                System.out.printf(Locale.ROOT, "cycle:         extinct at generation %d%n", detector.getCycleStart());
+            } else if (detector.getPeriod() != 0) {
+                System.out.printf(Locale.ROOT, "cycle:         period %d from generation %d%n", detector.getPeriod(),
+                        detector.getCycleStart());
+            } else {
+                System.out.printf(Locale.ROOT, "cycle:         none%n");
+            }
+        }
+        if (this.saveFile != null) {
+            System.out.printf(Locale.ROOT, "saved:         %s%n", this.saveFile);
+        }
+        if (checkpointer != null) {
+            if (checkpointer.getLastError() != null) {
+                System.err.println("Checkpoint failed: " + checkpointer.getLastError().getMessage());
+            }
+            System.out.printf(Locale.ROOT, "checkpoint:    %s, generation %d%n", this.checkpointFile,
+                    checkpointer.getLastGeneration());
+        }
+    }
+
+    /**
+     * Advances the soup or the pattern with HashLife, in one jump, and reports
+     * the time it took and the size of the node cache.
+     */
+    private void runHashLife(Pattern pattern, long readNanos) {
+        LifeLikeRule lifeLikeRule = new LifeLikeRule(this.resolveRule(pattern));
+        Grid cells;
+        if (pattern != null) {
+            cells = new Grid(Math.max(1, pattern.getWidth()), Math.max(1, pattern.getHeight()));
+            pattern.copyTo(cells, 0, 0);
+        } else {
+            // The same soup as on a bounded grid of this size and seed.
+            cells = new Grid(this.width, this.height);
+            cells.randomize(this.density, new Random(this.seed));
+        }
+        HashLifeUniverse universe = new HashLifeUniverse(lifeLikeRule, this.memoryBudget);
+        universe.load(cells, -cells.getWidth() / 2, -cells.getHeight() / 2);
+        long initialPopulation = universe.getPopulation();
+
+        long start = System.nanoTime();
+        universe.advance(this.generations);
+        long elapsed = System.nanoTime() - start;
+
+        double seconds = elapsed / 1e9;
+        String ruleName = lifeLikeRule.getName();
+        if (pattern != null) {
+            System.out.printf(Locale.ROOT, "universe:      unbounded, %s, pattern %s%n", ruleName, this.patternFile);
+            System.out.printf(Locale.ROOT, "pattern:       %dx%d, %d cells, read in %.1f ms%n",
+                    pattern.getWidth(), pattern.getHeight(), pattern.getPopulation(), readNanos / 1e6);
+        } else {
+            System.out.printf(Locale.ROOT, "universe:      unbounded, %s, %dx%d soup, seed %d, density %.3f%n",
+                    ruleName, this.width, this.height, this.seed, this.density);
+        }
+        System.out.printf(Locale.ROOT, "kernel:        hashlife, %d MiB node cache%n", this.memoryBudget >> 20);
+        System.out.printf(Locale.ROOT, "generations:   %d%n", universe.getGeneration());
+        System.out.printf(Locale.ROOT, "wall time:     %.3f s%n", seconds);
+        System.out.printf(Locale.ROOT, "generations/s: %.1f%n", seconds > 0 ? universe.getGeneration() / seconds : 0.0);
+        System.out.printf(Locale.ROOT, "population:    %d (initially %d)%n", universe.getPopulation(),
+                initialPopulation);
+        System.out.printf(Locale.ROOT, "nodes:         %d of %d, %d collections%n", universe.getNodeCount(),
+                universe.getMaxNodes(), universe.getCollections());
+    }
+
+    /**
+     * Picks the rule given on the command line, else the pattern's if it is a
+     * B/S rule, else Conway's.
+     */
+    private String resolveRule(Pattern pattern) {
+        if (this.rule != null) {
+            return this.rule;
+        }
+        if (pattern != null && pattern.getRule() != null) {
+            try {
+                new LifeLikeRule(pattern.getRule());
+                return pattern.getRule();
+            } catch (IllegalArgumentException e) {
+                System.err.println("Unsupported rule " + pattern.getRule() + ", using B3/S23");
+            }
+        }
+        return "B3/S23";
+    }
+}
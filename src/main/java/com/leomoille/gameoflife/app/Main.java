@@ -6,9 +6,18 @@ import com.leomoille.gameoflife.model.GameModel;
 import com.leomoille.gameoflife.view.MainFrame;
 
 import javax.swing.*;
+import java.util.Arrays;
 
 public class Main {
+    // Memory kept to rewind the interactive simulation.
+    private static final long HISTORY_LIMIT = 64L << 20;
+
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--headless")) {
+            HeadlessMain.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
         // Set Look and Feel to System default for better integration
         try {
             javax.swing.UIManager.setLookAndFeel(javax.swing.UIManager.getSystemLookAndFeelClassName());
@@ -19,6 +28,8 @@ public class Main {
         SwingUtilities.invokeLater(() -> {
             // assembling the object graph
             GameModel model = new GameModel(50, 50);
+            model.setHistoryLimit(HISTORY_LIMIT);
+            model.setCycleDetection(true);
             GameEngine engine = new GameEngine(model);
             GameController controller = new GameController(model, engine);
 
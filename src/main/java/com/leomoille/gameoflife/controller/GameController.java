@@ -1,8 +1,12 @@
 package com.leomoille.gameoflife.controller;
 
 import com.leomoille.gameoflife.model.*;
+import com.leomoille.gameoflife.model.io.PatternFiles;
 import com.leomoille.gameoflife.view.GameView;
 
+import java.io.IOException;
+import java.nio.file.Path;
+
 /**
  * Controller for the Game of Life.
  * Handles user input and mediates between View and Model.
@@ -33,44 +37,173 @@ public class GameController {
         this.engine.togglePause();
     }
 
+    /**
+     * Computes a single generation, pausing the simulation.
+     */
+    public void step() {
+        this.engine.step();
+    }
+
+    /**
+     * Computes a number of generations as fast as possible in the background, then pauses.
+     *
+     * @param generations Number of generations to compute.
+     */
+    public void advance(int generations) {
+        this.engine.advance(generations);
+    }
+
+    public boolean isRunning() {
+        return this.engine.isRunning();
+    }
+
+    /**
+     * Reads the tick durations, throughput and cell counts of the simulation.
+     */
+    public MetricsSnapshot getMetrics() {
+        return this.engine.getMetrics().snapshot();
+    }
+
+    /**
+     * Clears the cells and stops the simulation. The clear is queued like
+     * other edits: a running simulation applies it after its last generation.
+     */
     public void resetGame() {
+        this.model.submit(GameModel::reset);
         this.engine.stop();
-        this.model.reset();
     }
 
+    /**
+     * Changes the rule. While the simulation runs, the change is applied between two generations.
+     *
+     * @param rule The rule.
+     * @throws IllegalArgumentException if the model is unbounded and the rule has birth on 0 neighbors.
+     */
     public void changeRule(RuleStrategy rule) {
-        this.model.setRuleStrategy(rule);
+        if (this.model.isUnbounded()) {
+            // Checked now: the edit may be applied on the engine thread, where it would stop the simulation.
+            SparseUniverse.checkSupported(RuleTable.of(rule));
+        }
+        this.model.submit(m -> m.setRuleStrategy(rule));
+    }
+
+    /**
+     * Changes what lies beyond the edges of the grid. While the simulation
+     * runs, the change is applied between two generations.
+     *
+     * @param boundaryMode The boundary mode.
+     */
+    public void setBoundaryMode(BoundaryMode boundaryMode) {
+        this.model.submit(m -> m.setBoundaryMode(boundaryMode));
     }
 
     public void randomize() {
         // Default 20% probability.
-        this.model.randomize(0.2);
+        this.model.submit(m -> m.randomize(0.2));
     }
 
     public void setSpeed(int delayMs) {
         this.engine.setSpeed(delayMs);
     }
 
+    /**
+     * Runs the simulation as fast as possible, or back at the chosen speed.
+     *
+     * @param unthrottled true for maximum throughput.
+     */
+    public void setUnthrottled(boolean unthrottled) {
+        this.engine.setUnthrottled(unthrottled);
+    }
+
     /**
      * Handles cell clicks from the view.
-     * Toggles the state of the clicked cell and forces a view repaint.
+     * Toggles the state of the clicked cell and forces a view repaint. While
+     * the simulation runs, the toggle is applied between two generations.
      *
      * @param x X coordinate of the grid cell.
      * @param y Y coordinate of the grid cell.
      */
     public void onCellClicked(int x, int y) {
         // Toggle the state of the specific cell
-        Cell cell = this.model.getGrid().getCell(x, y);
-        if (cell != null) {
-            CellState newState = cell.isAlive() ? CellState.DEAD : CellState.ALIVE;
-            this.model.getGrid().setCell(x, y, newState);
-        }
+        this.model.submit(m -> m.toggleCell(x, y));
 
         if (this.view != null) {
             this.view.refresh();
         }
     }
 
+    /**
+     * Switches between the bounded grid and the unbounded universe.
+     * The simulation is stopped and the cells are cleared.
+     *
+     * @param unbounded true for an unbounded universe.
+     * @throws IllegalArgumentException if the rule has birth on 0 neighbors, which
+     *                                  the unbounded universe does not support.
+     */
+    public void setUnbounded(boolean unbounded) {
+        this.engine.stop();
+        this.model.setUnbounded(unbounded);
+    }
+
+    /**
+     * Loads an RLE or macrocell file. The rule of the file replaces the
+     * current one when it is in B/S notation. While the simulation runs, the
+     * pattern replaces the cells between two generations.
+     *
+     * @param file The pattern file.
+     * @throws IOException if the file cannot be read or is malformed.
+     */
+    public void openPattern(Path file) throws IOException {
+        Pattern pattern = PatternFiles.read(file);
+        this.model.submit(m -> {
+            if (pattern.getRule() != null) {
+                try {
+                    m.setRuleStrategy(new LifeLikeRule(pattern.getRule()));
+                } catch (IllegalArgumentException e) {
+                    // Not a Life-like rule, or one the unbounded universe does not support: keep the current one.
+                }
+            }
+            m.loadPattern(pattern);
+        });
+    }
+
+    /**
+     * Saves the live cells of the grid, in macrocell format if the file name
+     * ends with .mc and in RLE otherwise. The simulation is paused meanwhile.
+     *
+     * @param file The file to write.
+     * @throws IOException if the file cannot be written.
+     */
+    public void savePattern(Path file) throws IOException {
+        boolean wasRunning = this.engine.isRunning();
+        this.engine.stop();
+        try {
+            PatternFiles.write(file, this.model.toPattern());
+        } finally {
+            if (wasRunning) {
+                this.engine.start();
+            }
+        }
+    }
+
+    /**
+     * Moves the grid to a recorded generation, stopping the simulation.
+     *
+     * @param generation The generation to reach.
+     * @return the generation reached, which is clamped to the recorded ones.
+     */
+    public int seekGeneration(int generation) {
+        this.engine.stop();
+        return this.model.seekGeneration(generation);
+    }
+
+    /**
+     * Goes back one recorded generation, stopping the simulation.
+     */
+    public void stepBack() {
+        this.seekGeneration(this.model.getGeneration() - 1);
+    }
+
     public void onResizeGrid(int width, int height) {
         boolean wasRunning = this.engine.isRunning();
         this.engine.stop();
@@ -0,0 +1,60 @@
+package com.leomoille.gameoflife.model;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Native memory and file mappings owned by a shared {@link Arena}, handed out
+ * as byte buffers and all released at once by {@link #close()}.
+ * <p>
+ * The foreign memory API is a preview feature of Java 21: this class can only
+ * be loaded when the JVM runs with {@code --enable-preview}. Elsewhere,
+ * loading it throws a {@link LinkageError}, and {@link SlabWordStorage} falls
+ * back to buffers released by the garbage collector.
+ * <p>
+ * Buffers outlive the arena as objects, but any access after {@link #close()}
+ * throws an {@link IllegalStateException} instead of touching released memory.
+ */
+final class ArenaMemory implements AutoCloseable {
+    private final Arena arena = Arena.ofShared();
+
+    /**
+     * Tells whether the foreign memory API can be used; only reached when this class could be loaded.
+     */
+    static boolean isSupported() {
+        return true;
+    }
+
+    /**
+     * Allocates zeroed native memory.
+     *
+     * @param bytes Size of the memory.
+     * @return a buffer over the memory, in big-endian order like any new buffer.
+     */
+    ByteBuffer allocate(long bytes) {
+        return this.arena.allocate(bytes, Long.BYTES).asByteBuffer();
+    }
+
+    /**
+     * Maps a region of a file, like {@link FileChannel#map(FileChannel.MapMode, long, long)},
+     * but unmapped when the arena is closed.
+     *
+     * @throws IOException if the file cannot be mapped.
+     */
+    MappedByteBuffer map(FileChannel channel, FileChannel.MapMode mode, long position, long bytes)
+            throws IOException {
+        return (MappedByteBuffer) channel.map(mode, position, bytes, this.arena).asByteBuffer();
+    }
+
+    /**
+     * Frees the memory and unmaps the files at once. Buffers in use by other
+     * threads meanwhile fail rather than read released memory.
+     */
+    @Override
+    public void close() {
+        this.arena.close();
+    }
+}
@@ -0,0 +1,222 @@
+package com.leomoille.gameoflife.model;
+
+/**
+ * Evaluates an outer-totalistic rule on 64 cells at once.
+ * <p>
+ * The eight neighbors of every cell of a word are added with bitwise full
+ * adders into four bit planes, bit {@code b} of the planes holding the
+ * neighbor count (0 to 8) of cell {@code b}. The rule is then a boolean
+ * function of those planes and of the cell itself: one term per neighbor
+ * count that leads to a live cell.
+ * <p>
+ * {@link #create(RuleTable, boolean)} returns the {@link VectorKernel} when the Vector
+ * API is available, which applies the same adders to several words per
+ * instruction.
+ */
+class BitSlicedKernel {
+    private static final boolean VECTOR_AVAILABLE = detectVectorSupport();
+
+    // Neighbor counts leading to a live cell, with all-ones selectors telling
+    // whether the count gives birth to a dead cell and keeps an alive one alive.
+    final int[] counts;
+    final long[] birth;
+    final long[] survival;
+
+    BitSlicedKernel(RuleTable rule) {
+        int terms = Integer.bitCount(rule.getBirthMask() | rule.getSurvivalMask());
+        this.counts = new int[terms];
+        this.birth = new long[terms];
+        this.survival = new long[terms];
+        int i = 0;
+        for (int n = 0; n <= 8; n++) {
+            boolean born = rule.nextState(false, n);
+            boolean survives = rule.nextState(true, n);
+            if (born || survives) {
+                this.counts[i] = n;
+                this.birth[i] = born ? -1L : 0L;
+                this.survival[i] = survives ? -1L : 0L;
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Creates the fastest kernel available for a rule.
+     *
+     * @param rule   The rule to evaluate.
+     * @param vector Whether the Vector API may be used.
+     * @return a vector kernel if allowed and supported, the scalar one otherwise.
+     */
+    static BitSlicedKernel create(RuleTable rule, boolean vector) {
+        return vector && VECTOR_AVAILABLE ? new VectorKernel(rule) : new BitSlicedKernel(rule);
+    }
+
+    /**
+     * Tells whether the {@code jdk.incubator.vector} module is present and the
+     * processor has vectors of at least two words.
+     */
+    static boolean isVectorAvailable() {
+        return VECTOR_AVAILABLE;
+    }
+
+    private static boolean detectVectorSupport() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return false;
+        }
+        try {
+            return VectorKernel.isSupported();
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * Tells whether this kernel uses the Vector API.
+     */
+    boolean isVectorized() {
+        return false;
+    }
+
+    /**
+     * Computes the region [fromRow, toRow) x [fromWord, toWord) of the next
+     * generation of {@code source} into {@code target}.
+     */
+    void step(Grid source, Grid target, int fromRow, int toRow, int fromWord, int toWord) {
+        for (int y = fromRow; y < toRow; y++) {
+            this.stepRow(source, target, y, fromWord, toWord);
+        }
+    }
+
+    /**
+     * Computes words [fromWord, toWord) of row {@code y}, one word at a time.
+     * The halo of the source must be up to date: the ghost rows and words are
+     * read as ordinary neighbors.
+     */
+    final void stepRow(Grid source, Grid target, int y, int fromWord, int toWord) {
+        int last = source.getWordsPerRow() - 1;
+
+        long abovePrevious = source.loadWord(y - 1, fromWord - 1);
+        long previous = source.loadWord(y, fromWord - 1);
+        long belowPrevious = source.loadWord(y + 1, fromWord - 1);
+        long above = source.loadWord(y - 1, fromWord);
+        long current = source.loadWord(y, fromWord);
+        long below = source.loadWord(y + 1, fromWord);
+
+        for (int w = fromWord; w < toWord; w++) {
+            long aboveNext = source.loadWord(y - 1, w + 1);
+            long next = source.loadWord(y, w + 1);
+            long belowNext = source.loadWord(y + 1, w + 1);
+
+            long word;
+            if (w == last) {
+                word = this.nextLastWord(source.getWidth(), abovePrevious, above, aboveNext, previous, current, next,
+                        belowPrevious, below, belowNext);
+            } else {
+                word = this.nextWord(abovePrevious, above, aboveNext, previous, current, next,
+                        belowPrevious, below, belowNext);
+            }
+            target.storeWord(y, w, word);
+
+            abovePrevious = above;
+            above = aboveNext;
+            previous = current;
+            current = next;
+            belowPrevious = below;
+            below = belowNext;
+        }
+    }
+
+    /**
+     * Computes one row from a window of three rows copied out of the grid by
+     * {@link Grid#loadRow}: index 0 of each array is the west ghost word, the
+     * row's words follow and the east ghost word ends it. The row's words are
+     * written at the same indexes of {@code out}.
+     *
+     * @param width Width of the grid.
+     */
+    void stepWindow(long[] above, long[] current, long[] below, long[] out, int width) {
+        this.stepWindow(above, current, below, out, width, 1, ((width + 63) >>> 6) + 1);
+    }
+
+    /**
+     * Computes the words at indexes [from, to) of a window row, one word at a time.
+     */
+    final void stepWindow(long[] above, long[] current, long[] below, long[] out, int width, int from, int to) {
+        int last = (width + 63) >>> 6;
+        for (int i = from; i < to; i++) {
+            if (i == last) {
+                out[i] = this.nextLastWord(width, above[i - 1], above[i], above[i + 1],
+                        current[i - 1], current[i], current[i + 1], below[i - 1], below[i], below[i + 1]);
+            } else {
+                out[i] = this.nextWord(above[i - 1], above[i], above[i + 1],
+                        current[i - 1], current[i], current[i + 1], below[i - 1], below[i], below[i + 1]);
+            }
+        }
+    }
+
+    /**
+     * Computes the last word of a row. When the width is not a multiple of 64,
+     * the east ghost cell is moved from the ghost word to the first unused bit,
+     * where the adders expect it, and the unused bits of the result are cleared.
+     */
+    final long nextLastWord(int width, long abovePrevious, long above, long aboveNext,
+                            long previous, long current, long next,
+                            long belowPrevious, long below, long belowNext) {
+        int tail = width & 63;
+        if (tail == 0) {
+            return this.nextWord(abovePrevious, above, aboveNext, previous, current, next,
+                    belowPrevious, below, belowNext);
+        }
+        above |= (aboveNext & 1L) << tail;
+        current |= (next & 1L) << tail;
+        below |= (belowNext & 1L) << tail;
+        return this.nextWord(abovePrevious, above, aboveNext, previous, current, next,
+                belowPrevious, below, belowNext) & ((1L << tail) - 1);
+    }
+
+    /**
+     * Computes the next state of the 64 cells of {@code current}, given the
+     * words around it. Bit 63 of a "previous" word is the western neighbor of
+     * bit 0, and bit 0 of a "next" word the eastern neighbor of bit 63.
+     */
+    long nextWord(long abovePrevious, long above, long aboveNext,
+                  long previous, long current, long next,
+                  long belowPrevious, long below, long belowNext) {
+        long aboveWest = (above << 1) | (abovePrevious >>> 63);
+        long aboveEast = (above >>> 1) | (aboveNext << 63);
+        long west = (current << 1) | (previous >>> 63);
+        long east = (current >>> 1) | (next << 63);
+        long belowWest = (below << 1) | (belowPrevious >>> 63);
+        long belowEast = (below >>> 1) | (belowNext << 63);
+
+        // Two-bit sums of the row above, the row below and the two side neighbors.
+        long aboveLow = aboveWest ^ above ^ aboveEast;
+        long aboveHigh = (aboveWest & above) | (aboveEast & (aboveWest ^ above));
+        long belowLow = belowWest ^ below ^ belowEast;
+        long belowHigh = (belowWest & below) | (belowEast & (belowWest ^ below));
+        long sideLow = west ^ east;
+        long sideHigh = west & east;
+
+        // Add the three two-bit sums into four bit planes.
+        long s0 = aboveLow ^ belowLow ^ sideLow;
+        long carry = (aboveLow & belowLow) | (sideLow & (aboveLow ^ belowLow));
+        long highSum = aboveHigh ^ belowHigh;
+        long highCarry = aboveHigh & belowHigh;
+        long sideCarry = sideHigh ^ carry;
+        long sideCarryCarry = sideHigh & carry;
+        long s1 = highSum ^ sideCarry;
+        long twos = highSum & sideCarry;
+        long s2 = highCarry ^ sideCarryCarry ^ twos;
+        long s3 = (highCarry & sideCarryCarry) | (twos & (highCarry ^ sideCarryCarry));
+
+        long result = 0L;
+        for (int i = 0; i < this.counts.length; i++) {
+            int n = this.counts[i];
+            // Each plane is flipped where the count has a 0 bit, so the AND selects cells with exactly n neighbors.
+            long exactly = (s0 ^ ((n & 1) - 1L)) & (s1 ^ (((n >> 1) & 1) - 1L))
+                    & (s2 ^ (((n >> 2) & 1) - 1L)) & (s3 ^ (((n >> 3) & 1) - 1L));
+            result |= exactly & ((this.birth[i] & ~current) | (this.survival[i] & current));
+        }
+        return result;
+    }
+}
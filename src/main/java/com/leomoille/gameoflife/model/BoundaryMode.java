@@ -0,0 +1,34 @@
+package com.leomoille.gameoflife.model;
+
+/**
+ * What lies beyond the edges of a bounded {@link Grid}.
+ */
+public enum BoundaryMode {
+    /**
+     * Cells outside the grid are dead.
+     */
+    DEAD("Dead border"),
+
+    /**
+     * The grid wraps around: the column left of the first one is the last
+     * one, the row above the first one is the last one.
+     */
+    TORUS("Torus"),
+
+    /**
+     * The grid is mirrored at its edges: a cell outside the grid has the
+     * state of the nearest border cell.
+     */
+    MIRROR("Mirror");
+
+    private final String label;
+
+    BoundaryMode(String label) {
+        this.label = label;
+    }
+
+    @Override
+    public String toString() {
+        return this.label;
+    }
+}
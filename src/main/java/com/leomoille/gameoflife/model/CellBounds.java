@@ -0,0 +1,42 @@
+package com.leomoille.gameoflife.model;
+
+/**
+ * Rectangle of cells of the bounded grid.
+ *
+ * @param x      First column.
+ * @param y      First row.
+ * @param width  Number of columns, 0 if the rectangle is empty.
+ * @param height Number of rows, 0 if the rectangle is empty.
+ */
+public record CellBounds(int x, int y, int width, int height) {
+    /**
+     * The rectangle holding no cell.
+     */
+    public static final CellBounds EMPTY = new CellBounds(0, 0, 0, 0);
+
+    public boolean isEmpty() {
+        return this.width <= 0 || this.height <= 0;
+    }
+
+    /**
+     * Gets the smallest rectangle holding two others, where null stands for every cell.
+     *
+     * @return the union, or null if either is null.
+     */
+    public static CellBounds union(CellBounds a, CellBounds b) {
+        if (a == null || b == null) {
+            return null;
+        }
+        if (a.isEmpty()) {
+            return b;
+        }
+        if (b.isEmpty()) {
+            return a;
+        }
+        int x = Math.min(a.x, b.x);
+        int y = Math.min(a.y, b.y);
+        int toX = Math.max(a.x + a.width, b.x + b.width);
+        int toY = Math.max(a.y + a.height, b.y + b.height);
+        return new CellBounds(x, y, toX - x, toY - y);
+    }
+}
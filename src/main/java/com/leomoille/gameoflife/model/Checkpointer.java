@@ -0,0 +1,96 @@
+package com.leomoille.gameoflife.model;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Writes snapshots to a file on a background thread, so that checkpointing
+ * does not stall the simulation.
+ * <p>
+ * Only the latest snapshot matters: if snapshots are submitted faster than
+ * they can be written, the ones still waiting are replaced rather than
+ * queued. Write failures do not stop the simulation; the last one is kept
+ * for {@link #getLastError()}.
+ */
+public class Checkpointer implements AutoCloseable {
+    private final Path file;
+    private final ExecutorService writer;
+    private final AtomicReference<Snapshot> pending;
+    private volatile long lastGeneration;
+    private volatile IOException lastError;
+
+    /**
+     * @param file The snapshot file, replaced by each checkpoint.
+     */
+    public Checkpointer(Path file) {
+        this.file = file;
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "checkpoint-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.pending = new AtomicReference<>();
+        this.lastGeneration = -1;
+    }
+
+    public Path getFile() {
+        return this.file;
+    }
+
+    /**
+     * Schedules a snapshot to be written, replacing any snapshot still waiting.
+     */
+    public void submit(Snapshot snapshot) {
+        if (this.pending.getAndSet(snapshot) == null) {
+            this.writer.execute(this::writePending);
+        }
+    }
+
+    private void writePending() {
+        Snapshot snapshot = this.pending.getAndSet(null);
+        if (snapshot == null) {
+            return;
+        }
+        try {
+            snapshot.write(this.file);
+            this.lastGeneration = snapshot.getGeneration();
+        } catch (IOException e) {
+            this.lastError = e;
+        }
+    }
+
+    /**
+     * Gets the generation of the last snapshot written.
+     *
+     * @return the generation, or -1 if none was written yet.
+     */
+    public long getLastGeneration() {
+        return this.lastGeneration;
+    }
+
+    /**
+     * Gets the error of the last failed write.
+     *
+     * @return the error, or null if no write failed.
+     */
+    public IOException getLastError() {
+        return this.lastError;
+    }
+
+    /**
+     * Writes the snapshot still waiting, if any, then stops the background thread.
+     */
+    @Override
+    public void close() {
+        this.writer.shutdown();
+        try {
+            this.writer.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.leomoille.gameoflife.model;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from packed chunk coordinates to chunks.
+ * <p>
+ * Keys are primitive longs, so lookups neither box nor allocate. Removal
+ * uses backward-shift deletion to keep probe sequences short without
+ * tombstones.
+ */
+final class ChunkMap {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private long[] keys;
+    private SparseUniverse.Chunk[] values;
+    private int size;
+
+    ChunkMap() {
+        this.keys = new long[INITIAL_CAPACITY];
+        this.values = new SparseUniverse.Chunk[INITIAL_CAPACITY];
+    }
+
+    static long key(int chunkX, int chunkY) {
+        return ((long) chunkX << 32) | (chunkY & 0xFFFFFFFFL);
+    }
+
+    static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    SparseUniverse.Chunk get(int chunkX, int chunkY) {
+        long key = key(chunkX, chunkY);
+        int mask = this.keys.length - 1;
+        for (int i = slot(key, mask); this.values[i] != null; i = (i + 1) & mask) {
+            if (this.keys[i] == key) {
+                return this.values[i];
+            }
+        }
+        return null;
+    }
+
+    void put(SparseUniverse.Chunk chunk) {
+        if ((this.size + 1) * 2 > this.keys.length) {
+            this.rehash(this.keys.length * 2);
+        }
+        long key = key(chunk.chunkX, chunk.chunkY);
+        int mask = this.keys.length - 1;
+        int i = slot(key, mask);
+        while (this.values[i] != null) {
+            if (this.keys[i] == key) {
+                this.values[i] = chunk;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        this.keys[i] = key;
+        this.values[i] = chunk;
+        this.size++;
+    }
+
+    void remove(int chunkX, int chunkY) {
+        long key = key(chunkX, chunkY);
+        int mask = this.keys.length - 1;
+        int i = slot(key, mask);
+        while (this.values[i] != null && this.keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        if (this.values[i] == null) {
+            return;
+        }
+
+        // Shift back the following entries of the cluster that would no longer be reachable.
+        int hole = i;
+        for (int j = (i + 1) & mask; this.values[j] != null; j = (j + 1) & mask) {
+            int home = slot(this.keys[j], mask);
+            boolean reachable = hole <= j ? (home > hole && home <= j) : (home > hole || home <= j);
+            if (!reachable) {
+                this.keys[hole] = this.keys[j];
+                this.values[hole] = this.values[j];
+                hole = j;
+            }
+        }
+        this.values[hole] = null;
+        this.size--;
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    void clear() {
+        Arrays.fill(this.values, null);
+        this.size = 0;
+    }
+
+    /**
+     * Copies the chunks into {@code dest}, growing it if needed.
+     *
+     * @return the array holding the {@link #size()} chunks.
+     */
+    SparseUniverse.Chunk[] toArray(SparseUniverse.Chunk[] dest) {
+        if (dest.length < this.size) {
+            dest = new SparseUniverse.Chunk[Math.max(this.size, dest.length * 2)];
+        }
+        int n = 0;
+        for (SparseUniverse.Chunk chunk : this.values) {
+            if (chunk != null) {
+                dest[n++] = chunk;
+            }
+        }
+        return dest;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = this.keys;
+        SparseUniverse.Chunk[] oldValues = this.values;
+        this.keys = new long[capacity];
+        this.values = new SparseUniverse.Chunk[capacity];
+        this.size = 0;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                this.put(oldValues[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.leomoille.gameoflife.model;
+
+/**
+ * Detects when a bounded {@link GameModel} died out, became a still life or
+ * started oscillating, so that nobody keeps computing a board whose future is
+ * known.
+ * <p>
+ * The grid is hashed Zobrist-style: the hash is the XOR of a pseudo-random key
+ * for every non-empty word, derived from the word's position and value. When
+ * a word changes, its old key is XORed out and its new one in. The stepper
+ * sums these changes while it compares the tiles it recomputed with the
+ * previous generation (see {@link GenerationStepper#getHashDelta()}), so
+ * the hash costs no extra pass over the grid. The hashes of the last
+ * {@link #MAX_PERIOD} generations are kept; finding the current hash among
+ * them gives the period.
+ * <p>
+ * Two different grids have the same hash with a probability of about 2^-64,
+ * which is taken as impossible.
+ */
+public final class CycleDetector {
+    /**
+     * Longest period that can be detected.
+     */
+    public static final int MAX_PERIOD = 256;
+
+    private static final long POSITION_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    // Hash of generation g at index g % MAX_PERIOD, for the last count generations.
+    private final long[] hashes = new long[MAX_PERIOD];
+    private int count;
+    private long hash;
+    // False after an edit: the hash must be recomputed from the whole grid.
+    private boolean valid;
+    private int generation;
+    private int period;
+    private int cycleStart;
+    private boolean extinct;
+
+    /**
+     * Records a computed generation.
+     *
+     * @param hashDelta  How the generation changed the hash of the grid.
+     * @param next       The grid at {@code generation}.
+     * @param generation The generation of {@code next}.
+     * @return true if the period or the extinction changed.
+     */
+    boolean update(long hashDelta, Grid next, int generation) {
+        int oldPeriod = this.period;
+        boolean wasExtinct = this.extinct;
+        if (this.valid && generation - 1 == this.generation) {
+            this.hash ^= hashDelta;
+        } else {
+            this.reset();
+            this.valid = true;
+            // The previous generation is known too, so a still life is found at once.
+            this.hash = hash(next) ^ hashDelta;
+            this.remember(generation - 1);
+            this.hash ^= hashDelta;
+        }
+
+        if (this.period == 0) {
+            this.extinct = this.hash == 0L && next.getPopulation() == 0;
+            if (this.extinct) {
+                this.period = 1;
+                this.cycleStart = generation;
+            } else {
+                this.findPeriod(generation);
+            }
+        }
+        this.remember(generation);
+        return this.period != oldPeriod || this.extinct != wasExtinct;
+    }
+
+    /**
+     * Forgets the recorded hashes, after the grid was edited or the rule changed.
+     */
+    void reset() {
+        this.valid = false;
+        this.count = 0;
+        this.period = 0;
+        this.cycleStart = 0;
+        this.extinct = false;
+    }
+
+    /**
+     * Gets the period of the cycle the grid is in.
+     *
+     * @return 1 for a still life (or an empty grid), N for an oscillator of
+     * period N, 0 if no cycle was detected.
+     */
+    public int getPeriod() {
+        return this.period;
+    }
+
+    /**
+     * Gets the first generation of the detected cycle, the one the grid keeps coming back to.
+     *
+     * @return the generation, or 0 if no cycle was detected.
+     */
+    public int getCycleStart() {
+        return this.cycleStart;
+    }
+
+    /**
+     * @return true if every cell died.
+     */
+    public boolean isExtinct() {
+        return this.extinct;
+    }
+
+    /**
+     * Gets the period and the extinction at once, as a value that stays valid
+     * while the detector keeps recording generations.
+     */
+    public Status getStatus() {
+        return new Status(this.period, this.extinct);
+    }
+
+    /**
+     * Gets the hash of the last generation.
+     */
+    public long getHash() {
+        return this.hash;
+    }
+
+    private void findPeriod(int generation) {
+        int depth = Math.min(this.count, MAX_PERIOD);
+        // The most recent match gives the shortest period.
+        for (int p = 1; p <= depth; p++) {
+            if (this.hashes[Math.floorMod(generation - p, MAX_PERIOD)] == this.hash) {
+                this.period = p;
+                this.cycleStart = generation - p;
+                return;
+            }
+        }
+    }
+
+    private void remember(int generation) {
+        this.hashes[Math.floorMod(generation, MAX_PERIOD)] = this.hash;
+        this.generation = generation;
+        this.count = Math.min(this.count + 1, MAX_PERIOD);
+    }
+
+    /**
+     * Hashes a whole grid.
+     */
+    static long hash(Grid grid) {
+        int wordsPerRow = grid.getWordsPerRow();
+        long hash = 0L;
+        for (int y = 0; y < grid.getHeight(); y++) {
+            for (int w = 0; w < wordsPerRow; w++) {
+                hash ^= key(y * wordsPerRow + w, grid.loadWord(y, w));
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Gets how the hash changes when the word at a position changes.
+     */
+    static long keyChange(int position, long oldWord, long newWord) {
+        return oldWord == newWord ? 0L : key(position, oldWord) ^ key(position, newWord);
+    }
+
+    /**
+     * Gets the key of a word value at a position. Empty words have no key, so an empty grid hashes to 0.
+     */
+    private static long key(int position, long word) {
+        if (word == 0L) {
+            return 0L;
+        }
+        // MurmurHash3's finalizer: every input bit affects every output bit, so
+        // that the changes of different words do not cancel out.
+        long h = word ^ (position + 1L) * POSITION_MULTIPLIER;
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+
+    /**
+     * What a detector found at some point in time.
+     *
+     * @param period  1 for a still life or an empty grid, N for an oscillator of period N, 0 if no cycle was detected.
+     * @param extinct true if every cell died.
+     */
+    public record Status(int period, boolean extinct) {
+    }
+}
@@ -0,0 +1,58 @@
+package com.leomoille.gameoflife.model;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+/**
+ * Words stored in native buffers, outside of the Java heap.
+ * <p>
+ * The garbage collector only sees a few small buffer objects, whatever the
+ * size of the grid. With {@code --enable-preview}, {@link #close()} frees the
+ * native memory at once; otherwise it is freed when the buffers are collected
+ * (see {@link SlabWordStorage}).
+ * <p>
+ * Native memory is limited by {@code -XX:MaxDirectMemorySize}, which
+ * defaults to the maximum heap size.
+ */
+final class DirectWordStorage extends SlabWordStorage {
+    private ByteBuffer[] buffers;
+
+    DirectWordStorage(int size) {
+        this(size, DEFAULT_SLAB_SHIFT);
+    }
+
+    DirectWordStorage(int size, int slabShift) {
+        super(size, slabShift);
+        int count = slabCount(size, slabShift);
+        this.buffers = new ByteBuffer[count];
+        LongBuffer[] slabs = new LongBuffer[count];
+        try {
+            for (int i = 0; i < count; i++) {
+                // Native buffers are zeroed on allocation.
+                this.buffers[i] = this.allocateBuffer((long) slabWords(i, size, slabShift) * Long.BYTES)
+                        .order(ByteOrder.nativeOrder());
+                slabs[i] = this.buffers[i].asLongBuffer();
+            }
+        } catch (OutOfMemoryError e) {
+            // Out of direct memory: the slabs allocated so far are not kept by anyone.
+            this.releaseBuffers();
+            throw e;
+        }
+        this.setSlabs(slabs);
+    }
+
+    @Override
+    public WordStorage allocate(int size) {
+        return new DirectWordStorage(size, this.slabShift);
+    }
+
+    @Override
+    public void close() {
+        if (this.buffers == null) {
+            return;
+        }
+        this.releaseBuffers();
+        this.buffers = null;
+    }
+}
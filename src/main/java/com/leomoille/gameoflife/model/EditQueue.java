@@ -0,0 +1,67 @@
+package com.leomoille.gameoflife.model;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Lock-free queue of edits to a {@link GameModel}, which any number of
+ * threads may add to and a single thread at a time drains.
+ * <p>
+ * Edits are pushed on a stack with a compare-and-set; draining takes the
+ * whole stack with one atomic swap and reverses it, so edits come out in
+ * the order they were added, in batches, without the drainer ever waiting
+ * for the producers.
+ */
+final class EditQueue {
+    private final AtomicReference<Node> top = new AtomicReference<>();
+
+    /**
+     * Adds an edit. Safe from any thread.
+     */
+    void add(Consumer<GameModel> edit) {
+        Node node = new Node(edit);
+        Node current;
+        do {
+            current = this.top.get();
+            node.next = current;
+        } while (!this.top.compareAndSet(current, node));
+    }
+
+    boolean isEmpty() {
+        return this.top.get() == null;
+    }
+
+    /**
+     * Applies every queued edit, oldest first. Must be called by one thread at a time.
+     *
+     * @param model The model to edit.
+     * @return true if there was any edit.
+     */
+    boolean applyAll(GameModel model) {
+        Node node = this.top.getAndSet(null);
+        if (node == null) {
+            return false;
+        }
+        // The stack holds the newest edit first.
+        Node oldest = null;
+        while (node != null) {
+            Node next = node.next;
+            node.next = oldest;
+            oldest = node;
+            node = next;
+        }
+        for (Node edit = oldest; edit != null; edit = edit.next) {
+            edit.edit.accept(model);
+        }
+        return true;
+    }
+
+    private static final class Node {
+        private final Consumer<GameModel> edit;
+        private Node next;
+
+        Node(Consumer<GameModel> edit) {
+            this.edit = edit;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.leomoille.gameoflife.model;
 
+import java.util.concurrent.locks.LockSupport;
+
 /**
  * Handles the game loop and simulation timing.
  * <p>
@@ -7,12 +9,64 @@ package com.leomoille.gameoflife.model;
  * (EDT).
  * Controls the speed of the simulation and ensures the model advances
  * generation by generation.
+ * <p>
+ * Generations are scheduled at a fixed rate on {@link System#nanoTime()}:
+ * each one is due one period after the previous one was due, not after it
+ * ended, so the rate does not drift with the time spent computing. The
+ * thread parks until shortly before a generation is due and spins for the
+ * rest, so periods well below a millisecond are kept. A loop which falls
+ * too far behind drops the backlog rather than catching up in a burst. In
+ * unthrottled mode (see {@link #setUnthrottled(boolean)}) generations are
+ * computed back to back.
+ * <p>
+ * Observers of the model are not notified after every generation: they are
+ * notified once at least {@link #NOTIFICATION_INTERVAL_NANOS} passed since
+ * the previous notification, or after {@link #setMaxGenerationsPerNotification(int)}
+ * generations, whichever comes first, and when the loop stops. The
+ * simulation rate is thus independent of the repaint rate.
+ * <p>
+ * {@link #step()} computes a single generation, and {@link #advance(int)}
+ * runs a given number of generations as fast as possible, then stops.
+ * <p>
+ * With {@link #setCheckpointer(Checkpointer, int)}, a snapshot of the model is
+ * taken every N generations and written in the background.
+ * <p>
+ * With {@link #setStopOnCycle(boolean)}, the engine stops by itself once the
+ * model's cycle detector finds that the grid died out, is still or oscillates.
+ * <p>
+ * Every generation is timed with {@link System#nanoTime()} and recorded,
+ * with the population, births and deaths, in {@link #getMetrics()}.
+ * <p>
+ * The loop attaches the model for its whole run: edits submitted to the
+ * model meanwhile are queued, and the loop applies them between two
+ * generations, without taking any lock.
  */
 public class GameEngine {
+    /**
+     * Shortest time between two notifications of the model's observers: about one frame at 60 Hz.
+     */
+    public static final long NOTIFICATION_INTERVAL_NANOS = 16_666_667L;
+
+    /**
+     * Default number of generations after which observers are notified, however little time it took.
+     */
+    public static final int DEFAULT_MAX_GENERATIONS_PER_NOTIFICATION = 1024;
+
+    // Parking wakes up late by tens of microseconds; the end of a wait is spun instead.
+    private static final long SPIN_NANOS = 50_000L;
+    // Beyond this many periods late, the schedule restarts from now.
+    private static final int MAX_LAG_PERIODS = 4;
+
     private final GameModel model;
-    private boolean isRunning;
-    private int delayMs; // Speed of the game generation
-    private Thread gameThread;
+    private volatile boolean running;
+    private volatile long periodNanos; // Speed of the game generation
+    private volatile boolean unthrottled;
+    private volatile int maxGenerationsPerNotification;
+    private volatile Thread gameThread;
+    private volatile Checkpointer checkpointer;
+    private volatile int checkpointInterval;
+    private volatile boolean stopOnCycle;
+    private final TickMetrics metrics;
 
     /**
      * Constructs a new GameEngine.
@@ -21,59 +75,318 @@ public class GameEngine {
      */
     public GameEngine(GameModel model) {
         this.model = model;
-        this.isRunning = false;
+        this.running = false;
         // Default 100ms
-        this.delayMs = 100;
+        this.periodNanos = 100_000_000L;
+        this.maxGenerationsPerNotification = DEFAULT_MAX_GENERATIONS_PER_NOTIFICATION;
+        this.metrics = new TickMetrics();
+        // Births and deaths come almost for free from the stepper.
+        model.setChangeCounting(true);
+    }
+
+    /**
+     * Starts computing generations at the current speed until stopped.
+     */
+    public void start() {
+        this.launch(-1);
+    }
+
+    /**
+     * Computes a given number of generations as fast as possible on the
+     * engine thread, then stops. A running simulation is stopped first.
+     *
+     * @param generations Number of generations to compute.
+     * @throws IllegalArgumentException if the number is negative.
+     */
+    public void advance(int generations) {
+        if (generations < 0) {
+            throw new IllegalArgumentException("The number of generations cannot be negative: " + generations);
+        }
+        this.stop();
+        if (generations > 0) {
+            this.launch(generations);
+        }
+    }
+
+    /**
+     * Computes a single generation on the calling thread, stopping the simulation first.
+     */
+    public void step() {
+        this.stop();
+        this.model.attach();
+        try {
+            this.computeGeneration();
+            this.model.notifyAdvanced();
+        } finally {
+            this.model.detach();
+        }
     }
 
-    public synchronized void start() {
-        if (this.isRunning) {
+    private synchronized void launch(int generations) {
+        if (this.running) {
             return;
         }
+        // A loop which stopped by itself may still be notifying.
+        this.joinGameThread();
 
-        this.isRunning = true;
+        this.running = true;
+        this.gameThread = new Thread(() -> this.run(generations), "game-loop");
+        this.gameThread.start();
+    }
 
-        this.gameThread = new Thread(() -> {
-            while (this.isRunning) {
-                try {
-                    long startTime = System.currentTimeMillis();
-                    this.model.nextGeneration();
-                    long elapsedTime = System.currentTimeMillis() - startTime;
+    /**
+     * The game loop.
+     *
+     * @param generations Number of generations to compute, or -1 to run until stopped.
+     */
+    private void run(int generations) {
+        this.model.attach();
+        try {
+            this.loop(generations);
+            // Stopped from outside between two notifications.
+            this.model.notifyAdvanced();
+        } finally {
+            // An exception escaping a generation must not leave the engine looking alive.
+            this.running = false;
+            // Applies the edits submitted since the last generation.
+            this.model.detach();
+        }
+    }
 
-                    long sleepTime = this.delayMs - elapsedTime;
-                    if (sleepTime > 0) {
-                        Thread.sleep(sleepTime);
-                    }
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
+    /**
+     * Computes generations until the engine is stopped or the given number is reached.
+     */
+    private void loop(int generations) {
+        int remaining = generations;
+        int unnotified = 0;
+        long due = System.nanoTime();
+        long lastNotification = due - NOTIFICATION_INTERVAL_NANOS;
+        boolean first = true;
+        while (this.running) {
+            if (!first) {
+                due = this.awaitNextGeneration(due, generations >= 0);
+                if (!this.running) {
                     break;
                 }
             }
-        });
-        this.gameThread.start();
+            first = false;
+            long endTime = this.computeGeneration();
+            unnotified++;
+
+            boolean finished = remaining > 0 && --remaining == 0 || this.isCycleReached();
+            if (finished) {
+                // Cleared before notifying, so that observers see the engine stopped.
+                this.running = false;
+            }
+            if (finished || unnotified >= this.maxGenerationsPerNotification
+                    || endTime - lastNotification >= NOTIFICATION_INTERVAL_NANOS) {
+                this.model.notifyAdvanced();
+                unnotified = 0;
+                lastNotification = endTime;
+            }
+        }
+    }
+
+    /**
+     * Waits until the generation after the one due at {@code previousDue} is
+     * due. The period is read again on every wake-up, so that a change of
+     * speed applies at once, and the edits submitted to the model meanwhile
+     * are applied.
+     *
+     * @param previousDue When the previous generation was due.
+     * @param flatOut     true to ignore the speed, when advancing by a given number of generations.
+     * @return when the next generation was due.
+     */
+    private long awaitNextGeneration(long previousDue, boolean flatOut) {
+        while (true) {
+            long now = System.nanoTime();
+            long period = flatOut || this.unthrottled ? 0L : this.periodNanos;
+            long due = previousDue + period;
+            long wait = due - now;
+            if (wait <= 0) {
+                return -wait > MAX_LAG_PERIODS * period ? now : due;
+            }
+            if (!this.running) {
+                return due;
+            }
+            if (wait > SPIN_NANOS) {
+                LockSupport.parkNanos(this, wait - SPIN_NANOS);
+                this.model.applyQueuedEdits();
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    /**
+     * Computes and records a generation, without notifying observers, and
+     * hands a snapshot to the checkpointer when one is due. The snapshot is
+     * captured on the loop's thread, before any queued edit is applied, and
+     * its duration counts in the generation's.
+     *
+     * @return when the generation ended.
+     */
+    private long computeGeneration() {
+        // The interval is set before the checkpointer, so it is the checkpointer's or a later one.
+        Checkpointer current = this.checkpointer;
+        int interval = current != null ? this.checkpointInterval : 0;
+        long startTime = System.nanoTime();
+        Snapshot snapshot = this.model.computeGeneration(interval);
+        long endTime = System.nanoTime();
+        this.metrics.record(startTime, endTime, this.model.getPopulation(), this.model.getBirths(),
+                this.model.getDeaths());
+        if (snapshot != null) {
+            current.submit(snapshot);
+        }
+        return endTime;
+    }
+
+    /**
+     * Takes a snapshot every {@code interval} generations and hands it to a
+     * checkpointer, which writes it without blocking the game loop. The
+     * checkpointer stays owned by the caller, who closes it.
+     *
+     * @param checkpointer The checkpointer, or null to stop checkpointing.
+     * @param interval     Number of generations between two snapshots.
+     */
+    public void setCheckpointer(Checkpointer checkpointer, int interval) {
+        if (checkpointer != null && interval <= 0) {
+            throw new IllegalArgumentException("The checkpoint interval must be positive: " + interval);
+        }
+        this.checkpointInterval = interval;
+        this.checkpointer = checkpointer;
     }
 
+    /**
+     * Stops the engine once the grid is known to repeat itself. Cycle
+     * detection is enabled on the model when needed.
+     *
+     * @param stopOnCycle true to stop on extinction, still lifes and oscillators.
+     */
+    public void setStopOnCycle(boolean stopOnCycle) {
+        if (stopOnCycle) {
+            this.model.setCycleDetection(true);
+        }
+        this.stopOnCycle = stopOnCycle;
+    }
+
+    private boolean isCycleReached() {
+        CycleDetector detector = this.model.getCycleDetector();
+        return this.stopOnCycle && detector != null && detector.getPeriod() != 0;
+    }
+
+    /**
+     * Gets the durations and throughput of the generations computed by the engine.
+     */
+    public TickMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * Stops the simulation and waits for the generation being computed, so
+     * that the model can be edited safely once this returns.
+     */
     public synchronized void stop() {
-        this.isRunning = false;
+        this.running = false;
         if (this.gameThread != null) {
-            this.gameThread.interrupt();
+            LockSupport.unpark(this.gameThread);
+            this.joinGameThread();
+        }
+    }
+
+    private void joinGameThread() {
+        Thread thread = this.gameThread;
+        // An observer notified by the loop may stop the engine from the loop itself.
+        if (thread == null || thread == Thread.currentThread()) {
+            return;
+        }
+        try {
+            thread.join();
             this.gameThread = null; // Clean up
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
 
     public void togglePause() {
-        if (this.isRunning) {
+        if (this.running) {
             this.stop();
         } else {
             this.start();
         }
     }
 
+    /**
+     * Sets the time between two generations.
+     *
+     * @param delayMs The period, in milliseconds.
+     */
     public void setSpeed(int delayMs) {
-        this.delayMs = delayMs;
+        this.setPeriodNanos(delayMs * 1_000_000L);
+    }
+
+    /**
+     * Sets the time between two generations, with nanosecond precision.
+     *
+     * @param periodNanos The period; 0 computes generations back to back.
+     * @throws IllegalArgumentException if the period is negative.
+     */
+    public void setPeriodNanos(long periodNanos) {
+        if (periodNanos < 0) {
+            throw new IllegalArgumentException("The period cannot be negative: " + periodNanos);
+        }
+        this.periodNanos = periodNanos;
+        this.wakeUp();
+    }
+
+    public long getPeriodNanos() {
+        return this.periodNanos;
+    }
+
+    /**
+     * Computes generations as fast as possible, ignoring the speed, which is
+     * kept for when the engine is throttled again.
+     *
+     * @param unthrottled true to run at maximum throughput.
+     */
+    public void setUnthrottled(boolean unthrottled) {
+        this.unthrottled = unthrottled;
+        this.wakeUp();
+    }
+
+    public boolean isUnthrottled() {
+        return this.unthrottled;
+    }
+
+    /**
+     * Bounds the number of generations computed between two notifications of
+     * the model's observers; 1 notifies them after every generation.
+     *
+     * @param generations The bound.
+     * @throws IllegalArgumentException if the bound is not positive.
+     */
+    public void setMaxGenerationsPerNotification(int generations) {
+        if (generations <= 0) {
+            throw new IllegalArgumentException("The number of generations must be positive: " + generations);
+        }
+        this.maxGenerationsPerNotification = generations;
+    }
+
+    public int getMaxGenerationsPerNotification() {
+        return this.maxGenerationsPerNotification;
+    }
+
+    /**
+     * Makes a parked loop read the speed again.
+     */
+    private void wakeUp() {
+        Thread thread = this.gameThread;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
     }
 
     public boolean isRunning() {
-        return this.isRunning;
+        return this.running;
     }
 }
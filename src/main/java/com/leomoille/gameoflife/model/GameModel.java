@@ -2,67 +2,952 @@ package com.leomoille.gameoflife.model;
 
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
 
 /**
  * The main model class for the Game of Life.
  * Manages the grid, rules, and game state.
  * Notifies observers when the grid changes.
+ * <p>
+ * Generations are double-buffered: the next generation is written into a
+ * preallocated back grid which is then swapped with the current one, so a
+ * steady-state tick allocates nothing.
+ * <p>
+ * Large grids are stepped in parallel row bands (see {@link #setParallelism(int)});
+ * the result is bit-identical to sequential stepping.
+ * <p>
+ * The grids may also be memory-mapped files (see {@link #openMapped(Path, int, int)}),
+ * for boards bounded by the disk rather than the heap.
+ * <p>
+ * Only tiles that changed during the previous generation, and their
+ * neighbors, are recomputed; {@link #getSkippedTiles()} tells how many were
+ * left untouched by the last tick.
+ * <p>
+ * In unbounded mode (see {@link #setUnbounded(boolean)}) the grid is replaced
+ * by a {@link SparseUniverse} and observers receive "universe" events instead
+ * of "grid" events.
+ * <p>
+ * With {@link #setHistoryLimit(long)}, the last generations of the bounded
+ * grid are recorded and {@link #seekGeneration(int)} moves back and forth
+ * through them.
+ * <p>
+ * With {@link #setCycleDetection(boolean)}, the model tells when the bounded
+ * grid died out, became still or started oscillating.
+ * <p>
+ * With {@link #setChangeCounting(boolean)}, the births and deaths of each
+ * generation are counted and the population is kept up to date.
+ * <p>
+ * {@link #advance(int)} computes several generations and notifies observers
+ * once, so that fast simulations do not flood them with events.
+ * <p>
+ * Edits made while another thread computes generations go through
+ * {@link #submit(Consumer)}, which queues them without locking and has them
+ * applied between two generations.
  */
 public class GameModel {
+    // How long a thread waiting to use the model parks between two attempts.
+    private static final long ATTACH_WAIT_NANOS = 100_000L;
+
     private Grid grid;
+    private Grid backGrid;
+    private SparseUniverse universe;
     private RuleStrategy ruleStrategy;
+    private RuleTable ruleTable;
     private int generation;
+    private GenerationHistory history;
+    private CycleDetector cycleDetector;
+    private boolean changeCounting;
+    // Tracked while counting changes; -1 when unknown, e.g. after an edit.
+    private volatile long population = -1L;
+    private volatile long births = -1L;
+    private volatile long deaths = -1L;
+    // First generation computed since observers were last notified, -1 if none.
+    private int unnotifiedFrom = -1;
+    private boolean cycleChanged;
+    // Tiles changed since observers were last notified, none while the maximum is -1.
+    private int changedMinTileX = Integer.MAX_VALUE;
+    private int changedMinTileY = Integer.MAX_VALUE;
+    private int changedMaxTileX = -1;
+    private int changedMaxTileY = -1;
+    // Set when the tiles were not tracked for some generation: everything may have changed.
+    private boolean changedUnknown;
+    private CellBounds changedBounds;
+    private final GenerationStepper stepper;
     private final PropertyChangeSupport support;
+    private final EditQueue edits = new EditQueue();
+    // The thread using the model: an engine loop for its whole run, or a thread computing or applying edits.
+    private final AtomicReference<Thread> owner = new AtomicReference<>();
 
     public GameModel(int width, int height) {
-        this.grid = new Grid(width, height);
+        this(width, height, false);
+    }
+
+    /**
+     * Creates a model whose grids are stored on the Java heap or outside of it
+     * (see {@link #setOffHeap(boolean)}).
+     *
+     * @param width   Width of the grid.
+     * @param height  Height of the grid.
+     * @param offHeap true to store the grids off-heap.
+     */
+    public GameModel(int width, int height, boolean offHeap) {
+        this(offHeap ? Grid.offHeap(width, height) : new Grid(width, height),
+                offHeap ? Grid.offHeap(width, height) : new Grid(width, height), 0);
+    }
+
+    private GameModel(Grid grid, Grid backGrid, int generation) {
+        this.grid = grid;
+        this.backGrid = backGrid;
         this.ruleStrategy = new ConwayRules();
-        this.generation = 0;
+        this.generation = generation;
+        this.stepper = new GenerationStepper();
         this.support = new PropertyChangeSupport(this);
     }
 
+    /**
+     * Creates a model whose two grids are memory-mapped files in {@code directory}.
+     * <p>
+     * If the directory already holds the grids of an earlier model of the same
+     * size, they are reopened and the simulation resumes at the generation it
+     * had reached, with its boundary mode; otherwise empty grids are created.
+     * The files are written back by {@link #shutdown()}.
+     * <p>
+     * Generations are computed by streaming the rows of one file into the
+     * other, so only a few rows need to be in memory at a time. The model
+     * cannot be resized.
+     *
+     * @param directory Directory of the grid files, created if needed.
+     * @param width     Width of the grid.
+     * @param height    Height of the grid.
+     * @return the model.
+     * @throws IOException if the files cannot be created, or hold a grid of another size.
+     */
+    public static GameModel openMapped(Path directory, int width, int height) throws IOException {
+        Files.createDirectories(directory);
+        Path first = directory.resolve("grid-a.gol");
+        Path second = directory.resolve("grid-b.gol");
+        if (!Files.exists(first) || !Files.exists(second)) {
+            Grid grid = Grid.mapped(first, width, height);
+            try {
+                return new GameModel(grid, Grid.mapped(second, width, height), 0);
+            } catch (IOException e) {
+                grid.close();
+                throw e;
+            }
+        }
+
+        Grid a = Grid.openMapped(first);
+        Grid b;
+        try {
+            b = Grid.openMapped(second);
+        } catch (IOException e) {
+            a.close();
+            throw e;
+        }
+        for (Grid grid : new Grid[]{a, b}) {
+            if (grid.getWidth() != width || grid.getHeight() != height) {
+                a.close();
+                b.close();
+                throw new IOException(directory + " holds a " + grid.getWidth() + "x" + grid.getHeight()
+                        + " grid, not " + width + "x" + height);
+            }
+        }
+        // Each file records the generation it holds; the current one is the latest.
+        boolean firstIsCurrent = a.getRecordedGeneration() >= b.getRecordedGeneration();
+        Grid current = firstIsCurrent ? a : b;
+        Grid back = firstIsCurrent ? b : a;
+        back.setBoundaryMode(current.getBoundaryMode());
+        return new GameModel(current, back, (int) current.getRecordedGeneration());
+    }
+
     /**
      * Advances the game by one generation.
      */
     public void nextGeneration() {
-        int width = this.grid.getWidth();
-        int height = this.grid.getHeight();
-        Grid nextGrid = new Grid(width, height);
+        this.advance(1);
+    }
 
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                CellState nextState = this.ruleStrategy.computeNextState(this.grid, x, y);
-                nextGrid.setCell(x, y, nextState);
+    /**
+     * Advances the game by several generations, notifying observers once at
+     * the end rather than after each generation: "grid" (or "universe") and
+     * "generation" events are fired with the last generation, and a "cycle"
+     * event if the cycle detector changed on the way.
+     *
+     * @param generations Number of generations to compute.
+     * @throws IllegalArgumentException if the number is negative.
+     */
+    public void advance(int generations) {
+        if (generations < 0) {
+            throw new IllegalArgumentException("The number of generations cannot be negative: " + generations);
+        }
+        this.attach();
+        try {
+            for (int i = 0; i < generations; i++) {
+                this.computeNext();
+            }
+            this.fireAdvanced();
+        } finally {
+            this.detach();
+        }
+    }
+
+    /**
+     * Takes exclusive use of the model, until {@link #detach()}. An engine
+     * holds it for its whole run, so that its generations need no
+     * synchronization and edits submitted meanwhile are only queued.
+     * <p>
+     * If another thread is using the model, such as one applying an edit,
+     * this waits for it to be done; uncontended, it is a single compare-and-set.
+     */
+    void attach() {
+        Thread current = Thread.currentThread();
+        while (!this.owner.compareAndSet(null, current)) {
+            LockSupport.parkNanos(this, ATTACH_WAIT_NANOS);
+        }
+    }
+
+    /**
+     * Gives up the use of the model taken by {@link #attach()}, after applying
+     * the edits queued meanwhile and not applied yet.
+     */
+    void detach() {
+        this.owner.set(null);
+        this.applyEdits();
+    }
+
+    /**
+     * Computes the next generation without notifying observers; {@link #notifyAdvanced()}
+     * tells them about every generation computed since the last notification.
+     * The calling thread must have attached the model.
+     */
+    void computeGeneration() {
+        this.computeGeneration(0);
+    }
+
+    /**
+     * Computes the next generation without notifying observers, and captures
+     * a snapshot of the bounded grid if one is due. The calling thread must
+     * have attached the model, so no queued edit runs meanwhile.
+     *
+     * @param checkpointInterval Captures a snapshot when the new generation is a multiple of it; 0 never does.
+     * @return the snapshot, or null if none was due.
+     */
+    Snapshot computeGeneration(int checkpointInterval) {
+        this.computeNext();
+        if (checkpointInterval > 0 && this.universe == null && this.generation % checkpointInterval == 0) {
+            return this.snapshot();
+        }
+        return null;
+    }
+
+    /**
+     * Fires the events of the generations computed since the last notification,
+     * if any. The calling thread must have attached the model.
+     */
+    void notifyAdvanced() {
+        this.fireAdvanced();
+    }
+
+    /**
+     * Applies the edits queued since the last generation. The calling thread
+     * must have attached the model: an engine calls this while it waits for
+     * the next generation, so that edits do not wait for it.
+     */
+    void applyQueuedEdits() {
+        if (!this.edits.isEmpty()) {
+            this.edits.applyAll(this);
+        }
+    }
+
+    /**
+     * Queues an edit of the cells, to be applied between two generations.
+     * <p>
+     * If the model is idle, the edit is applied at once on the calling thread.
+     * Otherwise it is only queued, and applied by the thread using the model:
+     * a running engine applies it before its next generation, or sooner if it
+     * is waiting for it, and never waits for the edit to be submitted. Either
+     * way, edits are applied in the order they were submitted and never while
+     * a generation is computed, and observers are notified as for a direct
+     * edit, on the thread applying it. Safe from any thread. An edit must not
+     * compute generations itself.
+     *
+     * @param edit The edit, such as {@code model -> model.toggleCell(x, y)}.
+     */
+    public void submit(Consumer<GameModel> edit) {
+        this.edits.add(edit);
+        this.applyEdits();
+        Thread current = this.owner.get();
+        if (current != null && current != Thread.currentThread()) {
+            // An engine waiting for its next generation applies the edit right away.
+            LockSupport.unpark(current);
+        }
+    }
+
+    /**
+     * Applies the queued edits, unless another thread is using the model: it
+     * will apply them when it is done.
+     */
+    private void applyEdits() {
+        Thread current = Thread.currentThread();
+        while (!this.edits.isEmpty() && this.owner.compareAndSet(null, current)) {
+            try {
+                this.edits.applyAll(this);
+            } finally {
+                this.owner.set(null);
             }
         }
+    }
+
+    private void computeNext() {
+        this.applyQueuedEdits();
+        if (this.unnotifiedFrom < 0) {
+            this.unnotifiedFrom = this.generation;
+        }
+        if (this.universe != null) {
+            this.universe.step(this.ruleTable);
+            this.generation++;
+            return;
+        }
+
+        this.stepper.step(this.grid, this.backGrid, this.ruleStrategy);
 
         Grid oldGrid = this.grid;
-        this.grid = nextGrid;
+        this.grid = this.backGrid;
+        this.backGrid = oldGrid;
         this.generation++;
+        this.grid.recordGeneration(this.generation);
+        if (this.changeCounting) {
+            this.countChanges();
+        }
+        if (this.history != null) {
+            this.history.record(oldGrid, this.grid, this.generation);
+        }
+        if (this.support.hasListeners("grid")) {
+            this.addChangedTiles();
+        } else {
+            this.changedUnknown = true;
+        }
+        if (this.cycleDetector != null && this.cycleDetector.update(this.stepper.getHashDelta(), this.grid,
+                this.generation)) {
+            this.cycleChanged = true;
+        }
+    }
 
-        this.support.firePropertyChange("grid", oldGrid, this.grid);
-        this.support.firePropertyChange("generation", this.generation - 1, this.generation);
+    private void fireAdvanced() {
+        int from = this.unnotifiedFrom;
+        if (from < 0) {
+            return;
+        }
+        this.unnotifiedFrom = -1;
+        // Events (and the boxed generation number) are only built when someone listens.
+        if (this.universe != null) {
+            if (this.support.hasListeners("universe")) {
+                this.support.firePropertyChange("universe", null, this.universe);
+            }
+        } else if (this.support.hasListeners("grid")) {
+            this.changedBounds = this.takeChangedBounds();
+            this.support.firePropertyChange("grid", this.backGrid, this.grid);
+        }
+        if (this.support.hasListeners("generation")) {
+            this.support.firePropertyChange("generation", from, this.generation);
+        }
+        if (this.cycleChanged) {
+            this.cycleChanged = false;
+            // No old value: extinction may change without the period changing.
+            this.support.firePropertyChange("cycle", null, this.cycleDetector.getPeriod());
+        }
     }
 
     public void reset() {
+        this.forgetPast();
         this.grid.clear();
+        if (this.universe != null) {
+            this.universe.clear();
+        }
         this.generation = 0;
-        this.support.firePropertyChange("grid", null, this.grid);
+        this.grid.recordGeneration(0);
+        this.backGrid.recordGeneration(0);
+        this.fireCellsChanged();
         this.support.firePropertyChange("generation", null, 0);
     }
 
+    /**
+     * Fills the grid with random cells. In unbounded mode, a rectangle the size
+     * of the grid centered on the origin is filled instead.
+     *
+     * @param probability Probability of each cell being alive.
+     */
     public void randomize(double probability) {
-        this.grid.randomize(probability);
+        this.forgetPast();
+        if (this.universe != null) {
+            int width = this.grid.getWidth();
+            int height = this.grid.getHeight();
+            this.universe.randomize(-width / 2, -height / 2, width, height, probability);
+        } else {
+            this.grid.randomize(probability);
+        }
+        this.fireCellsChanged();
+    }
+
+    /**
+     * Fills the grid with random cells drawn from a seeded generator: the same
+     * seed, size and probability always give the same grid.
+     *
+     * @param probability Probability of each cell being alive.
+     * @param seed        Seed of the generator.
+     */
+    public void randomize(double probability, long seed) {
+        if (this.universe != null) {
+            throw new IllegalStateException("Seeded filling is only supported on a bounded grid");
+        }
+        this.forgetPast();
+        this.grid.randomize(probability, new Random(seed));
+        this.fireCellsChanged();
+    }
+
+    /**
+     * Replaces the cells with a pattern, centered, and resets the generation
+     * counter. A bounded grid too small for the pattern is enlarged, unless it
+     * is mapped to a file, in which case the pattern is clipped. The rule of
+     * the pattern is not applied.
+     *
+     * @param pattern The pattern to load.
+     */
+    public void loadPattern(Pattern pattern) {
+        this.forgetPast();
+        if (this.universe != null) {
+            this.universe.clear();
+            int originX = -pattern.getWidth() / 2;
+            int originY = -pattern.getHeight() / 2;
+            for (int y = 0; y < pattern.getHeight(); y++) {
+                for (int w = 0; w < pattern.getWordsPerRow(); w++) {
+                    long word = pattern.getWord(y, w);
+                    while (word != 0) {
+                        int x = w * Grid.WORD_BITS + Long.numberOfTrailingZeros(word);
+                        this.universe.setAlive(originX + x, originY + y, true);
+                        word &= word - 1;
+                    }
+                }
+            }
+        } else {
+            int width = this.grid.getWidth();
+            int height = this.grid.getHeight();
+            if (!this.grid.isMapped() && (pattern.getWidth() > width || pattern.getHeight() > height)) {
+                this.resize(Math.max(width, pattern.getWidth()), Math.max(height, pattern.getHeight()));
+            }
+            this.grid.clear();
+            pattern.copyTo(this.grid, (this.grid.getWidth() - pattern.getWidth()) / 2,
+                    (this.grid.getHeight() - pattern.getHeight()) / 2);
+        }
+        this.generation = 0;
+        this.grid.recordGeneration(0);
+        this.fireCellsChanged();
+        this.support.firePropertyChange("generation", null, 0);
+    }
+
+    /**
+     * Copies the live cells of the bounded grid, cropped to their bounding box,
+     * with the notation of the current rule if it is a {@link LifeLikeRule}.
+     *
+     * @return the pattern.
+     * @throws IllegalStateException in unbounded mode.
+     */
+    public Pattern toPattern() {
+        if (this.universe != null) {
+            throw new IllegalStateException("Saving is only supported on a bounded grid");
+        }
+        String rule = this.ruleStrategy instanceof LifeLikeRule lifeLikeRule ? lifeLikeRule.getNotation() : null;
+        return Pattern.of(this.grid, rule);
+    }
+
+    /**
+     * Captures the cells, generation counter, rule and boundary mode of the
+     * bounded grid. The snapshot can be written to disk on another thread
+     * while the simulation goes on.
+     *
+     * @return the snapshot.
+     * @throws IllegalStateException in unbounded mode.
+     */
+    public Snapshot snapshot() {
+        if (this.universe != null) {
+            throw new IllegalStateException("Snapshots are only supported on a bounded grid");
+        }
+        return Snapshot.capture(this.grid, this.generation, this.ruleStrategy);
+    }
+
+    /**
+     * Restores the state captured by {@link #snapshot()}, resizing the grid if needed.
+     *
+     * @param snapshot The snapshot to restore.
+     * @throws IllegalStateException         in unbounded mode.
+     * @throws UnsupportedOperationException if the grids are mapped to files and have another size.
+     */
+    public void restore(Snapshot snapshot) {
+        if (this.universe != null) {
+            throw new IllegalStateException("Snapshots are only supported on a bounded grid");
+        }
+        this.forgetPast();
+        if (snapshot.getWidth() != this.grid.getWidth() || snapshot.getHeight() != this.grid.getHeight()) {
+            this.resize(snapshot.getWidth(), snapshot.getHeight());
+        }
+        this.setRuleStrategy(new LifeLikeRule(snapshot.getRuleNotation(), snapshot.getRuleName()));
+        this.backGrid.setBoundaryMode(snapshot.getBoundaryMode());
+        snapshot.restoreTo(this.grid);
+        this.generation = (int) snapshot.getGeneration();
+        this.grid.recordGeneration(this.generation);
+        this.fireCellsChanged();
+        this.support.firePropertyChange("generation", null, this.generation);
+    }
+
+    /**
+     * Toggles the state of a cell, in the grid or in the unbounded universe.
+     * Observers receive a "grid" event whose changed bounds are that cell,
+     * plus the cells changed by any generation computed since they were last
+     * notified, such as when the toggle is applied between two generations.
+     *
+     * @param x X coordinate of the cell.
+     * @param y Y coordinate of the cell.
+     */
+    public void toggleCell(int x, int y) {
+        if (this.universe != null) {
+            this.universe.setAlive(x, y, !this.universe.isAlive(x, y));
+            this.support.firePropertyChange("universe", null, this.universe);
+        } else if (x >= 0 && x < this.grid.getWidth() && y >= 0 && y < this.grid.getHeight()) {
+            this.forgetPast();
+            this.grid.setAlive(x, y, !this.grid.isAlive(x, y));
+            CellBounds cell = new CellBounds(x, y, 1, 1);
+            // Observers have not seen the generations computed since the last notification yet.
+            this.changedBounds = this.unnotifiedFrom >= 0 ? CellBounds.union(this.takeChangedBounds(), cell) : cell;
+            this.support.firePropertyChange("grid", null, this.grid);
+        }
+    }
+
+    /**
+     * Records the last generations of the bounded grid, up to a memory limit,
+     * so that {@link #seekGeneration(int)} can go back to them. Editing the
+     * cells starts a new history from the edited grid.
+     *
+     * @param bytes Approximate memory the history may take, or 0 to stop recording.
+     * @throws IllegalArgumentException if the limit is negative.
+     */
+    public void setHistoryLimit(long bytes) {
+        if (bytes < 0) {
+            throw new IllegalArgumentException("The history limit cannot be negative: " + bytes);
+        }
+        this.history = bytes == 0 ? null : new GenerationHistory(bytes, GenerationHistory.DEFAULT_KEYFRAME_INTERVAL);
+    }
+
+    /**
+     * Gets the recorded generations.
+     *
+     * @return the history, or null if generations are not recorded.
+     */
+    public GenerationHistory getHistory() {
+        return this.history;
+    }
+
+    /**
+     * Moves the bounded grid to a recorded generation, backwards or forwards.
+     * Computing a generation after moving backwards discards the generations
+     * that were recorded after it.
+     *
+     * @param generation The generation to reach, clamped to the recorded ones.
+     * @return the generation reached, the current one if none is recorded.
+     */
+    public int seekGeneration(int generation) {
+        if (this.history == null || this.history.isEmpty() || this.universe != null) {
+            return this.generation;
+        }
+        int previous = this.generation;
+        this.generation = this.history.seek(this.grid, generation);
+        if (this.generation != previous) {
+            this.resetCycleDetector();
+            this.forgetCounts();
+            this.grid.recordGeneration(this.generation);
+            // A mapped model reopens the grid recording the latest generation, which must stay this one.
+            this.backGrid.recordGeneration(this.generation - 1L);
+            this.fireCellsChanged();
+            this.support.firePropertyChange("generation", previous, this.generation);
+        }
+        return this.generation;
+    }
+
+    /**
+     * Enables or disables the detection of extinction, still lifes and
+     * oscillators on the bounded grid. When a cycle is found, or lost after
+     * an edit, a "cycle" event is fired with the period as its new value
+     * (see {@link CycleDetector#getPeriod()}).
+     *
+     * @param enabled true to detect cycles.
+     */
+    public void setCycleDetection(boolean enabled) {
+        if (enabled == (this.cycleDetector != null)) {
+            return;
+        }
+        this.cycleDetector = enabled ? new CycleDetector() : null;
+        this.cycleChanged = false;
+        this.stepper.setHashing(enabled);
+    }
+
+    /**
+     * Gets the state of cycle detection.
+     *
+     * @return the detector, or null if cycles are not detected.
+     */
+    public CycleDetector getCycleDetector() {
+        return this.cycleDetector;
+    }
+
+    /**
+     * Enables or disables counting the cells born and dead at each generation
+     * of the bounded grid, which also keeps the population up to date without
+     * recounting it. The counts come from the stepper's comparison of the
+     * tiles it recomputed, so they cost a few instructions per changed word.
+     *
+     * @param enabled true to count changes.
+     */
+    public void setChangeCounting(boolean enabled) {
+        this.changeCounting = enabled;
+        this.stepper.setCounting(enabled);
+        if (!enabled) {
+            this.forgetCounts();
+        }
+    }
+
+    private void countChanges() {
+        long born = this.stepper.getBirths();
+        long died = this.stepper.getDeaths();
+        long previous = this.population;
+        this.population = previous >= 0 ? previous + born - died : this.grid.getPopulation();
+        this.births = born;
+        this.deaths = died;
+    }
+
+    /**
+     * Gets the number of alive cells, tracked from generation to generation
+     * while counting changes, counted otherwise.
+     *
+     * @return the population of the grid, or of the universe in unbounded mode.
+     */
+    public long getPopulation() {
+        if (this.universe != null) {
+            return this.universe.getPopulation();
+        }
+        long tracked = this.population;
+        return tracked >= 0 ? tracked : this.grid.getPopulation();
+    }
+
+    /**
+     * Gets the number of cells born during the last generation.
+     *
+     * @return the births, or -1 if changes are not counted or the cells were edited since.
+     */
+    public long getBirths() {
+        return this.births;
+    }
+
+    /**
+     * Gets the number of cells which died during the last generation.
+     *
+     * @return the deaths, or -1 if changes are not counted or the cells were edited since.
+     */
+    public long getDeaths() {
+        return this.deaths;
+    }
+
+    /**
+     * Forgets the recorded generations, hashes and counts after the cells were edited.
+     */
+    private void forgetPast() {
+        if (this.history != null) {
+            this.history.clear();
+        }
+        this.resetCycleDetector();
+        this.forgetCounts();
+    }
+
+    private void forgetCounts() {
+        this.population = -1L;
+        this.births = -1L;
+        this.deaths = -1L;
+    }
+
+    private void resetCycleDetector() {
+        if (this.cycleDetector == null) {
+            return;
+        }
+        boolean wasCyclic = this.cycleDetector.getPeriod() != 0;
+        this.cycleDetector.reset();
+        if (wasCyclic) {
+            this.support.firePropertyChange("cycle", null, 0);
+        }
+    }
+
+    /**
+     * Switches between the bounded grid and an unbounded sparse universe.
+     * Switching clears the cells and resets the generation counter.
+     *
+     * @param unbounded true to simulate an unbounded universe.
+     * @throws IllegalArgumentException if the rule has birth on 0 neighbors, which
+     *                                  the unbounded universe does not support.
+     */
+    public void setUnbounded(boolean unbounded) {
+        if (unbounded == this.isUnbounded()) {
+            return;
+        }
+        if (unbounded) {
+            RuleTable table = RuleTable.of(this.ruleStrategy);
+            SparseUniverse.checkSupported(table);
+            this.universe = new SparseUniverse();
+            this.ruleTable = table;
+        } else {
+            this.universe = null;
+        }
+        this.reset();
+    }
+
+    public boolean isUnbounded() {
+        return this.universe != null;
+    }
+
+    /**
+     * Gets the unbounded universe.
+     *
+     * @return the universe, or null when the model uses the bounded grid.
+     */
+    public SparseUniverse getUniverse() {
+        return this.universe;
+    }
+
+    private void fireCellsChanged() {
+        if (this.universe != null) {
+            this.support.firePropertyChange("universe", null, this.universe);
+        } else {
+            this.fireGridReplaced();
+        }
+    }
+
+    /**
+     * Fires a "grid" event telling that any cell may have changed.
+     */
+    private void fireGridReplaced() {
+        this.changedBounds = null;
         this.support.firePropertyChange("grid", null, this.grid);
     }
 
+    /**
+     * Adds the tiles the stepper flagged as changed by the last generation to
+     * those changed since the last notification.
+     */
+    private void addChangedTiles() {
+        int wordsPerRow = this.grid.getWordsPerRow();
+        for (int ty = 0; ty < this.grid.getTileRows(); ty++) {
+            int first = 0;
+            while (first < wordsPerRow && !this.grid.isTileChanged(first, ty)) {
+                first++;
+            }
+            if (first == wordsPerRow) {
+                continue;
+            }
+            int last = wordsPerRow - 1;
+            while (!this.grid.isTileChanged(last, ty)) {
+                last--;
+            }
+            this.changedMinTileX = Math.min(this.changedMinTileX, first);
+            this.changedMinTileY = Math.min(this.changedMinTileY, ty);
+            this.changedMaxTileX = Math.max(this.changedMaxTileX, last);
+            this.changedMaxTileY = Math.max(this.changedMaxTileY, ty);
+        }
+    }
+
+    /**
+     * Turns the changed tiles into cell bounds and starts tracking afresh.
+     *
+     * @return the bounds, or null if they are unknown.
+     */
+    private CellBounds takeChangedBounds() {
+        CellBounds bounds;
+        if (this.changedUnknown) {
+            bounds = null;
+        } else if (this.changedMaxTileX < 0) {
+            bounds = CellBounds.EMPTY;
+        } else {
+            // A tile is one word wide and TILE_SIZE rows high.
+            int x = this.changedMinTileX * Long.SIZE;
+            int y = this.changedMinTileY * Grid.TILE_SIZE;
+            int toX = Math.min(this.grid.getWidth(), (this.changedMaxTileX + 1) * Long.SIZE);
+            int toY = Math.min(this.grid.getHeight(), (this.changedMaxTileY + 1) * Grid.TILE_SIZE);
+            bounds = new CellBounds(x, y, toX - x, toY - y);
+        }
+        this.changedUnknown = false;
+        this.changedMinTileX = Integer.MAX_VALUE;
+        this.changedMinTileY = Integer.MAX_VALUE;
+        this.changedMaxTileX = -1;
+        this.changedMaxTileY = -1;
+        return bounds;
+    }
+
+    /**
+     * Gets the cells which may have changed since the previous "grid" event,
+     * as seen by the observers of the current one. The bounds are those of
+     * the tiles recomputed differently, so they may hold unchanged cells, but
+     * every changed cell is in them.
+     *
+     * @return the bounds, possibly empty, or null if every cell may have
+     * changed: after most edits, a resize or when the grid was replaced.
+     */
+    public CellBounds getChangedBounds() {
+        return this.changedBounds;
+    }
+
+    /**
+     * Resizes the bounded grid, keeping the cells that still fit.
+     *
+     * @throws UnsupportedOperationException if the grids are mapped to files.
+     */
     public void resize(int width, int height) {
+        this.forgetPast();
         this.grid.resize(width, height);
-        this.support.firePropertyChange("grid", null, this.grid);
+        this.backGrid.resize(width, height);
+        this.fireGridReplaced();
     }
 
+    /**
+     * Changes the rule. The cells are kept.
+     *
+     * @param ruleStrategy The rule.
+     * @throws IllegalArgumentException if the model is unbounded and the rule has
+     *                                  birth on 0 neighbors; the rule is then unchanged.
+     */
     public void setRuleStrategy(RuleStrategy ruleStrategy) {
+        if (this.universe != null) {
+            RuleTable table = RuleTable.of(ruleStrategy);
+            SparseUniverse.checkSupported(table);
+            this.ruleTable = table;
+        }
         this.ruleStrategy = ruleStrategy;
+        // Areas that were stable under the previous rule may not be under the new one.
+        this.grid.markAllTilesChanged();
+        this.resetCycleDetector();
+    }
+
+    /**
+     * Changes what lies beyond the edges of the bounded grid. The cells are kept.
+     *
+     * @param boundaryMode Dead border, torus or mirror.
+     */
+    public void setBoundaryMode(BoundaryMode boundaryMode) {
+        this.grid.setBoundaryMode(boundaryMode);
+        this.backGrid.setBoundaryMode(boundaryMode);
+        this.resetCycleDetector();
+    }
+
+    public BoundaryMode getBoundaryMode() {
+        return this.grid.getBoundaryMode();
+    }
+
+    /**
+     * Sets how many threads compute each generation. 1 disables parallel stepping.
+     * By default the common {@link ForkJoinPool} is used.
+     *
+     * @param parallelism Number of worker threads.
+     */
+    public void setParallelism(int parallelism) {
+        this.stepper.setParallelism(parallelism);
+    }
+
+    public int getParallelism() {
+        return this.stepper.getParallelism();
+    }
+
+    /**
+     * Computes generations on a shared pool instead of a pool owned by the model.
+     *
+     * @param pool The pool to use, or null to step sequentially.
+     */
+    public void setForkJoinPool(ForkJoinPool pool) {
+        this.stepper.setPool(pool);
+    }
+
+    /**
+     * Sets the grid size (in cells) below which generations are always computed sequentially.
+     *
+     * @param cells Number of cells.
+     */
+    public void setSequentialCutoff(int cells) {
+        this.stepper.setSequentialCutoff(cells);
+    }
+
+    /**
+     * Moves the cells of the bounded grid outside of the Java heap, or back.
+     * Off-heap grids keep very large boards out of the garbage collector's way;
+     * their memory is released by {@link #shutdown()} or when switching back.
+     * Mapped grids count as off-heap; moving them to the heap closes their files.
+     *
+     * @param offHeap true to store the grids off-heap.
+     */
+    public void setOffHeap(boolean offHeap) {
+        if (offHeap == this.grid.isOffHeap()) {
+            return;
+        }
+        int width = this.grid.getWidth();
+        int height = this.grid.getHeight();
+        BoundaryMode boundaryMode = this.grid.getBoundaryMode();
+        Grid newGrid = offHeap ? Grid.offHeap(width, height) : new Grid(width, height);
+        Grid newBackGrid = offHeap ? Grid.offHeap(width, height) : new Grid(width, height);
+        newGrid.setBoundaryMode(boundaryMode);
+        newBackGrid.setBoundaryMode(boundaryMode);
+
+        long[] row = new long[this.grid.getWordsPerRow()];
+        for (int y = 0; y < height; y++) {
+            this.grid.getRow(y, row);
+            newGrid.setRow(y, row);
+        }
+
+        this.grid.close();
+        this.backGrid.close();
+        this.grid = newGrid;
+        this.backGrid = newBackGrid;
+        this.fireGridReplaced();
+    }
+
+    public boolean isOffHeap() {
+        return this.grid.isOffHeap();
+    }
+
+    public boolean isMapped() {
+        return this.grid.isMapped();
+    }
+
+    /**
+     * Releases the worker threads created by {@link #setParallelism(int)} and
+     * the memory of off-heap grids, and writes mapped grids to their files.
+     * The model must not be used afterwards.
+     */
+    public void shutdown() {
+        this.stepper.close();
+        this.grid.close();
+        this.backGrid.close();
+    }
+
+    /**
+     * Gets the number of tiles the last generation did not need to recompute.
+     *
+     * @return skipped tiles, out of {@link #getTileCount()}.
+     */
+    public int getSkippedTiles() {
+        return this.stepper.getSkippedTiles();
+    }
+
+    public int getTileCount() {
+        return this.stepper.getTileCount();
     }
 
     public Grid getGrid() {
@@ -0,0 +1,370 @@
+package com.leomoille.gameoflife.model;
+
+import java.util.Arrays;
+
+/**
+ * Bounded record of the last generations of a bounded {@link GameModel}, to
+ * move backwards and forwards through them.
+ * <p>
+ * Each generation is stored as a delta: the words of the grid whose cells
+ * flipped, XORed with the previous generation. Applying a delta therefore
+ * moves either way between two consecutive generations, and a quiet board
+ * costs almost nothing to record. Only the tiles the stepper flagged as
+ * changed are scanned to build a delta.
+ * <p>
+ * Every {@link #getKeyframeInterval()} generations, a keyframe (the non-empty
+ * words of the whole grid) is kept as well, so that seeking far away starts
+ * from the nearest keyframe rather than replaying every delta in between.
+ * <p>
+ * Generations are kept in a ring buffer; once the history takes more than
+ * its memory limit, the oldest ones are evicted.
+ */
+public final class GenerationHistory {
+    /**
+     * Default number of generations between two keyframes.
+     */
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 256;
+
+    private static final int INITIAL_CAPACITY = 64;
+    // Bytes accounted for each generation besides its frames: its two slots in the ring.
+    private static final int SLOT_BYTES = 2 * Integer.BYTES;
+    // Bytes accounted for each frame besides its words: the object and two array headers.
+    private static final int FRAME_BYTES = 64;
+    // Relative cost of restoring a keyframe, in deltas.
+    private static final int KEYFRAME_COST = 4;
+    private static final Frame EMPTY = new Frame(new int[0], new long[0]);
+
+    private final long memoryLimit;
+    private final int keyframeInterval;
+    // Slot (head + i) % capacity holds generation oldestGeneration + i.
+    private Frame[] deltas;
+    private Frame[] keyframes;
+    private int head;
+    private int size;
+    private int oldestGeneration;
+    // Generation the grid is at; lower than the newest one after seeking backwards.
+    private int currentGeneration;
+    private long memoryUsage;
+    private int wordsPerRow;
+    private int height;
+
+    // Reused while scanning a grid, then copied to a frame of the exact size.
+    private int[] positionBuffer = new int[256];
+    private long[] wordBuffer = new long[256];
+
+    /**
+     * Creates an empty history.
+     *
+     * @param memoryLimit      Approximate number of bytes the history may take.
+     * @param keyframeInterval Number of generations between two keyframes.
+     * @throws IllegalArgumentException if a parameter is not positive.
+     */
+    public GenerationHistory(long memoryLimit, int keyframeInterval) {
+        if (memoryLimit <= 0) {
+            throw new IllegalArgumentException("The memory limit must be positive: " + memoryLimit);
+        }
+        if (keyframeInterval <= 0) {
+            throw new IllegalArgumentException("The keyframe interval must be positive: " + keyframeInterval);
+        }
+        this.memoryLimit = memoryLimit;
+        this.keyframeInterval = keyframeInterval;
+        this.deltas = new Frame[INITIAL_CAPACITY];
+        this.keyframes = new Frame[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Records a computed generation.
+     * <p>
+     * If {@code previous} is not the generation the history is at (the
+     * history is empty, was cleared after an edit, or the grid was resized),
+     * recording starts over from {@code previous}. Generations recorded after
+     * the current one, which are left after seeking backwards, are discarded.
+     *
+     * @param previous   The grid at {@code generation - 1}.
+     * @param next       The grid at {@code generation}, with the tile flags set by the stepper.
+     * @param generation The generation of {@code next}.
+     */
+    void record(Grid previous, Grid next, int generation) {
+        if (this.size == 0 || generation - 1 != this.currentGeneration
+                || next.getWordsPerRow() != this.wordsPerRow || next.getHeight() != this.height) {
+            this.clear();
+            this.wordsPerRow = next.getWordsPerRow();
+            this.height = next.getHeight();
+            this.oldestGeneration = generation - 1;
+            this.currentGeneration = generation - 1;
+            this.append(null, null);
+        }
+        while (this.getNewestGeneration() > this.currentGeneration) {
+            this.removeNewest();
+        }
+
+        Frame delta = this.captureDelta(previous, next);
+        Frame keyframe = generation % this.keyframeInterval == 0 ? this.captureKeyframe(next) : null;
+        this.append(delta, keyframe);
+        this.currentGeneration = generation;
+        while (this.memoryUsage > this.memoryLimit && this.size > 1) {
+            this.removeOldest();
+        }
+    }
+
+    /**
+     * Moves a grid to another recorded generation. The grid must be at the
+     * current generation; the cells it changes are flagged on their tiles.
+     *
+     * @param grid       The grid, at {@link #getCurrentGeneration()}.
+     * @param generation The generation to reach, clamped to the recorded ones.
+     * @return the generation reached.
+     */
+    int seek(Grid grid, int generation) {
+        if (this.size == 0) {
+            return generation;
+        }
+        int target = Math.max(this.oldestGeneration, Math.min(this.getNewestGeneration(), generation));
+        int from = this.currentGeneration;
+        int keyframe = this.findNearestKeyframe(target);
+        if (keyframe >= 0 && Math.abs(target - keyframe) + KEYFRAME_COST < Math.abs(target - from)) {
+            grid.clear();
+            this.apply(grid, this.keyframes[this.slot(keyframe - this.oldestGeneration)]);
+            from = keyframe;
+        }
+        // The delta of generation g moves between g - 1 and g, in both directions.
+        for (int g = from; g > target; g--) {
+            this.apply(grid, this.deltas[this.slot(g - this.oldestGeneration)]);
+        }
+        for (int g = from + 1; g <= target; g++) {
+            this.apply(grid, this.deltas[this.slot(g - this.oldestGeneration)]);
+        }
+        this.currentGeneration = target;
+        return target;
+    }
+
+    /**
+     * Forgets every recorded generation.
+     */
+    public void clear() {
+        Arrays.fill(this.deltas, null);
+        Arrays.fill(this.keyframes, null);
+        this.head = 0;
+        this.size = 0;
+        this.memoryUsage = 0L;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Gets the oldest generation that can be reached.
+     *
+     * @return the generation, or -1 if the history is empty.
+     */
+    public int getOldestGeneration() {
+        return this.size == 0 ? -1 : this.oldestGeneration;
+    }
+
+    /**
+     * Gets the newest recorded generation. After seeking backwards, the
+     * generations up to this one can still be reached until a new one is computed.
+     *
+     * @return the generation, or -1 if the history is empty.
+     */
+    public int getNewestGeneration() {
+        return this.size == 0 ? -1 : this.oldestGeneration + this.size - 1;
+    }
+
+    /**
+     * Gets the generation the grid was last recorded or moved to.
+     *
+     * @return the generation, or -1 if the history is empty.
+     */
+    public int getCurrentGeneration() {
+        return this.size == 0 ? -1 : this.currentGeneration;
+    }
+
+    /**
+     * Gets the reachable generations and the current one at once, as a value
+     * that stays valid while the history keeps changing.
+     *
+     * @return the range, or null if the history is empty.
+     */
+    public Range getRange() {
+        return this.size == 0 ? null
+                : new Range(this.oldestGeneration, this.getNewestGeneration(), this.currentGeneration);
+    }
+
+    /**
+     * Gets the approximate number of bytes taken by the recorded generations.
+     */
+    public long getMemoryUsage() {
+        return this.memoryUsage;
+    }
+
+    public long getMemoryLimit() {
+        return this.memoryLimit;
+    }
+
+    public int getKeyframeInterval() {
+        return this.keyframeInterval;
+    }
+
+    /**
+     * Collects the words which differ between two grids, in the tiles flagged as changed in {@code next}.
+     */
+    private Frame captureDelta(Grid previous, Grid next) {
+        int count = 0;
+        for (int ty = 0; ty < next.getTileRows(); ty++) {
+            int toY = Math.min(this.height, (ty + 1) * Grid.TILE_SIZE);
+            for (int tx = 0; tx < this.wordsPerRow; tx++) {
+                if (!next.isTileChanged(tx, ty)) {
+                    continue;
+                }
+                for (int y = ty * Grid.TILE_SIZE; y < toY; y++) {
+                    long flipped = next.loadWord(y, tx) ^ previous.loadWord(y, tx);
+                    if (flipped != 0L) {
+                        count = this.buffer(count, y * this.wordsPerRow + tx, flipped);
+                    }
+                }
+            }
+        }
+        return this.toFrame(count);
+    }
+
+    /**
+     * Collects the non-empty words of a grid.
+     */
+    private Frame captureKeyframe(Grid grid) {
+        int count = 0;
+        for (int y = 0; y < this.height; y++) {
+            for (int w = 0; w < this.wordsPerRow; w++) {
+                long word = grid.loadWord(y, w);
+                if (word != 0L) {
+                    count = this.buffer(count, y * this.wordsPerRow + w, word);
+                }
+            }
+        }
+        return this.toFrame(count);
+    }
+
+    private int buffer(int count, int position, long word) {
+        if (count == this.positionBuffer.length) {
+            this.positionBuffer = Arrays.copyOf(this.positionBuffer, count * 2);
+            this.wordBuffer = Arrays.copyOf(this.wordBuffer, count * 2);
+        }
+        this.positionBuffer[count] = position;
+        this.wordBuffer[count] = word;
+        return count + 1;
+    }
+
+    private Frame toFrame(int count) {
+        if (count == 0) {
+            return EMPTY;
+        }
+        return new Frame(Arrays.copyOf(this.positionBuffer, count), Arrays.copyOf(this.wordBuffer, count));
+    }
+
+    /**
+     * XORs the words of a frame into a grid. On a cleared grid, this restores a keyframe.
+     */
+    private void apply(Grid grid, Frame frame) {
+        int[] positions = frame.positions();
+        long[] words = frame.words();
+        for (int i = 0; i < positions.length; i++) {
+            int y = positions[i] / this.wordsPerRow;
+            int w = positions[i] - y * this.wordsPerRow;
+            grid.setWord(y, w, grid.getWord(y, w) ^ words[i]);
+        }
+    }
+
+    /**
+     * Finds the keyframe closest to a generation.
+     *
+     * @return its generation, or -1 if there is none.
+     */
+    private int findNearestKeyframe(int generation) {
+        int newest = this.getNewestGeneration();
+        for (int distance = 0; distance <= this.keyframeInterval; distance++) {
+            if (generation - distance >= this.oldestGeneration
+                    && this.keyframes[this.slot(generation - distance - this.oldestGeneration)] != null) {
+                return generation - distance;
+            }
+            if (generation + distance <= newest
+                    && this.keyframes[this.slot(generation + distance - this.oldestGeneration)] != null) {
+                return generation + distance;
+            }
+        }
+        return -1;
+    }
+
+    private void append(Frame delta, Frame keyframe) {
+        if (this.size == this.deltas.length) {
+            this.grow();
+        }
+        int slot = this.slot(this.size);
+        this.deltas[slot] = delta;
+        this.keyframes[slot] = keyframe;
+        this.size++;
+        this.memoryUsage += SLOT_BYTES + bytes(delta) + bytes(keyframe);
+    }
+
+    private void removeNewest() {
+        int slot = this.slot(this.size - 1);
+        this.memoryUsage -= SLOT_BYTES + bytes(this.deltas[slot]) + bytes(this.keyframes[slot]);
+        this.deltas[slot] = null;
+        this.keyframes[slot] = null;
+        this.size--;
+    }
+
+    /**
+     * Evicts the oldest generation. The delta leading to the new oldest one is no longer needed either.
+     */
+    private void removeOldest() {
+        this.memoryUsage -= SLOT_BYTES + bytes(this.deltas[this.head]) + bytes(this.keyframes[this.head]);
+        this.deltas[this.head] = null;
+        this.keyframes[this.head] = null;
+        this.head = (this.head + 1) % this.deltas.length;
+        this.size--;
+        this.oldestGeneration++;
+        this.memoryUsage -= bytes(this.deltas[this.head]);
+        this.deltas[this.head] = null;
+    }
+
+    private void grow() {
+        int capacity = this.deltas.length * 2;
+        Frame[] newDeltas = new Frame[capacity];
+        Frame[] newKeyframes = new Frame[capacity];
+        for (int i = 0; i < this.size; i++) {
+            newDeltas[i] = this.deltas[this.slot(i)];
+            newKeyframes[i] = this.keyframes[this.slot(i)];
+        }
+        this.deltas = newDeltas;
+        this.keyframes = newKeyframes;
+        this.head = 0;
+    }
+
+    private int slot(int index) {
+        return (this.head + index) % this.deltas.length;
+    }
+
+    private static long bytes(Frame frame) {
+        if (frame == null || frame == EMPTY) {
+            return 0L;
+        }
+        return FRAME_BYTES + (long) frame.positions().length * (Integer.BYTES + Long.BYTES);
+    }
+
+    /**
+     * Words of a grid, each with its position {@code y * wordsPerRow + wordIndex}.
+     */
+    private record Frame(int[] positions, long[] words) {
+    }
+
+    /**
+     * Generations of a history at some point in time.
+     *
+     * @param oldestGeneration  The oldest generation that can be reached.
+     * @param newestGeneration  The newest recorded generation.
+     * @param currentGeneration The generation the grid was last recorded or moved to.
+     */
+    public record Range(int oldestGeneration, int newestGeneration, int currentGeneration) {
+    }
+}
@@ -0,0 +1,482 @@
+package com.leomoille.gameoflife.model;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Computes one generation of a grid into another.
+ * <p>
+ * Only the tiles of the source grid that changed during the previous
+ * generation, or that border such a tile, are recomputed. The target grid
+ * is the one written two generations ago, so a tile which did not change
+ * already holds the right cells there and can be skipped entirely. The
+ * target's tile flags are then set to whether each recomputed tile differs
+ * from the source.
+ * <p>
+ * When enough tiles are active, they are split into horizontal bands of tile
+ * rows which are processed on a {@link ForkJoinPool}. Every band writes whole
+ * rows of the target grid, so the result is identical to the sequential path.
+ * Rules must therefore be stateless when parallelism is enabled.
+ * <p>
+ * The source grid's halo is refreshed once before stepping, so rules read
+ * the cells beyond the edges like any other cell.
+ * <p>
+ * Grids that are not stored in an array (off-heap or mapped to a file) are
+ * stepped by streaming, when the rule is a {@link LifeLikeRule}: each tile row
+ * with an active tile is walked top to bottom, keeping a window of three
+ * source rows on the heap, and each computed row is written back in one bulk
+ * copy. Memory is then read and written sequentially, one row at a time,
+ * which is what a memory-mapped file pages best.
+ * <p>
+ * With {@link #setHashing(boolean)} or {@link #setCounting(boolean)}, the
+ * pass which compares the recomputed tiles with the source also counts the
+ * births and deaths, and sums up how the {@link CycleDetector} hash of the
+ * grid changed, while the words are still in cache. Each tile row keeps its
+ * own sums, so bands need no synchronization.
+ */
+class GenerationStepper {
+    /**
+     * Generations with fewer active cells than this are always stepped sequentially.
+     */
+    static final int DEFAULT_SEQUENTIAL_CUTOFF = 256 * 256;
+
+    // Bands per worker thread, to balance uneven rows.
+    private static final int BANDS_PER_THREAD = 4;
+
+    private static final int TILE_CELLS = Grid.WORD_BITS * Grid.TILE_SIZE;
+
+    // Sums kept for each tile row: hash change, births and deaths.
+    private static final int STATS = 3;
+
+    private ForkJoinPool pool;
+    private boolean ownsPool;
+    private int sequentialCutoff;
+
+    // Reused between generations: which tiles of the current step must be recomputed.
+    private boolean[] activeTiles;
+    private int skippedTiles;
+    private int tileCount;
+
+    private boolean hashing;
+    private boolean counting;
+    // Sums of tile row ty during the current step, from index STATS * ty, when hashing or counting.
+    private long[] rowStats;
+    private long hashDelta;
+    private long births;
+    private long deaths;
+
+    GenerationStepper() {
+        this.pool = ForkJoinPool.commonPool();
+        this.ownsPool = false;
+        this.sequentialCutoff = DEFAULT_SEQUENTIAL_CUTOFF;
+        this.activeTiles = new boolean[0];
+        this.rowStats = new long[0];
+    }
+
+    /**
+     * Computes the next generation of {@code source} into {@code target}.
+     */
+    void step(Grid source, Grid target, RuleStrategy rule) {
+        source.refreshHalo();
+        target.invalidateHalo();
+        int activeCount = this.markActiveTiles(source, target);
+        this.hashDelta = 0L;
+        this.births = 0L;
+        this.deaths = 0L;
+        if (activeCount == 0) {
+            return;
+        }
+
+        int tileRows = source.getTileRows();
+        long[] stats = null;
+        if (this.hashing || this.counting) {
+            if (this.rowStats.length < STATS * tileRows) {
+                this.rowStats = new long[STATS * tileRows];
+            }
+            stats = this.rowStats;
+            Arrays.fill(stats, 0, STATS * tileRows, 0L);
+        }
+        BitSlicedKernel kernel = source.getBits() == null && rule instanceof LifeLikeRule lifeLikeRule
+                ? lifeLikeRule.getKernel() : null;
+        long activeCells = (long) activeCount * TILE_CELLS;
+        if (this.pool == null || this.pool.getParallelism() <= 1 || activeCells < this.sequentialCutoff) {
+            computeTileRows(source, target, rule, kernel, this.activeTiles, stats, this.hashing, 0, tileRows);
+        } else {
+            int bands = this.pool.getParallelism() * BANDS_PER_THREAD;
+            int minTileRows = Math.max(1, (tileRows + bands - 1) / bands);
+            this.pool.invoke(new BandTask(source, target, rule, kernel, this.activeTiles, stats, this.hashing, 0,
+                    tileRows, minTileRows));
+        }
+        if (stats != null) {
+            for (int ty = 0; ty < tileRows; ty++) {
+                this.hashDelta ^= stats[STATS * ty];
+                this.births += stats[STATS * ty + 1];
+                this.deaths += stats[STATS * ty + 2];
+            }
+        }
+    }
+
+    /**
+     * Enables or disables the computation of {@link #getHashDelta()}.
+     */
+    void setHashing(boolean hashing) {
+        this.hashing = hashing;
+    }
+
+    /**
+     * Enables or disables the counting of {@link #getBirths()} and {@link #getDeaths()}.
+     */
+    void setCounting(boolean counting) {
+        this.counting = counting;
+    }
+
+    /**
+     * Gets the number of cells born during the last generation.
+     *
+     * @return the births, 0 when neither counting nor hashing is enabled.
+     */
+    long getBirths() {
+        return this.births;
+    }
+
+    /**
+     * Gets the number of cells which died during the last generation.
+     *
+     * @return the deaths, 0 when neither counting nor hashing is enabled.
+     */
+    long getDeaths() {
+        return this.deaths;
+    }
+
+    /**
+     * Gets how the last generation changed the {@link CycleDetector} hash of the grid:
+     * the hash of the target is the hash of the source XOR this value.
+     *
+     * @return the change, 0 when hashing is disabled.
+     */
+    long getHashDelta() {
+        return this.hashDelta;
+    }
+
+    /**
+     * Flags the tiles to recompute: those changed in {@code source} and their eight neighbors.
+     * Skipped tiles are identical in both grids, so they are flagged unchanged in {@code target}.
+     *
+     * @return the number of active tiles.
+     */
+    private int markActiveTiles(Grid source, Grid target) {
+        int tileColumns = source.getTileColumns();
+        int tileRows = source.getTileRows();
+        boolean wraps = source.getBoundaryMode() == BoundaryMode.TORUS;
+        this.tileCount = tileColumns * tileRows;
+        if (this.activeTiles.length < this.tileCount) {
+            this.activeTiles = new boolean[this.tileCount];
+        }
+
+        int activeCount = 0;
+        for (int ty = 0; ty < tileRows; ty++) {
+            for (int tx = 0; tx < tileColumns; tx++) {
+                boolean active = isNeighborhoodChanged(source, tx, ty, tileColumns, tileRows, wraps);
+                this.activeTiles[ty * tileColumns + tx] = active;
+                if (active) {
+                    activeCount++;
+                } else {
+                    target.setTileChanged(tx, ty, false);
+                }
+            }
+        }
+        this.skippedTiles = this.tileCount - activeCount;
+        return activeCount;
+    }
+
+    /**
+     * Tells whether a tile or one of its eight neighbors changed. On a torus,
+     * tiles on opposite edges are neighbors.
+     */
+    private static boolean isNeighborhoodChanged(Grid grid, int tx, int ty, int tileColumns, int tileRows,
+                                                 boolean wraps) {
+        for (int dy = -1; dy <= 1; dy++) {
+            int y = ty + dy;
+            if (wraps) {
+                y = Math.floorMod(y, tileRows);
+            } else if (y < 0 || y >= tileRows) {
+                continue;
+            }
+            for (int dx = -1; dx <= 1; dx++) {
+                int x = tx + dx;
+                if (wraps) {
+                    x = Math.floorMod(x, tileColumns);
+                } else if (x < 0 || x >= tileColumns) {
+                    continue;
+                }
+                if (grid.isTileChanged(x, y)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the number of tiles skipped by the last generation.
+     */
+    int getSkippedTiles() {
+        return this.skippedTiles;
+    }
+
+    /**
+     * Gets the number of tiles considered by the last generation.
+     */
+    int getTileCount() {
+        return this.tileCount;
+    }
+
+    /**
+     * Sets the number of worker threads. A value of 1 or less disables
+     * parallel stepping. Replaces (and shuts down) any pool created earlier
+     * by this method; a shared pool set with {@link #setPool} is left running.
+     */
+    void setParallelism(int parallelism) {
+        ForkJoinPool newPool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+        this.replacePool(newPool, newPool != null);
+    }
+
+    int getParallelism() {
+        return this.pool == null ? 1 : this.pool.getParallelism();
+    }
+
+    /**
+     * Uses an externally managed pool. Passing null disables parallel stepping.
+     */
+    void setPool(ForkJoinPool pool) {
+        this.replacePool(pool, false);
+    }
+
+    void setSequentialCutoff(int cells) {
+        this.sequentialCutoff = cells;
+    }
+
+    int getSequentialCutoff() {
+        return this.sequentialCutoff;
+    }
+
+    /**
+     * Shuts down the pool if it was created by this stepper.
+     */
+    void close() {
+        this.replacePool(null, false);
+    }
+
+    private void replacePool(ForkJoinPool newPool, boolean owned) {
+        if (this.ownsPool && this.pool != null) {
+            this.pool.shutdown();
+        }
+        this.pool = newPool;
+        this.ownsPool = owned;
+    }
+
+    /**
+     * Recomputes the active tiles of tile rows [fromTileY, toTileY). Adjacent
+     * active tiles of a tile row are handed to the rule as a single region,
+     * unless a kernel is given to stream the rows with. If {@code stats} is
+     * not null, the births and deaths of each tile row, and its hash change
+     * if {@code hashing}, are added to it.
+     */
+    static void computeTileRows(Grid source, Grid target, RuleStrategy rule, BitSlicedKernel kernel,
+                                boolean[] activeTiles, long[] stats, boolean hashing, int fromTileY, int toTileY) {
+        if (kernel != null) {
+            streamTileRows(source, target, kernel, activeTiles, stats, hashing, fromTileY, toTileY);
+            return;
+        }
+        int tileColumns = source.getTileColumns();
+        for (int ty = fromTileY; ty < toTileY; ty++) {
+            int row = ty * tileColumns;
+            int tx = 0;
+            while (tx < tileColumns) {
+                if (!activeTiles[row + tx]) {
+                    tx++;
+                    continue;
+                }
+                int end = tx + 1;
+                while (end < tileColumns && activeTiles[row + end]) {
+                    end++;
+                }
+                computeTiles(source, target, rule, stats, hashing, tx, end, ty);
+                tx = end;
+            }
+        }
+    }
+
+    /**
+     * Computes tiles [fromTileX, toTileX) of a tile row through the rule's
+     * region method, then flags those that differ from the source.
+     */
+    private static void computeTiles(Grid source, Grid target, RuleStrategy rule, long[] stats, boolean hashing,
+                                     int fromTileX, int toTileX, int ty) {
+        int fromY = ty * Grid.TILE_SIZE;
+        int toY = Math.min(source.getHeight(), fromY + Grid.TILE_SIZE);
+
+        rule.step(source, target, fromY, toY, fromTileX, toTileX);
+
+        for (int tx = fromTileX; tx < toTileX; tx++) {
+            long changed = 0L;
+            if (stats == null) {
+                for (int y = fromY; y < toY; y++) {
+                    changed |= target.loadWord(y, tx) ^ source.loadWord(y, tx);
+                }
+            } else {
+                changed = compareTile(source, target, stats, hashing, tx, ty, fromY, toY);
+            }
+            target.setTileChanged(tx, ty, changed != 0L);
+        }
+    }
+
+    /**
+     * Compares a recomputed tile with the source, adding its births, deaths
+     * and hash change to the sums of its tile row.
+     *
+     * @return the OR of the differences of its words, 0 if the tile did not change.
+     */
+    private static long compareTile(Grid source, Grid target, long[] stats, boolean hashing, int tx, int ty,
+                                    int fromY, int toY) {
+        int wordsPerRow = source.getWordsPerRow();
+        long changed = 0L;
+        long hash = 0L;
+        long born = 0L;
+        long died = 0L;
+        for (int y = fromY; y < toY; y++) {
+            long before = source.loadWord(y, tx);
+            long after = target.loadWord(y, tx);
+            changed |= before ^ after;
+            // Counted without branching: about half the words of an active tile change.
+            born += Long.bitCount(after & ~before);
+            died += Long.bitCount(before & ~after);
+            if (hashing) {
+                hash ^= CycleDetector.keyChange(y * wordsPerRow + tx, before, after);
+            }
+        }
+        addStats(stats, ty, hash, born, died);
+        return changed;
+    }
+
+    /**
+     * Recomputes whole rows of the tile rows [fromTileY, toTileY) that have an
+     * active tile, through a window of three rows copied out of the source.
+     * Inactive tiles of those rows are recomputed too, which gives the cells
+     * they already hold.
+     */
+    private static void streamTileRows(Grid source, Grid target, BitSlicedKernel kernel, boolean[] activeTiles,
+                                       long[] stats, boolean hashing, int fromTileY, int toTileY) {
+        int tileColumns = source.getTileColumns();
+        int width = source.getWidth();
+        int windowWords = source.getWordsPerRow() + 2;
+        long[] above = new long[windowWords];
+        long[] current = new long[windowWords];
+        long[] below = new long[windowWords];
+        long[] next = new long[windowWords];
+        long[] changed = new long[tileColumns];
+
+        for (int ty = fromTileY; ty < toTileY; ty++) {
+            if (!hasActiveTile(activeTiles, ty * tileColumns, tileColumns)) {
+                continue;
+            }
+            int fromY = ty * Grid.TILE_SIZE;
+            int toY = Math.min(source.getHeight(), fromY + Grid.TILE_SIZE);
+            source.loadRow(fromY - 1, above);
+            source.loadRow(fromY, current);
+            Arrays.fill(changed, 0L);
+            for (int y = fromY; y < toY; y++) {
+                source.loadRow(y + 1, below);
+                kernel.stepWindow(above, current, below, next, width);
+                long hash = 0L;
+                long born = 0L;
+                long died = 0L;
+                for (int tx = 0; tx < tileColumns; tx++) {
+                    long before = current[tx + 1];
+                    long after = next[tx + 1];
+                    changed[tx] |= before ^ after;
+                    if (stats != null) {
+                        born += Long.bitCount(after & ~before);
+                        died += Long.bitCount(before & ~after);
+                        if (hashing) {
+                            hash ^= CycleDetector.keyChange(y * tileColumns + tx, before, after);
+                        }
+                    }
+                }
+                if (stats != null) {
+                    addStats(stats, ty, hash, born, died);
+                }
+                target.storeRow(y, next);
+
+                long[] free = above;
+                above = current;
+                current = below;
+                below = free;
+            }
+            for (int tx = 0; tx < tileColumns; tx++) {
+                target.setTileChanged(tx, ty, changed[tx] != 0L);
+            }
+        }
+    }
+
+    private static void addStats(long[] stats, int ty, long hash, long born, long died) {
+        stats[STATS * ty] ^= hash;
+        stats[STATS * ty + 1] += born;
+        stats[STATS * ty + 2] += died;
+    }
+
+    private static boolean hasActiveTile(boolean[] activeTiles, int from, int count) {
+        for (int i = from; i < from + count; i++) {
+            if (activeTiles[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Splits a band of tile rows in two until it is small enough to be computed directly.
+     */
+    private static final class BandTask extends RecursiveAction {
+        private final Grid source;
+        private final Grid target;
+        private final RuleStrategy rule;
+        private final BitSlicedKernel kernel;
+        private final boolean[] activeTiles;
+        private final long[] stats;
+        private final boolean hashing;
+        private final int fromTileY;
+        private final int toTileY;
+        private final int minTileRows;
+
+        BandTask(Grid source, Grid target, RuleStrategy rule, BitSlicedKernel kernel, boolean[] activeTiles,
+                 long[] stats, boolean hashing, int fromTileY, int toTileY, int minTileRows) {
+            this.source = source;
+            this.target = target;
+            this.rule = rule;
+            this.kernel = kernel;
+            this.activeTiles = activeTiles;
+            this.stats = stats;
+            this.hashing = hashing;
+            this.fromTileY = fromTileY;
+            this.toTileY = toTileY;
+            this.minTileRows = minTileRows;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.toTileY - this.fromTileY <= this.minTileRows) {
+                computeTileRows(this.source, this.target, this.rule, this.kernel, this.activeTiles, this.stats,
+                        this.hashing, this.fromTileY, this.toTileY);
+                return;
+            }
+            int middle = (this.fromTileY + this.toTileY) >>> 1;
+            invokeAll(
+                    new BandTask(this.source, this.target, this.rule, this.kernel, this.activeTiles, this.stats,
+                            this.hashing, this.fromTileY, middle, this.minTileRows),
+                    new BandTask(this.source, this.target, this.rule, this.kernel, this.activeTiles, this.stats,
+                            this.hashing, middle, this.toTileY, this.minTileRows));
+        }
+    }
+}
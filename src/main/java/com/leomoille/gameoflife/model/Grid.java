@@ -1,17 +1,61 @@
 package com.leomoille.gameoflife.model;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Random;
 
 /**
  * Represents the 2D grid of cells in the Game of Life.
  * <p>
- * The grid uses a "dead border" strategy: cells outside the bounds are
- * considered DEAD.
+ * What lies beyond the edges depends on the {@link BoundaryMode}: dead cells
+ * by default, or the opposite edge (torus), or the edge itself (mirror).
+ * <p>
+ * Cells are bit-packed: each row is stored as {@link #getWordsPerRow()}
+ * consecutive {@code long} words, bit {@code x & 63} of word {@code x >>> 6}
+ * holding the cell at column {@code x}. Bits past the last column are always
+ * kept at zero so that whole words can be counted and compared safely.
+ * <p>
+ * The storage is padded with a halo: a ghost row above and below the grid
+ * and a ghost word on each side of every row, holding the cells just outside
+ * the grid according to the boundary mode. Neighborhoods can then be read
+ * without any bounds check, even on the border. The halo is refreshed once
+ * per generation, and only when the grid was modified since.
+ * <p>
+ * The words live on the Java heap, or outside of it for grids created with
+ * {@link #offHeap(int, int)}, or in a file for grids created with
+ * {@link #mapped(Path, int, int)}. An off-heap grid holds native memory and a
+ * mapped grid its file until {@link #close()} is called; resizing an off-heap
+ * grid releases the previous memory. The release is immediate when the JVM
+ * runs with {@code --enable-preview}, which the foreign memory API needs on
+ * Java 21; otherwise it happens once the buffers are garbage-collected.
+ * <p>
+ * The grid is also divided into tiles of one word by {@link #TILE_SIZE} rows,
+ * each carrying a "changed" flag. Every edit flags the tiles it touches; the
+ * generation stepper overwrites the flags of the grids it writes so that
+ * unchanged areas can be skipped on the next generation.
  */
-public class Grid {
+public class Grid implements AutoCloseable {
+    /**
+     * Number of cells packed in one storage word.
+     */
+    public static final int WORD_BITS = Long.SIZE;
+
+    /**
+     * Number of rows of a tile. A tile is one storage word wide.
+     */
+    static final int TILE_SIZE = 64;
+
     private int width;
     private int height;
-    private Cell[][] cells;
+    private int wordsPerRow;
+    // Words per stored row: the row's words plus one ghost word on each side.
+    private int stride;
+    private WordStorage words;
+    private BoundaryMode boundaryMode;
+    private boolean haloStale;
+    private int tileRows;
+    private boolean[] changedTiles;
     private final Random random;
 
     /**
@@ -19,22 +63,126 @@ public class Grid {
      *
      * @param width  Width of the grid.
      * @param height Height of the grid.
+     * @throws IllegalArgumentException if the grid has more than {@link Integer#MAX_VALUE} words.
      */
     public Grid(int width, int height) {
+        this(width, height, new HeapWordStorage(storageSize(width, height)));
+    }
+
+    /**
+     * Creates a grid on {@code words}, which must hold {@link #storageSize} words.
+     */
+    private Grid(int width, int height, WordStorage words) {
         this.width = width;
         this.height = height;
         this.random = new Random();
-        this.cells = new Cell[height][width];
-        this.initializeCells();
+        this.wordsPerRow = wordsFor(width);
+        this.stride = this.wordsPerRow + 2;
+        this.words = words;
+        this.boundaryMode = BoundaryMode.DEAD;
+        this.allocateTiles();
     }
 
-    private void initializeCells() {
-        for (int y = 0; y < this.height; y++) {
-            for (int x = 0; x < this.width; x++) {
-                // Cell are DEAD by default
-                this.cells[y][x] = new Cell();
-            }
+    /**
+     * Creates a grid whose cells are stored outside of the Java heap, so that
+     * its size neither counts against {@code -Xmx} nor slows down garbage
+     * collections. It must be {@link #close() closed} to release the memory,
+     * at once with {@code --enable-preview} and at the next collection otherwise.
+     *
+     * @param width  Width of the grid.
+     * @param height Height of the grid.
+     * @return an empty off-heap grid.
+     * @throws IllegalArgumentException if the grid has more than {@link Integer#MAX_VALUE} words.
+     */
+    public static Grid offHeap(int width, int height) {
+        return new Grid(width, height, new DirectWordStorage(storageSize(width, height)));
+    }
+
+    /**
+     * Creates a grid stored in a memory-mapped file, replacing any previous
+     * file. Only the disk limits its size; the operating system keeps in
+     * memory the parts being used. The cells stay in the file after
+     * {@link #close()}, and {@link #openMapped(Path)} reads them back.
+     * <p>
+     * A mapped grid cannot be resized.
+     *
+     * @param file   File to create.
+     * @param width  Width of the grid.
+     * @param height Height of the grid.
+     * @return an empty mapped grid.
+     * @throws IOException if the file cannot be created.
+     * @throws IllegalArgumentException if the grid has more than {@link Integer#MAX_VALUE} words.
+     */
+    public static Grid mapped(Path file, int width, int height) throws IOException {
+        return new Grid(width, height, MappedWordStorage.create(file, width, height, storageSize(width, height)));
+    }
+
+    /**
+     * Reopens a grid created by {@link #mapped(Path, int, int)}, with its
+     * cells and boundary mode.
+     *
+     * @param file File of the grid.
+     * @return the mapped grid.
+     * @throws IOException if the file cannot be read or does not hold a grid.
+     */
+    public static Grid openMapped(Path file) throws IOException {
+        MappedWordStorage storage = MappedWordStorage.open(file);
+        int width = storage.getWidth();
+        int height = storage.getHeight();
+        if (width < 0 || height < 0 || storage.size() != storageWords(width, height)) {
+            storage.close();
+            throw new IOException(file + " does not match a " + width + "x" + height + " grid");
         }
+        Grid grid = new Grid(width, height, storage);
+        grid.setBoundaryMode(storage.getBoundaryMode());
+        return grid;
+    }
+
+    public boolean isOffHeap() {
+        return this.words.array() == null;
+    }
+
+    public boolean isMapped() {
+        return this.words instanceof MappedWordStorage;
+    }
+
+    /**
+     * Releases the memory of an off-heap grid, or writes a mapped grid to its
+     * file and unmaps it; without {@code --enable-preview}, the memory and the
+     * mapping only go away once the buffers are garbage-collected. The grid
+     * must not be used afterwards. Does nothing for a heap grid.
+     */
+    @Override
+    public void close() {
+        this.words.close();
+    }
+
+    private static int wordsFor(int width) {
+        return (width + WORD_BITS - 1) >>> 6;
+    }
+
+    /**
+     * Counts the words of a grid, halo included.
+     *
+     * @throws IllegalArgumentException if there are more than the int-indexed storage can address.
+     */
+    private static int storageSize(int width, int height) {
+        long size = storageWords(width, height);
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("A " + width + "x" + height + " grid needs " + size
+                    + " words, more than the " + Integer.MAX_VALUE + " a grid can hold");
+        }
+        return (int) size;
+    }
+
+    private static long storageWords(int width, int height) {
+        return (wordsFor(width) + 2L) * (height + 2L);
+    }
+
+    private void allocateTiles() {
+        this.tileRows = (this.height + TILE_SIZE - 1) / TILE_SIZE;
+        this.changedTiles = new boolean[this.wordsPerRow * this.tileRows];
+        this.markAllTilesChanged();
     }
 
     public int getWidth() {
@@ -45,17 +193,29 @@ public class Grid {
         return this.height;
     }
 
+    /**
+     * Gets the number of storage words used by each row.
+     *
+     * @return words per row.
+     */
+    public int getWordsPerRow() {
+        return this.wordsPerRow;
+    }
+
     /**
      * Gets the cell at the specified coordinates.
+     * <p>
+     * Cells are no longer stored as objects: the returned Cell is a live view
+     * on the packed storage, so {@link Cell#setState(CellState)} still writes
+     * through to the grid. Prefer {@link #isAlive(int, int)} in loops.
      *
      * @param x X coordinate of the Cell.
      * @param y Y coordinate of the Cell.
-     * @return the actual Cell object (not a copy).
+     * @return a view of the cell, or null if out of bounds.
      */
     public Cell getCell(int x, int y) {
         if (this.isValidCoordinate(x, y)) {
-            // No copy to keep it simple.
-            return this.cells[y][x];
+            return new CellView(x, y);
         }
         return null;
     }
@@ -64,82 +224,411 @@ public class Grid {
      * Sets the state of a cell at (x, y).
      */
     public void setCell(int x, int y, CellState state) {
-        if (this.isValidCoordinate(x, y)) {
-            this.cells[y][x].setState(state);
+        this.setAlive(x, y, state.isAlive());
+    }
+
+    /**
+     * Checks whether the cell at (x, y) is alive.
+     *
+     * @return true if alive, false if dead or out of bounds.
+     */
+    public boolean isAlive(int x, int y) {
+        if (!this.isValidCoordinate(x, y)) {
+            return false;
         }
+        return (this.words.get(this.offset(y) + (x >>> 6)) & (1L << x)) != 0;
+    }
+
+    /**
+     * Sets the cell at (x, y) alive or dead. Out-of-bounds writes are ignored.
+     */
+    public void setAlive(int x, int y, boolean alive) {
+        if (!this.isValidCoordinate(x, y)) {
+            return;
+        }
+        int index = this.offset(y) + (x >>> 6);
+        this.changedTiles[(y / TILE_SIZE) * this.wordsPerRow + (x >>> 6)] = true;
+        this.haloStale = true;
+        long word = this.words.get(index);
+        this.words.set(index, alive ? word | (1L << x) : word & ~(1L << x));
+    }
+
+    /**
+     * Reads one storage word of a row.
+     *
+     * @param y         Row index.
+     * @param wordIndex Word index within the row, from 0 to {@link #getWordsPerRow()} - 1.
+     * @return the 64 packed cells, 0 if out of bounds.
+     */
+    public long getWord(int y, int wordIndex) {
+        if (y < 0 || y >= this.height || wordIndex < 0 || wordIndex >= this.wordsPerRow) {
+            return 0L;
+        }
+        return this.words.get(this.offset(y) + wordIndex);
+    }
+
+    /**
+     * Writes one storage word of a row. Bits past the last column are discarded.
+     */
+    public void setWord(int y, int wordIndex, long word) {
+        if (y < 0 || y >= this.height || wordIndex < 0 || wordIndex >= this.wordsPerRow) {
+            return;
+        }
+        if (wordIndex == this.wordsPerRow - 1) {
+            word &= this.lastWordMask();
+        }
+        this.words.set(this.offset(y) + wordIndex, word);
+        this.changedTiles[(y / TILE_SIZE) * this.wordsPerRow + wordIndex] = true;
+        this.haloStale = true;
+    }
+
+    /**
+     * Copies a whole packed row into {@code dest}, which must hold at least
+     * {@link #getWordsPerRow()} words.
+     */
+    public void getRow(int y, long[] dest) {
+        this.words.get(this.offset(y), dest, 0, this.wordsPerRow);
+    }
+
+    /**
+     * Replaces a whole packed row with the first {@link #getWordsPerRow()} words of {@code src}.
+     */
+    public void setRow(int y, long[] src) {
+        int offset = this.offset(y);
+        this.words.set(offset, src, 0, this.wordsPerRow);
+        int last = offset + this.wordsPerRow - 1;
+        this.words.set(last, this.words.get(last) & this.lastWordMask());
+        Arrays.fill(this.changedTiles, (y / TILE_SIZE) * this.wordsPerRow, (y / TILE_SIZE + 1) * this.wordsPerRow,
+                true);
+        this.haloStale = true;
+    }
+
+    /**
+     * Counts the alive cells of the whole grid.
+     *
+     * @return the population.
+     */
+    public long getPopulation() {
+        long count = 0;
+        for (int y = 0; y < this.height; y++) {
+            int offset = this.offset(y);
+            for (int w = 0; w < this.wordsPerRow; w++) {
+                count += Long.bitCount(this.words.get(offset + w));
+            }
+        }
+        return count;
     }
 
     /**
      * Counts the number of alive neighbors around a specific cell.
      * <p>
-     * Uses Moore neighborhood (8 surrounding cells).
-     * Out-of-bounds neighbors are treated as DEAD.
+     * Uses Moore neighborhood (8 surrounding cells). Neighbors outside the
+     * grid follow the boundary mode; around positions outside the grid, they
+     * are treated as DEAD.
      */
     public int getAliveNeighbors(int x, int y) {
-        int count = 0;
-        int[] dx = {-1, 0, 1};
-        int[] dy = {-1, 0, 1};
-
-        for (int i : dx) {
-            for (int j : dy) {
-                if (i == 0 && j == 0) {
-                    continue;
-                }
-
-                int nx = x + i;
-                int ny = y + j;
-
-                if (this.isValidCoordinate(nx, ny)) {
-                    if (this.cells[ny][nx].isAlive()) {
+        if (!this.isValidCoordinate(x, y)) {
+            int count = 0;
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    if ((dx != 0 || dy != 0) && this.isAlive(x + dx, y + dy)) {
                         count++;
                     }
                 }
             }
+            return count;
+        }
+        this.refreshHalo();
+        int count = this.countTriple(x, y - 1) + this.countTriple(x, y + 1) + this.countTriple(x, y);
+        if (this.isAlive(x, y)) {
+            count--;
         }
-
         return count;
     }
 
-    public void clear() {
-        for (int y = 0; y < this.height; y++) {
-            for (int x = 0; x < this.width; x++) {
-                this.cells[y][x].setState(CellState.DEAD);
-            }
+    /**
+     * Counts the alive cells among (x - 1, y), (x, y) and (x + 1, y). Row y may
+     * be a ghost row, and x - 1 or x + 1 a ghost column.
+     */
+    private int countTriple(int x, int y) {
+        int left = x - 1;
+        int shift = left & 63;
+        // left >> 6 is -1 for the ghost column, which is the ghost word.
+        int index = this.offset(y) + (left >> 6);
+        long window = (this.words.get(index) >>> shift)
+                | ((this.words.get(index + 1) << 1) << (WORD_BITS - 1 - shift));
+        if (x == this.width - 1 && (this.width & 63) != 0) {
+            // The east ghost column is in the ghost word, not in the unused bits of the last word.
+            window |= (this.words.get(this.offset(y) + this.wordsPerRow) & 1L) << 2;
         }
+        return Long.bitCount(window & 0b111L);
+    }
+
+    public void clear() {
+        this.words.fill(0, this.words.size(), 0L);
+        this.markAllTilesChanged();
+        this.haloStale = true;
     }
 
     public void randomize(double probability) {
+        this.randomize(probability, this.random);
+    }
+
+    /**
+     * Fills the grid with random cells drawn from the given generator, so that
+     * a seeded generator always produces the same grid.
+     *
+     * @param probability Probability of each cell being alive.
+     * @param random      Source of randomness.
+     */
+    public void randomize(double probability, Random random) {
         for (int y = 0; y < this.height; y++) {
-            for (int x = 0; x < this.width; x++) {
-                if (this.random.nextDouble() < probability) {
-                    this.cells[y][x].setState(CellState.ALIVE);
-                } else {
-                    this.cells[y][x].setState(CellState.DEAD);
+            int offset = this.offset(y);
+            for (int w = 0; w < this.wordsPerRow; w++) {
+                int cells = Math.min(WORD_BITS, this.width - w * WORD_BITS);
+                long word = 0L;
+                for (int b = 0; b < cells; b++) {
+                    if (random.nextDouble() < probability) {
+                        word |= 1L << b;
+                    }
                 }
+                this.words.set(offset + w, word);
             }
         }
+        this.markAllTilesChanged();
+        this.haloStale = true;
     }
 
     public void resize(int newWidth, int newHeight) {
-        Cell[][] newCells = new Cell[newHeight][newWidth];
-
-        for (int y = 0; y < newHeight; y++) {
-            for (int x = 0; x < newWidth; x++) {
-                // Copy existing if possible
-                if (y < this.height && x < this.width) {
-                    newCells[y][x] = this.cells[y][x];
-                } else {
-                    newCells[y][x] = new Cell(CellState.DEAD);
-                }
-            }
+        int newWordsPerRow = wordsFor(newWidth);
+        int newStride = newWordsPerRow + 2;
+        WordStorage newWords = this.words.allocate(storageSize(newWidth, newHeight));
+
+        // Copy existing rows, then trim columns that fell outside.
+        int copyRows = Math.min(this.height, newHeight);
+        int copyWords = Math.min(this.wordsPerRow, newWordsPerRow);
+        long[] row = new long[copyWords];
+        for (int y = 0; y < copyRows; y++) {
+            this.words.get(this.offset(y), row, 0, copyWords);
+            newWords.set((y + 1) * newStride + 1, row, 0, copyWords);
         }
+        this.words.close();
 
         this.width = newWidth;
         this.height = newHeight;
-        this.cells = newCells;
+        this.wordsPerRow = newWordsPerRow;
+        this.stride = newStride;
+        this.words = newWords;
+
+        if (newWordsPerRow > 0) {
+            long mask = this.lastWordMask();
+            for (int y = 0; y < newHeight; y++) {
+                int last = this.offset(y) + newWordsPerRow - 1;
+                this.words.set(last, this.words.get(last) & mask);
+            }
+        }
+        this.allocateTiles();
+        this.haloStale = true;
+    }
+
+    public BoundaryMode getBoundaryMode() {
+        return this.boundaryMode;
+    }
+
+    /**
+     * Changes what lies beyond the edges of the grid. The cells are kept.
+     */
+    public void setBoundaryMode(BoundaryMode boundaryMode) {
+        this.boundaryMode = boundaryMode;
+        if (this.words instanceof MappedWordStorage mapped) {
+            mapped.setBoundaryMode(boundaryMode);
+        }
+        this.clearHalo();
+        this.haloStale = true;
+        this.markAllTilesChanged();
+    }
+
+    /**
+     * Copies the border cells into the halo according to the boundary mode,
+     * if the grid was modified since the last refresh.
+     */
+    void refreshHalo() {
+        if (!this.haloStale) {
+            return;
+        }
+        this.haloStale = false;
+        if (this.boundaryMode == BoundaryMode.DEAD || this.height == 0 || this.wordsPerRow == 0) {
+            // The halo is never written in this mode, so it is still all dead.
+            return;
+        }
+
+        boolean torus = this.boundaryMode == BoundaryMode.TORUS;
+        int lastBit = (this.width - 1) & 63;
+        for (int y = 0; y < this.height; y++) {
+            int offset = this.offset(y);
+            long first = this.words.get(offset) & 1L;
+            long last = (this.words.get(offset + this.wordsPerRow - 1) >>> lastBit) & 1L;
+            // The west ghost cell is the last bit of the word before the row, the east one the first bit after it.
+            this.words.set(offset - 1, (torus ? last : first) << 63);
+            this.words.set(offset + this.wordsPerRow, torus ? first : last);
+        }
+        // Ghost rows, corners included.
+        int lastRow = this.height - 1;
+        this.words.copy(this.offset(torus ? lastRow : 0) - 1, this.offset(-1) - 1, this.stride);
+        this.words.copy(this.offset(torus ? 0 : lastRow) - 1, this.offset(this.height) - 1, this.stride);
+    }
+
+    /**
+     * Tells the grid that its cells were written directly (see {@link #storeWord}),
+     * so the halo must be refreshed before it is read.
+     */
+    void invalidateHalo() {
+        this.haloStale = true;
+    }
+
+    private void clearHalo() {
+        this.words.fill(0, this.stride, 0L);
+        this.words.fill(this.words.size() - this.stride, this.words.size(), 0L);
+        for (int y = 0; y < this.height; y++) {
+            this.words.set(this.offset(y) - 1, 0L);
+            this.words.set(this.offset(y) + this.wordsPerRow, 0L);
+        }
+    }
+
+    /**
+     * Records in the file of a mapped grid the generation it holds, so that a
+     * later run knows where to resume. Does nothing for other grids.
+     */
+    void recordGeneration(long generation) {
+        if (this.words instanceof MappedWordStorage mapped) {
+            mapped.setGeneration(generation);
+        }
+    }
+
+    /**
+     * Gets the generation recorded by {@link #recordGeneration(long)}, 0 for an unmapped grid.
+     */
+    long getRecordedGeneration() {
+        return this.words instanceof MappedWordStorage mapped ? mapped.getGeneration() : 0L;
+    }
+
+    int getTileColumns() {
+        return this.wordsPerRow;
+    }
+
+    int getTileRows() {
+        return this.tileRows;
+    }
+
+    boolean isTileChanged(int tileX, int tileY) {
+        return this.changedTiles[tileY * this.wordsPerRow + tileX];
+    }
+
+    void setTileChanged(int tileX, int tileY, boolean changed) {
+        this.changedTiles[tileY * this.wordsPerRow + tileX] = changed;
+    }
+
+    /**
+     * Flags every tile as changed, forcing a full recomputation on the next generation.
+     */
+    void markAllTilesChanged() {
+        Arrays.fill(this.changedTiles, true);
+    }
+
+    /**
+     * Reads a word without bounds checks. Row -1 and row {@code height} are the
+     * ghost rows, word -1 and word {@link #getWordsPerRow()} the ghost words.
+     */
+    long loadWord(int y, int wordIndex) {
+        return this.words.get(this.offset(y) + wordIndex);
+    }
+
+    /**
+     * Writes a word without bounds checks nor tile tracking. Used by the stepper,
+     * which maintains the tile flags of the grids it writes itself.
+     */
+    void storeWord(int y, int wordIndex, long word) {
+        this.words.set(this.offset(y) + wordIndex, word);
+    }
+
+    /**
+     * Copies row {@code y}, ghost words included, into the first
+     * {@link #getWordsPerRow()} + 2 words of {@code dest}: the west ghost word
+     * goes to index 0 and the row's words start at index 1. Row -1 and row
+     * {@code height} are the ghost rows.
+     */
+    void loadRow(int y, long[] dest) {
+        this.words.get(this.offset(y) - 1, dest, 0, this.stride);
+    }
+
+    /**
+     * Writes the words of row {@code y} from {@code src}, laid out as by
+     * {@link #loadRow}, without tile tracking. The ghost words are not written.
+     */
+    void storeRow(int y, long[] src) {
+        this.words.set(this.offset(y), src, 1, this.wordsPerRow);
+    }
+
+    /**
+     * Gets the backing array, halo included (see {@link #offset(int)}).
+     * Writes through it bypass tile tracking.
+     *
+     * @return the array, or null for an off-heap grid.
+     */
+    long[] getBits() {
+        return this.words.array();
+    }
+
+    /**
+     * Gets the index in {@link #getBits()} of the first word of row {@code y},
+     * from -1 (the ghost row above) to {@code height} (the ghost row below).
+     */
+    int offset(int y) {
+        return (y + 1) * this.stride + 1;
+    }
+
+    /**
+     * Mask of the valid bits of the last word of each row.
+     */
+    long lastWordMask() {
+        int tail = this.width & 63;
+        return tail == 0 ? -1L : (1L << tail) - 1;
     }
 
     private boolean isValidCoordinate(int x, int y) {
         return x >= 0 && x < this.width && y >= 0 && y < this.height;
     }
+
+    /**
+     * Cell backed by a position of this grid rather than by its own state.
+     */
+    private final class CellView extends Cell {
+        private final int x;
+        private final int y;
+
+        CellView(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public CellState getState() {
+            return Grid.this.isAlive(this.x, this.y) ? CellState.ALIVE : CellState.DEAD;
+        }
+
+        @Override
+        public void setState(CellState state) {
+            Grid.this.setCell(this.x, this.y, state);
+        }
+
+        @Override
+        public boolean isAlive() {
+            return Grid.this.isAlive(this.x, this.y);
+        }
+
+        @Override
+        public String toString() {
+            return "Cell{" + "state=" + this.getState() + '}';
+        }
+    }
 }
@@ -0,0 +1,103 @@
+package com.leomoille.gameoflife.model;
+
+/**
+ * Copy of the cells of a bounded grid at a given generation, for observers
+ * on other threads, such as views painting on the Event Dispatch Thread
+ * while the next generations are computed.
+ * <p>
+ * Cells are packed like in the {@link Grid}, 64 per word, without the halo.
+ * The snapshot also tells which cells changed since the previous snapshot
+ * its observer took.
+ * <p>
+ * Snapshots are recycled by a {@link GridSnapshotPool}: one does not change
+ * while its observer holds it, that is until the observer takes the next one.
+ */
+public final class GridSnapshot {
+    private int width;
+    private int height;
+    private int wordsPerRow;
+    private int generation;
+    private long[] words = new long[0];
+    private CellBounds changedBounds;
+
+    GridSnapshot() {
+    }
+
+    /**
+     * Brings the snapshot up to date with a grid.
+     *
+     * @param grid       The grid, which must not change meanwhile.
+     * @param generation The generation of the grid.
+     * @param stale      The cells which may differ from the grid, or null for all of them.
+     * @param row        Scratch space for a row of the grid.
+     */
+    void update(Grid grid, int generation, CellBounds stale, long[] row) {
+        if (grid.getWidth() != this.width || grid.getHeight() != this.height) {
+            this.width = grid.getWidth();
+            this.height = grid.getHeight();
+            this.wordsPerRow = grid.getWordsPerRow();
+            this.words = new long[this.wordsPerRow * this.height];
+            stale = null;
+        }
+        int fromY = stale == null ? 0 : stale.y();
+        int toY = stale == null ? this.height : Math.min(this.height, stale.y() + stale.height());
+        int fromWord = stale == null ? 0 : stale.x() >>> 6;
+        int toWord = stale == null ? this.wordsPerRow
+                : Math.min(this.wordsPerRow, (stale.x() + stale.width() + Grid.WORD_BITS - 1) >>> 6);
+        for (int y = fromY; y < toY; y++) {
+            grid.getRow(y, row);
+            System.arraycopy(row, fromWord, this.words, y * this.wordsPerRow + fromWord, toWord - fromWord);
+        }
+        this.generation = generation;
+    }
+
+    void setChangedBounds(CellBounds changedBounds) {
+        this.changedBounds = changedBounds;
+    }
+
+    public int getWidth() {
+        return this.width;
+    }
+
+    public int getHeight() {
+        return this.height;
+    }
+
+    public int getWordsPerRow() {
+        return this.wordsPerRow;
+    }
+
+    public int getGeneration() {
+        return this.generation;
+    }
+
+    /**
+     * Gets the cells which changed since the previous snapshot.
+     *
+     * @return the bounds, possibly empty, or null if any cell may have changed.
+     */
+    public CellBounds getChangedBounds() {
+        return this.changedBounds;
+    }
+
+    /**
+     * Reads one word of a row.
+     *
+     * @param y         Row index.
+     * @param wordIndex Word index within the row.
+     * @return the 64 packed cells, 0 if out of bounds.
+     */
+    public long getWord(int y, int wordIndex) {
+        if (y < 0 || y >= this.height || wordIndex < 0 || wordIndex >= this.wordsPerRow) {
+            return 0L;
+        }
+        return this.words[y * this.wordsPerRow + wordIndex];
+    }
+
+    public boolean isAlive(int x, int y) {
+        if (x < 0 || x >= this.width) {
+            return false;
+        }
+        return (this.getWord(y, x >>> 6) & (1L << x)) != 0;
+    }
+}
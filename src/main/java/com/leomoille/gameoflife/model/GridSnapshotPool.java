@@ -0,0 +1,72 @@
+package com.leomoille.gameoflife.model;
+
+/**
+ * Hands snapshots of a bounded grid from the thread computing generations
+ * to the thread rendering them, through three recycled buffers.
+ * <p>
+ * The producer copies the grid into its back buffer and publishes it; the
+ * consumer takes the latest one in exchange for the one it holds (see
+ * {@link TripleBuffer}). Neither side ever waits for the other, and once the
+ * buffers have the size of the grid nothing is allocated. A snapshot
+ * published while the previous one was still waiting replaces it; the
+ * consumer always takes the latest, whose changed bounds cover every change
+ * since the one it held.
+ * <p>
+ * A buffer is only brought up to date where the grid changed since it was
+ * last written, so the copy of a grid where little moves is cheap however
+ * large the grid is.
+ * <p>
+ * {@link #publish} must be called by one thread at a time, and
+ * {@link #take()} by one thread at a time, possibly another.
+ */
+public final class GridSnapshotPool {
+    private final TripleBuffer<GridSnapshot> buffers = new TripleBuffer<>(GridSnapshot::new);
+    // Producer only: the cells each buffer missed since it was written, and the last bounds reported.
+    private final CellBounds[] stale = {null, null, null};
+    private CellBounds lastReported;
+    private long[] row = new long[0];
+
+    /**
+     * Publishes a copy of a grid, which must not change meanwhile.
+     *
+     * @param grid       The grid.
+     * @param generation Its generation.
+     * @param changed    The cells which changed since the previous call, or null if any may have.
+     */
+    public void publish(Grid grid, int generation, CellBounds changed) {
+        for (int i = 0; i < this.stale.length; i++) {
+            this.stale[i] = CellBounds.union(this.stale[i], changed);
+        }
+        if (this.row.length < grid.getWordsPerRow()) {
+            this.row = new long[grid.getWordsPerRow()];
+        }
+        int back = this.buffers.backIndex();
+        GridSnapshot snapshot = this.buffers.back();
+        snapshot.update(grid, generation, this.stale[back], this.row);
+        this.stale[back] = CellBounds.EMPTY;
+
+        while (true) {
+            int state = this.buffers.state();
+            // The consumer never saw a snapshot still waiting: this one reports its changes too.
+            CellBounds reported = TripleBuffer.isWaiting(state)
+                    ? CellBounds.union(this.lastReported, changed) : changed;
+            snapshot.setChangedBounds(reported);
+            // Only fails if the consumer took the waiting snapshot meanwhile.
+            if (this.buffers.publish(state)) {
+                this.lastReported = reported;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Takes the latest snapshot published. The previous one returns to the
+     * pool, so it must no longer be read.
+     *
+     * @return the latest snapshot, the same as before if none was published since,
+     * or an empty one if none ever was.
+     */
+    public GridSnapshot take() {
+        return this.buffers.take();
+    }
+}
@@ -0,0 +1,64 @@
+package com.leomoille.gameoflife.model;
+
+import java.util.Arrays;
+
+/**
+ * Words stored in a {@code long[]} on the Java heap.
+ */
+final class HeapWordStorage implements WordStorage {
+    private final long[] words;
+
+    HeapWordStorage(int size) {
+        this.words = new long[size];
+    }
+
+    @Override
+    public int size() {
+        return this.words.length;
+    }
+
+    @Override
+    public long get(int index) {
+        return this.words[index];
+    }
+
+    @Override
+    public void set(int index, long word) {
+        this.words[index] = word;
+    }
+
+    @Override
+    public void get(int index, long[] dest, int offset, int length) {
+        System.arraycopy(this.words, index, dest, offset, length);
+    }
+
+    @Override
+    public void set(int index, long[] src, int offset, int length) {
+        System.arraycopy(src, offset, this.words, index, length);
+    }
+
+    @Override
+    public void fill(int from, int to, long word) {
+        Arrays.fill(this.words, from, to, word);
+    }
+
+    @Override
+    public void copy(int from, int to, int length) {
+        System.arraycopy(this.words, from, this.words, to, length);
+    }
+
+    @Override
+    public WordStorage allocate(int size) {
+        return new HeapWordStorage(size);
+    }
+
+    @Override
+    public long[] array() {
+        return this.words;
+    }
+
+    @Override
+    public void close() {
+        // Left to the garbage collector.
+    }
+}
@@ -0,0 +1,143 @@
+package com.leomoille.gameoflife.model;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of durations in nanoseconds, with a bounded relative error, in
+ * the manner of HdrHistogram.
+ * <p>
+ * Values below 128 nanoseconds have a bucket each. Above, every power of two
+ * is split into 64 buckets of equal width, so a value is known within 1/64th
+ * of itself (about 1.6%) whatever its magnitude, with a few thousand counters
+ * covering up to {@link #MAX_VALUE}. The bucket of a value is found with a
+ * couple of shifts.
+ * <p>
+ * Recording allocates nothing. It must be done by a single thread, while
+ * any thread may read: readers see each counter atomically, though not
+ * necessarily all of them at the same instant.
+ */
+public final class LatencyHistogram {
+    /**
+     * Largest value recorded exactly; larger ones are counted as this value. About 18 minutes.
+     */
+    public static final long MAX_VALUE = (1L << 40) - 1;
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF = SUB_BUCKETS / 2;
+
+    private final AtomicLongArray counts = new AtomicLongArray(bucketOf(MAX_VALUE) + 1);
+    private volatile long count;
+    private volatile long total;
+    private volatile long min = Long.MAX_VALUE;
+    private volatile long max;
+
+    /**
+     * Records a value. Only one thread may record at a time.
+     *
+     * @param nanos The duration, clamped to [0, {@link #MAX_VALUE}].
+     */
+    public void record(long nanos) {
+        long value = Math.max(0L, Math.min(MAX_VALUE, nanos));
+        int bucket = bucketOf(value);
+        // Single writer: no compare-and-set needed, only a publishing store.
+        this.counts.lazySet(bucket, this.counts.get(bucket) + 1);
+        this.total += value;
+        if (value < this.min) {
+            this.min = value;
+        }
+        if (value > this.max) {
+            this.max = value;
+        }
+        this.count++;
+    }
+
+    /**
+     * Forgets every recorded value. Must be called by the recording thread.
+     */
+    public void reset() {
+        for (int i = 0; i < this.counts.length(); i++) {
+            this.counts.lazySet(i, 0L);
+        }
+        this.count = 0L;
+        this.total = 0L;
+        this.min = Long.MAX_VALUE;
+        this.max = 0L;
+    }
+
+    public long getCount() {
+        return this.count;
+    }
+
+    /**
+     * @return the smallest recorded value, 0 if none.
+     */
+    public long getMin() {
+        return this.count == 0 ? 0L : this.min;
+    }
+
+    /**
+     * @return the largest recorded value, exact, 0 if none.
+     */
+    public long getMax() {
+        return this.max;
+    }
+
+    /**
+     * @return the mean of the recorded values, 0 if none.
+     */
+    public double getMean() {
+        long n = this.count;
+        return n == 0 ? 0.0 : (double) this.total / n;
+    }
+
+    /**
+     * Gets the value below which a given share of the recorded values fall.
+     *
+     * @param percentile The share, from 0 to 100.
+     * @return the highest value of the bucket holding that rank, at most
+     * {@link #getMax()}; 0 if nothing was recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        long n = 0L;
+        long[] snapshot = new long[this.counts.length()];
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = this.counts.get(i);
+            n += snapshot[i];
+        }
+        if (n == 0) {
+            return 0L;
+        }
+        long rank = Math.max(1L, (long) Math.ceil(Math.min(100.0, Math.max(0.0, percentile)) / 100.0 * n));
+        long seen = 0L;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(highestValueOf(i), this.max);
+            }
+        }
+        return this.max;
+    }
+
+    /**
+     * Finds the bucket of a value: values below {@link #SUB_BUCKETS} map to
+     * themselves, larger ones to {@code HALF * shift + (value >>> shift)},
+     * where the shift brings the value into [HALF, SUB_BUCKETS).
+     */
+    static int bucketOf(long value) {
+        int shift = Math.max(0, Long.SIZE - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+        return HALF * shift + (int) (value >>> shift);
+    }
+
+    /**
+     * Gets the highest value which falls in a bucket.
+     */
+    static long highestValueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / HALF - 1;
+        long subBucket = bucket - (long) HALF * shift;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
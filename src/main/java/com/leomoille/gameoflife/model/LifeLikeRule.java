@@ -0,0 +1,106 @@
+package com.leomoille.gameoflife.model;
+
+/**
+ * Any Life-like rule, given in B/S notation (e.g. "B3/S23" for Conway,
+ * "B2/S" for Seeds, "B3678/S34678" for Day &amp; Night).
+ * <p>
+ * The rule is compiled into a 2x9 lookup table indexed by the cell's state
+ * and its number of alive neighbors, so computing a cell's next state is a
+ * single table lookup instead of a chain of branches.
+ * <p>
+ * Regions are stepped 64 cells at a time by a bit-sliced adder (see
+ * {@link BitSlicedKernel}). When the {@code jdk.incubator.vector} module is
+ * available (run with {@code --add-modules jdk.incubator.vector}), several
+ * words are processed per instruction; otherwise the scalar kernel is used.
+ * Setting the system property {@code gameoflife.vector} to {@code false}, or
+ * calling {@link #setVectorKernelEnabled(boolean)}, forces the scalar kernel.
+ */
+public class LifeLikeRule implements RuleStrategy {
+    private static volatile boolean vectorKernelEnabled =
+            Boolean.parseBoolean(System.getProperty("gameoflife.vector", "true"));
+
+    private final RuleTable ruleTable;
+    private final String name;
+    // Index: (alive ? 9 : 0) + neighbors.
+    private final boolean[] table;
+    private final BitSlicedKernel kernel;
+
+    /**
+     * Creates a rule named after its notation.
+     *
+     * @param notation The rule in B/S notation.
+     * @throws IllegalArgumentException if the notation is invalid.
+     */
+    public LifeLikeRule(String notation) {
+        this(RuleTable.parse(notation), null);
+    }
+
+    public LifeLikeRule(String notation, String name) {
+        this(RuleTable.parse(notation), name);
+    }
+
+    public LifeLikeRule(RuleTable ruleTable, String name) {
+        this.ruleTable = ruleTable;
+        this.name = name != null ? name : ruleTable.toString();
+        this.table = new boolean[18];
+        for (int n = 0; n <= 8; n++) {
+            this.table[n] = ruleTable.nextState(false, n);
+            this.table[9 + n] = ruleTable.nextState(true, n);
+        }
+        this.kernel = BitSlicedKernel.create(ruleTable, vectorKernelEnabled);
+    }
+
+    /**
+     * Tells whether the Vector API can be used on this JVM.
+     */
+    public static boolean isVectorKernelAvailable() {
+        return BitSlicedKernel.isVectorAvailable();
+    }
+
+    /**
+     * Allows or forbids the vector kernel for the rules created afterwards.
+     *
+     * @param enabled false to always use the scalar kernel.
+     */
+    public static void setVectorKernelEnabled(boolean enabled) {
+        vectorKernelEnabled = enabled;
+    }
+
+    /**
+     * Tells whether this rule steps regions with the vector kernel.
+     */
+    public boolean isVectorized() {
+        return this.kernel.isVectorized();
+    }
+
+    BitSlicedKernel getKernel() {
+        return this.kernel;
+    }
+
+    @Override
+    public void step(Grid source, Grid target, int fromRow, int toRow, int fromWord, int toWord) {
+        this.kernel.step(source, target, fromRow, toRow, fromWord, toWord);
+    }
+
+    @Override
+    public CellState computeNextState(Grid grid, int x, int y) {
+        int index = (grid.isAlive(x, y) ? 9 : 0) + grid.getAliveNeighbors(x, y);
+        return this.table[index] ? CellState.ALIVE : CellState.DEAD;
+    }
+
+    public RuleTable getRuleTable() {
+        return this.ruleTable;
+    }
+
+    /**
+     * Gets the rule in B/S notation.
+     */
+    public String getNotation() {
+        return this.ruleTable.toString();
+    }
+
+    @Override
+    public String getName() {
+        return this.name;
+    }
+}
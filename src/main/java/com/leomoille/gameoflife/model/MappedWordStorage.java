@@ -0,0 +1,200 @@
+package com.leomoille.gameoflife.model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Words stored in a memory-mapped file.
+ * <p>
+ * The operating system pages the file in and out on demand, so a grid may be
+ * larger than the heap and even than the physical memory; only the disk
+ * limits its size. The words outlive the process: a file written by one run
+ * can be reopened by the next. {@link #close()} unmaps the file at once when
+ * the JVM runs with {@code --enable-preview}, and leaves it to the garbage
+ * collector otherwise (see {@link SlabWordStorage}).
+ * <p>
+ * The file starts with a {@value #HEADER_BYTES}-byte header describing the
+ * grid, followed by its words, halo included, in little-endian order:
+ * <pre>
+ *  0  magic "GOLMAP01"       24  generation (long)
+ *  8  format version (int)   32  number of words (long)
+ * 12  width (int)
+ * 16  height (int)
+ * 20  boundary mode (int, ordinal)
+ * </pre>
+ */
+final class MappedWordStorage extends SlabWordStorage {
+    static final int HEADER_BYTES = 64;
+
+    private static final long MAGIC = 0x474F4C4D41503031L;
+    private static final int VERSION = 1;
+    private static final int VERSION_OFFSET = 8;
+    private static final int WIDTH_OFFSET = 12;
+    private static final int HEIGHT_OFFSET = 16;
+    private static final int BOUNDARY_OFFSET = 20;
+    private static final int GENERATION_OFFSET = 24;
+    private static final int SIZE_OFFSET = 32;
+
+    private final Path file;
+    private FileChannel channel;
+    private MappedByteBuffer header;
+    private MappedByteBuffer[] buffers;
+
+    private MappedWordStorage(Path file, FileChannel channel, int size, int slabShift) throws IOException {
+        super(size, slabShift);
+        this.file = file;
+        this.channel = channel;
+        int count = slabCount(size, slabShift);
+        this.buffers = new MappedByteBuffer[count];
+        LongBuffer[] slabs = new LongBuffer[count];
+        try {
+            this.header = this.mapBuffer(channel, FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            this.header.order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < count; i++) {
+                long position = HEADER_BYTES + ((long) i << slabShift) * Long.BYTES;
+                this.buffers[i] = this.mapBuffer(channel, FileChannel.MapMode.READ_WRITE, position,
+                        (long) slabWords(i, size, slabShift) * Long.BYTES);
+                this.buffers[i].order(ByteOrder.LITTLE_ENDIAN);
+                slabs[i] = this.buffers[i].asLongBuffer();
+            }
+        } catch (IOException | RuntimeException e) {
+            this.releaseBuffers();
+            throw e;
+        }
+        this.setSlabs(slabs);
+    }
+
+    /**
+     * Creates the file, replacing any previous one, with {@code size} zero words.
+     */
+    static MappedWordStorage create(Path file, int width, int height, int size) throws IOException {
+        return create(file, width, height, size, DEFAULT_SLAB_SHIFT);
+    }
+
+    static MappedWordStorage create(Path file, int width, int height, int size, int slabShift) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            // Mapping past the end extends the file with zeros, usually without writing them to disk.
+            MappedWordStorage storage = new MappedWordStorage(file, channel, size, slabShift);
+            storage.header.putLong(0, MAGIC);
+            storage.header.putInt(VERSION_OFFSET, VERSION);
+            storage.header.putInt(WIDTH_OFFSET, width);
+            storage.header.putInt(HEIGHT_OFFSET, height);
+            storage.header.putInt(BOUNDARY_OFFSET, BoundaryMode.DEAD.ordinal());
+            storage.header.putLong(GENERATION_OFFSET, 0L);
+            storage.header.putLong(SIZE_OFFSET, size);
+            return storage;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens a file written by {@link #create}.
+     *
+     * @throws IOException if the file cannot be read or is not a grid file.
+     */
+    static MappedWordStorage open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() < HEADER_BYTES) {
+                throw new IOException(file + " is not a grid file");
+            }
+            // Read rather than mapped: nothing is left mapped if the file is rejected.
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) {
+                    throw new IOException(file + " is not a grid file");
+                }
+            }
+            if (header.getLong(0) != MAGIC) {
+                throw new IOException(file + " is not a grid file");
+            }
+            if (header.getInt(VERSION_OFFSET) != VERSION) {
+                throw new IOException(file + " has an unsupported format version: " + header.getInt(VERSION_OFFSET));
+            }
+            long size = header.getLong(SIZE_OFFSET);
+            if (size < 0 || size > Integer.MAX_VALUE || channel.size() < HEADER_BYTES + size * Long.BYTES) {
+                throw new IOException(file + " is truncated");
+            }
+            return new MappedWordStorage(file, channel, (int) size, DEFAULT_SLAB_SHIFT);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    Path getFile() {
+        return this.file;
+    }
+
+    int getWidth() {
+        return this.header.getInt(WIDTH_OFFSET);
+    }
+
+    int getHeight() {
+        return this.header.getInt(HEIGHT_OFFSET);
+    }
+
+    /**
+     * Gets the stored boundary mode, {@link BoundaryMode#DEAD} if unknown.
+     */
+    BoundaryMode getBoundaryMode() {
+        int ordinal = this.header.getInt(BOUNDARY_OFFSET);
+        BoundaryMode[] modes = BoundaryMode.values();
+        return ordinal >= 0 && ordinal < modes.length ? modes[ordinal] : BoundaryMode.DEAD;
+    }
+
+    void setBoundaryMode(BoundaryMode boundaryMode) {
+        this.header.putInt(BOUNDARY_OFFSET, boundaryMode.ordinal());
+    }
+
+    long getGeneration() {
+        return this.header.getLong(GENERATION_OFFSET);
+    }
+
+    void setGeneration(long generation) {
+        this.header.putLong(GENERATION_OFFSET, generation);
+    }
+
+    /**
+     * A mapped file has a fixed size: resizing would need a new file.
+     */
+    @Override
+    public WordStorage allocate(int size) {
+        throw new UnsupportedOperationException("A grid mapped to " + this.file + " cannot be resized");
+    }
+
+    /**
+     * Writes the modified pages to the file, closes it and unmaps it.
+     */
+    @Override
+    public void close() {
+        if (this.channel == null) {
+            return;
+        }
+        try {
+            this.header.force();
+            for (MappedByteBuffer buffer : this.buffers) {
+                buffer.force();
+            }
+            this.channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write " + this.file, e);
+        } finally {
+            this.releaseBuffers();
+            this.header = null;
+            this.buffers = null;
+            this.channel = null;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.leomoille.gameoflife.model;
+
+import java.util.Locale;
+
+/**
+ * Immutable reading of {@link TickMetrics}.
+ *
+ * @param ticks                Number of generations recorded.
+ * @param p50Nanos             Median duration of a generation.
+ * @param p99Nanos             99th percentile of the duration of a generation.
+ * @param maxNanos             Longest generation.
+ * @param meanNanos            Mean duration of a generation.
+ * @param generationsPerSecond Generations computed during the last second, 0 when the simulation is stopped.
+ * @param population           Alive cells after the last generation, -1 if unknown.
+ * @param births               Cells born during the last generation, -1 if unknown.
+ * @param deaths               Cells which died during the last generation, -1 if unknown.
+ */
+public record MetricsSnapshot(long ticks, long p50Nanos, long p99Nanos, long maxNanos, double meanNanos,
+                              double generationsPerSecond, long population, long births, long deaths) {
+
+    /**
+     * Formats the snapshot on one line, durations in milliseconds.
+     */
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(String.format(Locale.ROOT,
+                "tick p50 %.2f ms, p99 %.2f ms, max %.2f ms, %.1f gen/s",
+                this.p50Nanos / 1e6, this.p99Nanos / 1e6, this.maxNanos / 1e6, this.generationsPerSecond));
+        if (this.population >= 0) {
+            text.append(", population ").append(this.population);
+        }
+        if (this.births >= 0) {
+            text.append(" (+").append(this.births).append(" / -").append(this.deaths).append(')');
+        }
+        return text.toString();
+    }
+}
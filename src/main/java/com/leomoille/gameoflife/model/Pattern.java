@@ -0,0 +1,225 @@
+package com.leomoille.gameoflife.model;
+
+/**
+ * A rectangle of cells, as read from or written to a pattern file.
+ * <p>
+ * Cells are bit-packed like {@link Grid} rows, without halo, so loading a
+ * pattern never creates an object per cell: readers set whole runs of cells
+ * and patterns are copied to and from grids a word at a time.
+ */
+public final class Pattern {
+    // Largest number of words a Java array can hold.
+    private static final long MAX_WORDS = Integer.MAX_VALUE - 8;
+
+    private final int width;
+    private final int height;
+    private final int wordsPerRow;
+    private final long[] words;
+    private final String rule;
+
+    /**
+     * Creates an empty pattern.
+     *
+     * @param width  Width of the pattern.
+     * @param height Height of the pattern.
+     * @param rule   Rule in B/S notation, or null if unknown.
+     * @throws IllegalArgumentException if the size is negative or too large to be held in memory.
+     */
+    public Pattern(int width, int height, String rule) {
+        if (width < 0 || height < 0) {
+            throw new IllegalArgumentException("Invalid pattern size: " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        this.wordsPerRow = (width + Grid.WORD_BITS - 1) >>> 6;
+        if ((long) this.wordsPerRow * height > MAX_WORDS) {
+            throw new IllegalArgumentException("Pattern too large: " + width + "x" + height);
+        }
+        this.words = new long[this.wordsPerRow * height];
+        this.rule = rule;
+    }
+
+    /**
+     * Copies the live cells of a grid, cropped to their bounding box.
+     *
+     * @param grid The grid to copy.
+     * @param rule Rule in B/S notation, or null if unknown.
+     * @return the pattern, 0 x 0 if the grid is empty.
+     */
+    public static Pattern of(Grid grid, String rule) {
+        int wordsPerRow = grid.getWordsPerRow();
+        long[] row = new long[wordsPerRow];
+        int minX = Integer.MAX_VALUE;
+        int maxX = -1;
+        int minY = -1;
+        int maxY = -1;
+        for (int y = 0; y < grid.getHeight(); y++) {
+            grid.getRow(y, row);
+            for (int w = 0; w < wordsPerRow; w++) {
+                if (row[w] != 0) {
+                    minX = Math.min(minX, w * Grid.WORD_BITS + Long.numberOfTrailingZeros(row[w]));
+                    maxX = Math.max(maxX, w * Grid.WORD_BITS + 63 - Long.numberOfLeadingZeros(row[w]));
+                    if (minY < 0) {
+                        minY = y;
+                    }
+                    maxY = y;
+                }
+            }
+        }
+        if (maxY < 0) {
+            return new Pattern(0, 0, rule);
+        }
+
+        Pattern pattern = new Pattern(maxX - minX + 1, maxY - minY + 1, rule);
+        for (int y = minY; y <= maxY; y++) {
+            grid.getRow(y, row);
+            copyBits(row, 0, minX, pattern.words, (y - minY) * pattern.wordsPerRow, 0, pattern.width);
+        }
+        return pattern;
+    }
+
+    /**
+     * Writes the pattern into a grid with its top-left corner at (x, y).
+     * Cells falling outside the grid are dropped; the grid's other cells are kept.
+     */
+    public void copyTo(Grid grid, int x, int y) {
+        int fromX = Math.max(0, -x);
+        int toX = Math.min(this.width, grid.getWidth() - x);
+        if (fromX >= toX) {
+            return;
+        }
+        long[] row = new long[grid.getWordsPerRow()];
+        for (int py = Math.max(0, -y); py < Math.min(this.height, grid.getHeight() - y); py++) {
+            grid.getRow(y + py, row);
+            copyBits(this.words, py * this.wordsPerRow, fromX, row, 0, x + fromX, toX - fromX);
+            grid.setRow(y + py, row);
+        }
+    }
+
+    public int getWidth() {
+        return this.width;
+    }
+
+    public int getHeight() {
+        return this.height;
+    }
+
+    /**
+     * Gets the rule the pattern was written for.
+     *
+     * @return the rule in B/S notation, or null if unknown.
+     */
+    public String getRule() {
+        return this.rule;
+    }
+
+    /**
+     * @return true if (x, y) is alive, false if dead or out of bounds.
+     */
+    public boolean isAlive(int x, int y) {
+        if (x < 0 || x >= this.width || y < 0 || y >= this.height) {
+            return false;
+        }
+        return (this.words[y * this.wordsPerRow + (x >>> 6)] & (1L << x)) != 0;
+    }
+
+    public long getPopulation() {
+        long count = 0;
+        for (long word : this.words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Reads 64 cells of a row, bit {@code i} holding the cell at {@code x + i}.
+     * Cells past the right edge read as dead.
+     */
+    public long getBits(int x, int y) {
+        if (x >= this.width) {
+            return 0L;
+        }
+        int index = y * this.wordsPerRow + (x >>> 6);
+        int shift = x & 63;
+        long bits = this.words[index] >>> shift;
+        if (shift != 0 && (x >>> 6) + 1 < this.wordsPerRow) {
+            bits |= this.words[index + 1] << (Grid.WORD_BITS - shift);
+        }
+        return bits;
+    }
+
+    /**
+     * Sets alive the cells of {@code bits} (bit {@code i} for the cell at
+     * {@code x + i}) among the {@code count} cells starting at {@code x}.
+     * Cells outside the pattern are ignored.
+     */
+    public void setBits(int x, int y, long bits, int count) {
+        if (y < 0 || y >= this.height) {
+            return;
+        }
+        if (x < 0) {
+            if (-x >= count) {
+                return;
+            }
+            bits >>>= -x;
+            count += x;
+            x = 0;
+        }
+        count = Math.min(count, this.width - x);
+        if (count <= 0) {
+            return;
+        }
+        if (count < Grid.WORD_BITS) {
+            bits &= (1L << count) - 1;
+        }
+        int index = y * this.wordsPerRow + (x >>> 6);
+        int shift = x & 63;
+        this.words[index] |= bits << shift;
+        if (shift != 0 && shift + count > Grid.WORD_BITS) {
+            this.words[index + 1] |= bits >>> (Grid.WORD_BITS - shift);
+        }
+    }
+
+    /**
+     * Sets alive {@code length} consecutive cells of row {@code y}, starting at {@code x}.
+     * Cells outside the pattern are ignored.
+     */
+    public void setRun(int x, int y, int length) {
+        while (length > 0) {
+            int count = Math.min(length, Grid.WORD_BITS);
+            this.setBits(x, y, -1L, count);
+            x += count;
+            length -= count;
+        }
+    }
+
+    /**
+     * Gets one storage word of a row, as {@link Grid#getWord(int, int)} does.
+     */
+    long getWord(int y, int wordIndex) {
+        return this.words[y * this.wordsPerRow + wordIndex];
+    }
+
+    int getWordsPerRow() {
+        return this.wordsPerRow;
+    }
+
+    /**
+     * Copies {@code count} bits from bit {@code srcX} of the row starting at
+     * word {@code srcRow} of {@code src} to bit {@code dstX} of the row at
+     * {@code dstRow} of {@code dst}. The other bits of {@code dst} are kept.
+     */
+    static void copyBits(long[] src, int srcRow, int srcX, long[] dst, int dstRow, int dstX, int count) {
+        while (count > 0) {
+            int n = Math.min(count, Grid.WORD_BITS - Math.max(srcX & 63, dstX & 63));
+            long mask = n == Grid.WORD_BITS ? -1L : (1L << n) - 1;
+            long bits = (src[srcRow + (srcX >>> 6)] >>> (srcX & 63)) & mask;
+            int index = dstRow + (dstX >>> 6);
+            int shift = dstX & 63;
+            dst[index] = (dst[index] & ~(mask << shift)) | (bits << shift);
+            srcX += n;
+            dstX += n;
+            count -= n;
+        }
+    }
+}
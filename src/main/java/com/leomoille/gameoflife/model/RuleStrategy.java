@@ -2,6 +2,11 @@ package com.leomoille.gameoflife.model;
 
 /**
  * Strategy interface for determining the next state of a cell.
+ * <p>
+ * Rules are applied by region through {@link #step}, whose default
+ * implementation calls {@link #computeNextState} for every cell. Rules that
+ * can do better (reusing neighbor counts between adjacent cells, for
+ * instance) override it.
  */
 public interface RuleStrategy {
     /**
@@ -14,6 +19,39 @@ public interface RuleStrategy {
      */
     CellState computeNextState(Grid grid, int x, int y);
 
+    /**
+     * Computes the next generation of a region of {@code source} into {@code target}.
+     * <p>
+     * The region is made of the storage words {@code [fromWord, toWord)} of rows
+     * {@code [fromRow, toRow)}, i.e. columns {@code fromWord * 64} to
+     * {@code toWord * 64 - 1} (clipped to the grid width). Implementations must only
+     * write inside the region, and must leave bits past the grid width cleared. They
+     * may be called concurrently on disjoint regions.
+     *
+     * @param source   The current generation.
+     * @param target   The grid receiving the next generation, of the same size.
+     * @param fromRow  First row of the region.
+     * @param toRow    Row after the last row of the region.
+     * @param fromWord First word of each row.
+     * @param toWord   Word after the last word of each row.
+     */
+    default void step(Grid source, Grid target, int fromRow, int toRow, int fromWord, int toWord) {
+        int width = source.getWidth();
+        for (int y = fromRow; y < toRow; y++) {
+            for (int w = fromWord; w < toWord; w++) {
+                int startX = w * Grid.WORD_BITS;
+                int cells = Math.min(Grid.WORD_BITS, width - startX);
+                long word = 0L;
+                for (int b = 0; b < cells; b++) {
+                    if (this.computeNextState(source, startX + b, y).isAlive()) {
+                        word |= 1L << b;
+                    }
+                }
+                target.storeWord(y, w, word);
+            }
+        }
+    }
+
     /**
      * Gets the name of the rule strategy.
      *
@@ -0,0 +1,147 @@
+package com.leomoille.gameoflife.model;
+
+/**
+ * Birth and survival conditions of an outer-totalistic rule, i.e. a rule whose
+ * next state only depends on the cell's state and its number of alive neighbors.
+ * <p>
+ * Bit {@code n} of the birth mask is set when a dead cell with {@code n} alive
+ * neighbors is born; bit {@code n} of the survival mask when an alive cell with
+ * {@code n} alive neighbors survives.
+ */
+public final class RuleTable {
+    private final int birthMask;
+    private final int survivalMask;
+
+    public RuleTable(int birthMask, int survivalMask) {
+        this.birthMask = birthMask & 0x1FF;
+        this.survivalMask = survivalMask & 0x1FF;
+    }
+
+    /**
+     * Parses a rule in B/S notation, such as "B3/S23", "b36/s23" or "S23/B3".
+     * Either part may be empty ("B2/S" is Seeds).
+     *
+     * @param notation The rule string.
+     * @return the parsed table.
+     * @throws IllegalArgumentException if the string is not a valid B/S rule.
+     */
+    public static RuleTable parse(String notation) {
+        String[] parts = notation.trim().toUpperCase().split("/", -1);
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Expected a rule like B3/S23: " + notation);
+        }
+        int birth = -1;
+        int survival = -1;
+        for (String part : parts) {
+            if (part.startsWith("B") && birth < 0) {
+                birth = parseDigits(part, notation);
+            } else if (part.startsWith("S") && survival < 0) {
+                survival = parseDigits(part, notation);
+            } else {
+                throw new IllegalArgumentException("Expected a rule like B3/S23: " + notation);
+            }
+        }
+        return new RuleTable(birth, survival);
+    }
+
+    private static int parseDigits(String part, String notation) {
+        int mask = 0;
+        for (int i = 1; i < part.length(); i++) {
+            int n = part.charAt(i) - '0';
+            if (n < 0 || n > 8) {
+                throw new IllegalArgumentException("Neighbor counts must be digits from 0 to 8: " + notation);
+            }
+            mask |= 1 << n;
+        }
+        return mask;
+    }
+
+    /**
+     * Builds the table of a rule by evaluating it on every neighbor count.
+     * The rule is assumed to be outer-totalistic. The table of a
+     * {@link LifeLikeRule} is returned as is.
+     *
+     * @param rule The rule to probe.
+     * @return the equivalent table.
+     */
+    public static RuleTable of(RuleStrategy rule) {
+        if (rule instanceof LifeLikeRule lifeLike) {
+            return lifeLike.getRuleTable();
+        }
+        // Neighbors of the center of a 3x3 grid, in the order they are switched on.
+        int[][] neighbors = {{0, 0}, {1, 0}, {2, 0}, {0, 1}, {2, 1}, {0, 2}, {1, 2}, {2, 2}};
+
+        int birth = 0;
+        int survival = 0;
+        Grid grid = new Grid(3, 3);
+        for (int n = 0; n <= 8; n++) {
+            grid.clear();
+            for (int i = 0; i < n; i++) {
+                grid.setAlive(neighbors[i][0], neighbors[i][1], true);
+            }
+            if (rule.computeNextState(grid, 1, 1).isAlive()) {
+                birth |= 1 << n;
+            }
+            grid.setAlive(1, 1, true);
+            if (rule.computeNextState(grid, 1, 1).isAlive()) {
+                survival |= 1 << n;
+            }
+        }
+        return new RuleTable(birth, survival);
+    }
+
+    /**
+     * Computes the next state of a cell.
+     *
+     * @param alive     Whether the cell is currently alive.
+     * @param neighbors Number of alive neighbors (0 to 8).
+     * @return true if the cell is alive in the next generation.
+     */
+    public boolean nextState(boolean alive, int neighbors) {
+        return ((alive ? this.survivalMask : this.birthMask) & (1 << neighbors)) != 0;
+    }
+
+    public int getBirthMask() {
+        return this.birthMask;
+    }
+
+    public int getSurvivalMask() {
+        return this.survivalMask;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RuleTable other)) {
+            return false;
+        }
+        return this.birthMask == other.birthMask && this.survivalMask == other.survivalMask;
+    }
+
+    @Override
+    public int hashCode() {
+        return this.birthMask * 512 + this.survivalMask;
+    }
+
+    /**
+     * Formats the table in B/S notation, e.g. "B3/S23".
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("B");
+        appendDigits(builder, this.birthMask);
+        builder.append("/S");
+        appendDigits(builder, this.survivalMask);
+        return builder.toString();
+    }
+
+    private static void appendDigits(StringBuilder builder, int mask) {
+        for (int n = 0; n <= 8; n++) {
+            if ((mask & (1 << n)) != 0) {
+                builder.append(n);
+            }
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.leomoille.gameoflife.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Words stored in byte buffers outside of the Java heap.
+ * <p>
+ * A buffer holds at most 2 GiB, so the words are split into slabs of
+ * {@code 2^slabShift} words. Subclasses create the buffers with
+ * {@link #allocateBuffer(long)} and {@link #mapBuffer}, and release them with
+ * {@link #releaseBuffers()} when closed.
+ * <p>
+ * When the JVM runs with {@code --enable-preview}, the buffers belong to an
+ * {@link ArenaMemory}: closing the storage frees the memory, or unmaps the
+ * file, at once. Otherwise they are plain direct or mapped buffers, reclaimed
+ * by their cleaners once they are garbage-collected.
+ */
+abstract class SlabWordStorage implements WordStorage {
+    /**
+     * Slabs of 2^27 words, i.e. 1 GiB.
+     */
+    static final int DEFAULT_SLAB_SHIFT = 27;
+
+    private static final boolean ARENA_AVAILABLE = detectArenaSupport();
+
+    private final int size;
+    final int slabShift;
+    private final int slabMask;
+    private LongBuffer[] slabs;
+    // Null when the buffers are left to the garbage collector.
+    private ArenaMemory memory;
+
+    SlabWordStorage(int size, int slabShift) {
+        this.size = size;
+        this.slabShift = slabShift;
+        this.slabMask = (1 << slabShift) - 1;
+        this.memory = ARENA_AVAILABLE ? new ArenaMemory() : null;
+    }
+
+    /**
+     * Tells whether closing a storage releases its memory at once, which needs
+     * the foreign memory API and thus {@code --enable-preview} on Java 21.
+     */
+    static boolean isArenaAvailable() {
+        return ARENA_AVAILABLE;
+    }
+
+    private static boolean detectArenaSupport() {
+        try {
+            return ArenaMemory.isSupported();
+        } catch (LinkageError e) {
+            // Compiled as a preview class, which this JVM does not load.
+            return false;
+        }
+    }
+
+    /**
+     * Allocates a zeroed native buffer, in big-endian order.
+     */
+    final ByteBuffer allocateBuffer(long bytes) {
+        return this.memory != null ? this.memory.allocate(bytes) : ByteBuffer.allocateDirect(Math.toIntExact(bytes));
+    }
+
+    /**
+     * Maps a region of a file, in big-endian order.
+     *
+     * @throws IOException if the file cannot be mapped.
+     */
+    final MappedByteBuffer mapBuffer(FileChannel channel, FileChannel.MapMode mode, long position, long bytes)
+            throws IOException {
+        return this.memory != null ? this.memory.map(channel, mode, position, bytes)
+                : channel.map(mode, position, bytes);
+    }
+
+    /**
+     * Drops the slabs, so that a later access fails instead of reading
+     * released memory, and releases the buffers: at once with an arena,
+     * otherwise when they are garbage-collected.
+     */
+    final void releaseBuffers() {
+        this.slabs = null;
+        if (this.memory != null) {
+            this.memory.close();
+            this.memory = null;
+        }
+    }
+
+    /**
+     * Number of slabs needed for {@code size} words.
+     */
+    static int slabCount(int size, int slabShift) {
+        return size == 0 ? 0 : ((size - 1) >>> slabShift) + 1;
+    }
+
+    /**
+     * Number of words of slab {@code index}; only the last one may be shorter.
+     */
+    static int slabWords(int index, int size, int slabShift) {
+        return Math.min(1 << slabShift, size - (index << slabShift));
+    }
+
+    /**
+     * Installs the slabs, once the subclass has created its buffers.
+     */
+    final void setSlabs(LongBuffer[] slabs) {
+        this.slabs = slabs;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public long get(int index) {
+        return this.slabs[index >>> this.slabShift].get(index & this.slabMask);
+    }
+
+    @Override
+    public void set(int index, long word) {
+        this.slabs[index >>> this.slabShift].put(index & this.slabMask, word);
+    }
+
+    @Override
+    public void get(int index, long[] dest, int offset, int length) {
+        while (length > 0) {
+            int start = index & this.slabMask;
+            int count = Math.min(length, this.slabMask + 1 - start);
+            this.slabs[index >>> this.slabShift].get(start, dest, offset, count);
+            index += count;
+            offset += count;
+            length -= count;
+        }
+    }
+
+    @Override
+    public void set(int index, long[] src, int offset, int length) {
+        while (length > 0) {
+            int start = index & this.slabMask;
+            int count = Math.min(length, this.slabMask + 1 - start);
+            this.slabs[index >>> this.slabShift].put(start, src, offset, count);
+            index += count;
+            offset += count;
+            length -= count;
+        }
+    }
+
+    @Override
+    public void fill(int from, int to, long word) {
+        for (int i = from; i < to; i++) {
+            this.set(i, word);
+        }
+    }
+
+    @Override
+    public void copy(int from, int to, int length) {
+        if (to <= from) {
+            for (int i = 0; i < length; i++) {
+                this.set(to + i, this.get(from + i));
+            }
+        } else {
+            for (int i = length - 1; i >= 0; i--) {
+                this.set(to + i, this.get(from + i));
+            }
+        }
+    }
+
+    @Override
+    public long[] array() {
+        return null;
+    }
+}
@@ -0,0 +1,304 @@
+package com.leomoille.gameoflife.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Immutable copy of the state of a bounded {@link GameModel}: its cells,
+ * generation counter, rule and boundary mode.
+ * <p>
+ * Only the non-empty tiles of the grid (one word by {@link Grid#TILE_SIZE}
+ * rows) are kept, so sparse boards are captured and stored in a fraction of
+ * their size. Capturing only copies words; encoding and writing the file can
+ * then happen on another thread while the simulation goes on (see
+ * {@link Checkpointer}).
+ * <p>
+ * Snapshot files are binary, in little-endian order:
+ * <pre>
+ * magic "GOLSNAP1" (long), format version (int),
+ * width (int), height (int), boundary mode (int, ordinal), generation (long),
+ * rule notation and rule name (each a short length followed by UTF-8 bytes),
+ * bitmap of the non-empty tiles (longs, tile (x, y) at bit y * wordsPerRow + x),
+ * the words of the non-empty tiles, tile by tile and row by row,
+ * CRC-32 of everything before (int).
+ * </pre>
+ */
+public final class Snapshot {
+    private static final long MAGIC = 0x474F4C534E415031L;
+    private static final int VERSION = 1;
+    // Size of the buffer the words are encoded through.
+    private static final int CHUNK_BYTES = 1 << 16;
+
+    private final int width;
+    private final int height;
+    private final BoundaryMode boundaryMode;
+    private final long generation;
+    private final String ruleNotation;
+    private final String ruleName;
+    private final long[] occupiedTiles;
+    private final long[] words;
+
+    private Snapshot(int width, int height, BoundaryMode boundaryMode, long generation, String ruleNotation,
+                     String ruleName, long[] occupiedTiles, long[] words) {
+        this.width = width;
+        this.height = height;
+        this.boundaryMode = boundaryMode;
+        this.generation = generation;
+        this.ruleNotation = ruleNotation;
+        this.ruleName = ruleName;
+        this.occupiedTiles = occupiedTiles;
+        this.words = words;
+    }
+
+    /**
+     * Copies the non-empty tiles of a grid.
+     */
+    static Snapshot capture(Grid grid, long generation, RuleStrategy rule) {
+        int tileColumns = grid.getTileColumns();
+        int tileRows = grid.getTileRows();
+        long[] occupied = new long[(tileColumns * tileRows + 63) >>> 6];
+        int wordCount = 0;
+        for (int ty = 0; ty < tileRows; ty++) {
+            int toY = Math.min(grid.getHeight(), (ty + 1) * Grid.TILE_SIZE);
+            for (int tx = 0; tx < tileColumns; tx++) {
+                for (int y = ty * Grid.TILE_SIZE; y < toY; y++) {
+                    if (grid.loadWord(y, tx) != 0) {
+                        int tile = ty * tileColumns + tx;
+                        occupied[tile >>> 6] |= 1L << tile;
+                        wordCount += toY - ty * Grid.TILE_SIZE;
+                        break;
+                    }
+                }
+            }
+        }
+
+        long[] words = new long[wordCount];
+        int index = 0;
+        for (int ty = 0; ty < tileRows; ty++) {
+            int toY = Math.min(grid.getHeight(), (ty + 1) * Grid.TILE_SIZE);
+            for (int tx = 0; tx < tileColumns; tx++) {
+                if (isOccupied(occupied, ty * tileColumns + tx)) {
+                    for (int y = ty * Grid.TILE_SIZE; y < toY; y++) {
+                        words[index++] = grid.loadWord(y, tx);
+                    }
+                }
+            }
+        }
+        return new Snapshot(grid.getWidth(), grid.getHeight(), grid.getBoundaryMode(), generation,
+                RuleTable.of(rule).toString(), rule.getName(), occupied, words);
+    }
+
+    private static boolean isOccupied(long[] occupied, int tile) {
+        return (occupied[tile >>> 6] & (1L << tile)) != 0;
+    }
+
+    /**
+     * Writes the cells and boundary mode into a grid of the same size.
+     */
+    void restoreTo(Grid grid) {
+        grid.setBoundaryMode(this.boundaryMode);
+        grid.clear();
+        int tileColumns = (this.width + Grid.WORD_BITS - 1) >>> 6;
+        int tileRows = (this.height + Grid.TILE_SIZE - 1) / Grid.TILE_SIZE;
+        int index = 0;
+        for (int ty = 0; ty < tileRows; ty++) {
+            int toY = Math.min(this.height, (ty + 1) * Grid.TILE_SIZE);
+            for (int tx = 0; tx < tileColumns; tx++) {
+                if (isOccupied(this.occupiedTiles, ty * tileColumns + tx)) {
+                    for (int y = ty * Grid.TILE_SIZE; y < toY; y++) {
+                        grid.setWord(y, tx, this.words[index++]);
+                    }
+                }
+            }
+        }
+    }
+
+    public int getWidth() {
+        return this.width;
+    }
+
+    public int getHeight() {
+        return this.height;
+    }
+
+    public BoundaryMode getBoundaryMode() {
+        return this.boundaryMode;
+    }
+
+    public long getGeneration() {
+        return this.generation;
+    }
+
+    /**
+     * Gets the rule in B/S notation, e.g. "B3/S23".
+     */
+    public String getRuleNotation() {
+        return this.ruleNotation;
+    }
+
+    public String getRuleName() {
+        return this.ruleName;
+    }
+
+    public long getPopulation() {
+        long count = 0;
+        for (long word : this.words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Writes the snapshot to a file. The data goes to a temporary file which
+     * then replaces {@code file}, so an interrupted write never leaves a
+     * truncated snapshot behind.
+     *
+     * @param file The file to write.
+     * @throws IOException if the file cannot be written.
+     */
+    public void write(Path file) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            byte[] notation = this.ruleNotation.getBytes(StandardCharsets.UTF_8);
+            byte[] name = this.ruleName.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(CHUNK_BYTES + notation.length + name.length)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putLong(MAGIC).putInt(VERSION).putInt(this.width).putInt(this.height)
+                    .putInt(this.boundaryMode.ordinal()).putLong(this.generation);
+            buffer.putShort((short) notation.length).put(notation);
+            buffer.putShort((short) name.length).put(name);
+            writeLongs(channel, buffer, this.occupiedTiles, crc);
+            writeLongs(channel, buffer, this.words, crc);
+            drain(channel, buffer, crc);
+            buffer.putInt((int) crc.getValue());
+            drain(channel, buffer, null);
+            channel.force(false);
+        }
+        try {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void writeLongs(FileChannel channel, ByteBuffer buffer, long[] values, CRC32 crc)
+            throws IOException {
+        int index = 0;
+        while (index < values.length) {
+            if (buffer.remaining() < Long.BYTES) {
+                drain(channel, buffer, crc);
+            }
+            int count = Math.min(values.length - index, buffer.remaining() / Long.BYTES);
+            buffer.asLongBuffer().put(values, index, count);
+            buffer.position(buffer.position() + count * Long.BYTES);
+            index += count;
+        }
+    }
+
+    /**
+     * Writes the buffered bytes, adding them to the checksum first if one is given.
+     */
+    private static void drain(FileChannel channel, ByteBuffer buffer, CRC32 crc) throws IOException {
+        buffer.flip();
+        if (crc != null) {
+            crc.update(buffer.duplicate());
+        }
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Reads a snapshot file.
+     *
+     * @param file The file to read.
+     * @return the snapshot.
+     * @throws IOException if the file cannot be read, is not a snapshot or is corrupted.
+     */
+    public static Snapshot read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(file + " is too large to be a snapshot");
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException(file + " is truncated");
+                }
+            }
+            buffer.flip();
+            return decode(buffer, file);
+        }
+    }
+
+    private static Snapshot decode(ByteBuffer buffer, Path file) throws IOException {
+        try {
+            if (buffer.getLong() != MAGIC) {
+                throw new IOException(file + " is not a snapshot");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException(file + " has an unsupported snapshot version: " + version);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate().position(0).limit(buffer.limit() - Integer.BYTES));
+            if ((int) crc.getValue() != buffer.getInt(buffer.limit() - Integer.BYTES)) {
+                throw new IOException(file + " is corrupted");
+            }
+
+            int width = buffer.getInt();
+            int height = buffer.getInt();
+            int mode = buffer.getInt();
+            long generation = buffer.getLong();
+            String notation = readString(buffer);
+            String name = readString(buffer);
+            if (width < 0 || height < 0 || mode < 0 || mode >= BoundaryMode.values().length) {
+                throw new IOException(file + " is corrupted");
+            }
+
+            int tileColumns = (width + Grid.WORD_BITS - 1) >>> 6;
+            int tileRows = (height + Grid.TILE_SIZE - 1) / Grid.TILE_SIZE;
+            long[] occupied = new long[(int) (((long) tileColumns * tileRows + 63) >>> 6)];
+            buffer.asLongBuffer().get(occupied);
+            buffer.position(buffer.position() + occupied.length * Long.BYTES);
+            long wordCount = 0;
+            for (int ty = 0; ty < tileRows; ty++) {
+                int rows = Math.min(height, (ty + 1) * Grid.TILE_SIZE) - ty * Grid.TILE_SIZE;
+                for (int tx = 0; tx < tileColumns; tx++) {
+                    if (isOccupied(occupied, ty * tileColumns + tx)) {
+                        wordCount += rows;
+                    }
+                }
+            }
+            if (wordCount * Long.BYTES != buffer.remaining() - Integer.BYTES) {
+                throw new IOException(file + " is corrupted");
+            }
+            long[] words = new long[(int) wordCount];
+            buffer.asLongBuffer().get(words);
+            return new Snapshot(width, height, BoundaryMode.values()[mode], generation, notation, name, occupied,
+                    words);
+        } catch (RuntimeException e) {
+            // Buffer underflows and absurd sizes.
+            throw new IOException(file + " is corrupted", e);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,299 @@
+package com.leomoille.gameoflife.model;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Unbounded universe made of fixed-size chunks allocated on demand.
+ * <p>
+ * Space is divided into chunks of {@link #CHUNK_SIZE} x {@link #CHUNK_SIZE}
+ * cells, bit-packed like {@link Grid} rows. Only chunks holding live cells,
+ * or bordering one, exist; they are looked up by coordinates in a
+ * primitive-keyed hash map. A chunk that stays empty for
+ * {@link #FREE_AFTER_GENERATIONS} generations is freed, so memory follows the
+ * live population rather than the pattern's bounding box.
+ * <p>
+ * Coordinates may be negative; patterns are never clipped.
+ */
+public class SparseUniverse {
+    /**
+     * Side of a chunk, in cells. A chunk row is one storage word.
+     */
+    public static final int CHUNK_SIZE = 64;
+
+    /**
+     * Number of consecutive empty generations after which a chunk is freed.
+     */
+    public static final int FREE_AFTER_GENERATIONS = 16;
+
+    private final ChunkMap chunks;
+    private final Random random;
+    // Reused between generations to iterate over the map while it changes.
+    private Chunk[] snapshot;
+    // Kernel of the rule of the last step, rebuilt when the rule changes.
+    private BitSlicedKernel kernel;
+    private RuleTable kernelRule;
+
+    public SparseUniverse() {
+        this.chunks = new ChunkMap();
+        this.random = new Random();
+        this.snapshot = new Chunk[16];
+    }
+
+    public boolean isAlive(int x, int y) {
+        Chunk chunk = this.chunks.get(x >> 6, y >> 6);
+        return chunk != null && (chunk.cells[y & 63] & (1L << x)) != 0;
+    }
+
+    /**
+     * Reads 64 cells of a row at once, the cell at {@code x = wordX * 64 + i}
+     * being bit {@code i}.
+     *
+     * @param wordX Index of the word, {@code x >> 6} for any x it holds.
+     * @param y     Row index.
+     * @return the packed cells, 0 where no chunk exists.
+     */
+    public long getWord(int wordX, int y) {
+        Chunk chunk = this.chunks.get(wordX, y >> 6);
+        return chunk == null ? 0L : chunk.cells[y & 63];
+    }
+
+    public void setAlive(int x, int y, boolean alive) {
+        Chunk chunk = this.chunks.get(x >> 6, y >> 6);
+        if (chunk == null) {
+            if (!alive) {
+                return;
+            }
+            chunk = this.createChunk(x >> 6, y >> 6);
+        }
+        long before = chunk.cells[y & 63];
+        long after = alive ? before | (1L << x) : before & ~(1L << x);
+        chunk.cells[y & 63] = after;
+        chunk.population += Long.bitCount(after) - Long.bitCount(before);
+    }
+
+    /**
+     * Fills a rectangle with random cells.
+     *
+     * @param x           Left column.
+     * @param y           Top row.
+     * @param width       Width of the rectangle.
+     * @param height      Height of the rectangle.
+     * @param probability Probability of each cell being alive.
+     */
+    public void randomize(int x, int y, int width, int height, double probability) {
+        for (int dy = 0; dy < height; dy++) {
+            for (int dx = 0; dx < width; dx++) {
+                this.setAlive(x + dx, y + dy, this.random.nextDouble() < probability);
+            }
+        }
+    }
+
+    public void clear() {
+        this.chunks.clear();
+    }
+
+    public long getPopulation() {
+        long population = 0;
+        this.snapshot = this.chunks.toArray(this.snapshot);
+        for (int i = 0; i < this.chunks.size(); i++) {
+            population += this.snapshot[i].population;
+        }
+        return population;
+    }
+
+    /**
+     * Gets the number of allocated chunks.
+     */
+    public int getChunkCount() {
+        return this.chunks.size();
+    }
+
+    /**
+     * Gets the allocated chunks, in the first {@link #getChunkCount()} slots of
+     * an array which the next call or step reuses.
+     */
+    Chunk[] getChunks() {
+        this.snapshot = this.chunks.toArray(this.snapshot);
+        return this.snapshot;
+    }
+
+    /**
+     * Checks that a rule can step an unbounded universe: with birth on 0
+     * neighbors, the infinite empty space would come alive at once.
+     *
+     * @param rule The rule.
+     * @throws IllegalArgumentException if the rule has birth on 0 neighbors.
+     */
+    public static void checkSupported(RuleTable rule) {
+        if ((rule.getBirthMask() & 1) != 0) {
+            throw new IllegalArgumentException("Rules with birth on 0 neighbors are not supported: " + rule);
+        }
+    }
+
+    /**
+     * Advances the universe by one generation.
+     *
+     * @param rule An outer-totalistic rule without birth on 0 neighbors.
+     */
+    public void step(RuleTable rule) {
+        checkSupported(rule);
+
+        if (!rule.equals(this.kernelRule)) {
+            this.kernel = new BitSlicedKernel(rule);
+            this.kernelRule = rule;
+        }
+
+        // Births can only spill into a missing chunk next to a live edge cell.
+        this.snapshot = this.chunks.toArray(this.snapshot);
+        int count = this.chunks.size();
+        for (int i = 0; i < count; i++) {
+            this.growAround(this.snapshot[i]);
+        }
+
+        this.snapshot = this.chunks.toArray(this.snapshot);
+        count = this.chunks.size();
+        for (int i = 0; i < count; i++) {
+            this.computeNext(this.snapshot[i]);
+        }
+
+        for (int i = 0; i < count; i++) {
+            Chunk chunk = this.snapshot[i];
+            long[] previous = chunk.cells;
+            chunk.cells = chunk.next;
+            chunk.next = previous;
+            chunk.population = 0;
+            for (long row : chunk.cells) {
+                chunk.population += Long.bitCount(row);
+            }
+            if (chunk.population > 0) {
+                chunk.emptyGenerations = 0;
+            } else if (++chunk.emptyGenerations > FREE_AFTER_GENERATIONS) {
+                this.chunks.remove(chunk.chunkX, chunk.chunkY);
+            }
+        }
+    }
+
+    private void growAround(Chunk chunk) {
+        if (chunk.population == 0) {
+            return;
+        }
+        long top = chunk.cells[0];
+        long bottom = chunk.cells[CHUNK_SIZE - 1];
+        long left = 0;
+        long right = 0;
+        for (long row : chunk.cells) {
+            left |= row & 1L;
+            right |= row >>> 63;
+        }
+        int cx = chunk.chunkX;
+        int cy = chunk.chunkY;
+        this.ensureChunk(top != 0, cx, cy - 1);
+        this.ensureChunk(bottom != 0, cx, cy + 1);
+        this.ensureChunk(left != 0, cx - 1, cy);
+        this.ensureChunk(right != 0, cx + 1, cy);
+        this.ensureChunk((top & 1L) != 0, cx - 1, cy - 1);
+        this.ensureChunk(top < 0, cx + 1, cy - 1);
+        this.ensureChunk((bottom & 1L) != 0, cx - 1, cy + 1);
+        this.ensureChunk(bottom < 0, cx + 1, cy + 1);
+    }
+
+    private void ensureChunk(boolean needed, int chunkX, int chunkY) {
+        if (needed && this.chunks.get(chunkX, chunkY) == null) {
+            this.createChunk(chunkX, chunkY);
+        }
+    }
+
+    private Chunk createChunk(int chunkX, int chunkY) {
+        Chunk chunk = new Chunk(chunkX, chunkY);
+        this.chunks.put(chunk);
+        return chunk;
+    }
+
+    /**
+     * Computes the next generation of a chunk into its {@code next} buffer.
+     */
+    private void computeNext(Chunk chunk) {
+        int cx = chunk.chunkX;
+        int cy = chunk.chunkY;
+        Chunk north = this.chunks.get(cx, cy - 1);
+        Chunk south = this.chunks.get(cx, cy + 1);
+        Chunk west = this.chunks.get(cx - 1, cy);
+        Chunk east = this.chunks.get(cx + 1, cy);
+        Chunk northWest = this.chunks.get(cx - 1, cy - 1);
+        Chunk northEast = this.chunks.get(cx + 1, cy - 1);
+        Chunk southWest = this.chunks.get(cx - 1, cy + 1);
+        Chunk southEast = this.chunks.get(cx + 1, cy + 1);
+
+        if (chunk.population == 0 && isEmpty(north) && isEmpty(south) && isEmpty(west) && isEmpty(east)
+                && isEmpty(northWest) && isEmpty(northEast) && isEmpty(southWest) && isEmpty(southEast)) {
+            Arrays.fill(chunk.next, 0L);
+            return;
+        }
+
+        for (int y = 0; y < CHUNK_SIZE; y++) {
+            long above;
+            long aboveWest;
+            long aboveEast;
+            if (y > 0) {
+                above = chunk.cells[y - 1];
+                aboveWest = row(west, y - 1);
+                aboveEast = row(east, y - 1);
+            } else {
+                above = row(north, CHUNK_SIZE - 1);
+                aboveWest = row(northWest, CHUNK_SIZE - 1);
+                aboveEast = row(northEast, CHUNK_SIZE - 1);
+            }
+            long below;
+            long belowWest;
+            long belowEast;
+            if (y < CHUNK_SIZE - 1) {
+                below = chunk.cells[y + 1];
+                belowWest = row(west, y + 1);
+                belowEast = row(east, y + 1);
+            } else {
+                below = row(south, 0);
+                belowWest = row(southWest, 0);
+                belowEast = row(southEast, 0);
+            }
+            long current = chunk.cells[y];
+            long currentWest = row(west, y);
+            long currentEast = row(east, y);
+            if ((above | current | below | aboveWest | aboveEast | currentWest | currentEast | belowWest
+                    | belowEast) == 0) {
+                chunk.next[y] = 0L;
+            } else {
+                chunk.next[y] = this.kernel.nextWord(aboveWest, above, aboveEast, currentWest, current, currentEast,
+                        belowWest, below, belowEast);
+            }
+        }
+    }
+
+    private static long row(Chunk chunk, int y) {
+        return chunk == null ? 0L : chunk.cells[y];
+    }
+
+    private static boolean isEmpty(Chunk chunk) {
+        return chunk == null || chunk.population == 0;
+    }
+
+    /**
+     * A square block of cells. Bit x of {@code cells[y]} holds the cell at
+     * ({@code chunkX * 64 + x}, {@code chunkY * 64 + y}).
+     */
+    static final class Chunk {
+        final int chunkX;
+        final int chunkY;
+        long[] cells;
+        long[] next;
+        int population;
+        int emptyGenerations;
+
+        Chunk(int chunkX, int chunkY) {
+            this.chunkX = chunkX;
+            this.chunkY = chunkY;
+            this.cells = new long[CHUNK_SIZE];
+            this.next = new long[CHUNK_SIZE];
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.leomoille.gameoflife.model;
+
+/**
+ * Records how long each generation takes and what it changed.
+ * <p>
+ * Durations go to a {@link LatencyHistogram}; throughput is the number of
+ * generations counted over windows of one second. Recording allocates
+ * nothing and must be done by a single thread (the game loop), while any
+ * thread may take a {@link #snapshot()}.
+ */
+public final class TickMetrics {
+    private static final long WINDOW_NANOS = 1_000_000_000L;
+
+    private final LatencyHistogram durations = new LatencyHistogram();
+    // Rates are measured between the ends of generations, from windowStart on.
+    private boolean started;
+    private boolean windowFilled;
+    private long windowStart;
+    private long windowTicks;
+    private volatile double generationsPerSecond;
+    private volatile long lastTickTime;
+    private volatile long population = -1L;
+    private volatile long births = -1L;
+    private volatile long deaths = -1L;
+
+    /**
+     * Records a generation.
+     *
+     * @param startNanos {@link System#nanoTime()} when the generation started.
+     * @param endNanos   {@link System#nanoTime()} when it ended.
+     * @param population Alive cells afterwards, -1 if unknown.
+     * @param births     Cells born, -1 if unknown.
+     * @param deaths     Cells which died, -1 if unknown.
+     */
+    public void record(long startNanos, long endNanos, long population, long births, long deaths) {
+        this.durations.record(endNanos - startNanos);
+        this.population = population;
+        this.births = births;
+        this.deaths = deaths;
+
+        if (!this.started || endNanos - this.lastTickTime > WINDOW_NANOS) {
+            // First generation, or the first after a pause: measure from its end.
+            this.started = true;
+            this.windowFilled = false;
+            this.windowStart = endNanos;
+            this.windowTicks = 0;
+            this.generationsPerSecond = 0.0;
+        } else {
+            this.windowTicks++;
+            long elapsed = Math.max(1L, endNanos - this.windowStart);
+            if (elapsed >= WINDOW_NANOS) {
+                this.generationsPerSecond = this.windowTicks * 1e9 / elapsed;
+                this.windowFilled = true;
+                this.windowStart = endNanos;
+                this.windowTicks = 0;
+            } else if (!this.windowFilled) {
+                // Until a first window is complete, the partial one is the best estimate.
+                this.generationsPerSecond = this.windowTicks * 1e9 / elapsed;
+            }
+        }
+        this.lastTickTime = endNanos;
+    }
+
+    /**
+     * Forgets the recorded generations. Must be called by the recording thread,
+     * or while nothing is recorded.
+     */
+    public void reset() {
+        this.durations.reset();
+        this.started = false;
+        this.windowTicks = 0;
+        this.generationsPerSecond = 0.0;
+        this.population = -1L;
+        this.births = -1L;
+        this.deaths = -1L;
+    }
+
+    /**
+     * Gets the histogram of the durations of the generations, in nanoseconds.
+     */
+    public LatencyHistogram getDurations() {
+        return this.durations;
+    }
+
+    /**
+     * Reads the metrics.
+     *
+     * @return an immutable copy of the current values.
+     */
+    public MetricsSnapshot snapshot() {
+        // The rate is stale once no generation was computed for a whole window.
+        double rate = System.nanoTime() - this.lastTickTime > WINDOW_NANOS ? 0.0 : this.generationsPerSecond;
+        return new MetricsSnapshot(this.durations.getCount(), this.durations.getValueAtPercentile(50),
+                this.durations.getValueAtPercentile(99), this.durations.getMax(), this.durations.getMean(),
+                rate, this.population, this.births, this.deaths);
+    }
+}
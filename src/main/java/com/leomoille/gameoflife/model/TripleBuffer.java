@@ -0,0 +1,103 @@
+package com.leomoille.gameoflife.model;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Three buffers exchanged between a producer and a consumer without locks.
+ * <p>
+ * The producer fills its back buffer and publishes it in the middle; the
+ * consumer takes the middle buffer in exchange for the one it holds. Both
+ * exchanges are a single atomic operation on the index of the middle
+ * buffer, which also records whether it was published and not taken yet.
+ * A buffer published while the previous one was still waiting replaces it.
+ * <p>
+ * Producer methods must be called by one thread at a time, and consumer
+ * methods by one thread at a time, possibly another.
+ *
+ * @param <T> Type of the buffers.
+ */
+final class TripleBuffer<T> {
+    // Set in the state while the middle buffer was published and not taken yet.
+    private static final int FRESH = 4;
+    private static final int INDEX = 3;
+
+    private final Object[] buffers;
+    private final AtomicInteger middle = new AtomicInteger(1);
+    // Producer only.
+    private int back = 0;
+    // Consumer only.
+    private int front = 2;
+
+    TripleBuffer(Supplier<T> factory) {
+        this.buffers = new Object[]{factory.get(), factory.get(), factory.get()};
+    }
+
+    /**
+     * Gets the buffer the producer fills. Producer only.
+     */
+    T back() {
+        return this.buffer(this.back);
+    }
+
+    /**
+     * Gets the index, from 0 to 2, of the buffer the producer fills. Producer only.
+     */
+    int backIndex() {
+        return this.back;
+    }
+
+    /**
+     * Reads the state of the middle buffer, for {@link #publish(int)}. Producer only.
+     */
+    int state() {
+        return this.middle.get();
+    }
+
+    /**
+     * Tells whether the middle buffer, in a given state, was published and not taken yet.
+     */
+    static boolean isWaiting(int state) {
+        return (state & FRESH) != 0;
+    }
+
+    /**
+     * Publishes the back buffer, unless the consumer took the middle one since
+     * the state was read. Producer only.
+     *
+     * @param state The state read by {@link #state()}.
+     * @return true if published; false if the state changed, in which case it must be read again.
+     */
+    boolean publish(int state) {
+        if (!this.middle.compareAndSet(state, this.back | FRESH)) {
+            return false;
+        }
+        this.back = state & INDEX;
+        return true;
+    }
+
+    /**
+     * Publishes the back buffer. Producer only.
+     */
+    void publish() {
+        this.back = this.middle.getAndSet(this.back | FRESH) & INDEX;
+    }
+
+    /**
+     * Takes the latest buffer published; the one held before goes back to the
+     * producer. Consumer only.
+     *
+     * @return the latest buffer, the same as before if none was published since.
+     */
+    T take() {
+        if (isWaiting(this.middle.get())) {
+            this.front = this.middle.getAndSet(this.front) & INDEX;
+        }
+        return this.buffer(this.front);
+    }
+
+    @SuppressWarnings("unchecked")
+    private T buffer(int index) {
+        return (T) this.buffers[index];
+    }
+}
@@ -0,0 +1,118 @@
+package com.leomoille.gameoflife.model;
+
+import java.util.Arrays;
+
+/**
+ * Copy of the live cells of a {@link SparseUniverse} at a given generation,
+ * for observers on other threads, such as views painting on the Event
+ * Dispatch Thread while the next generations are computed.
+ * <p>
+ * Only the chunks holding live cells are copied, each as its 64 rows of
+ * packed cells. Snapshots are recycled by a {@link UniverseSnapshotPool}:
+ * one does not change while its observer holds it, that is until the
+ * observer takes the next one.
+ */
+public final class UniverseSnapshot {
+    private static final int INITIAL_CAPACITY = 64;
+
+    // Open-addressing table from packed chunk coordinates (see ChunkMap) to rows.
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private long[][] rows = new long[INITIAL_CAPACITY][];
+    private int size;
+    // Row arrays of the previous content, reused by the next one.
+    private long[][] spare = new long[INITIAL_CAPACITY][];
+    private int spareCount;
+    private int generation;
+    private long population;
+
+    UniverseSnapshot() {
+    }
+
+    /**
+     * Replaces the content with a copy of a universe, which must not change meanwhile.
+     *
+     * @param universe   The universe.
+     * @param generation Its generation.
+     */
+    void update(SparseUniverse universe, int generation) {
+        for (int i = 0; i < this.rows.length; i++) {
+            if (this.rows[i] != null) {
+                if (this.spareCount == this.spare.length) {
+                    this.spare = Arrays.copyOf(this.spare, this.spare.length * 2);
+                }
+                this.spare[this.spareCount++] = this.rows[i];
+                this.rows[i] = null;
+            }
+        }
+        this.size = 0;
+        this.population = 0;
+
+        SparseUniverse.Chunk[] chunks = universe.getChunks();
+        int count = universe.getChunkCount();
+        int capacity = this.keys.length;
+        while (capacity < count * 2) {
+            capacity *= 2;
+        }
+        if (capacity != this.keys.length) {
+            this.keys = new long[capacity];
+            this.rows = new long[capacity][];
+        }
+        int mask = capacity - 1;
+        for (int c = 0; c < count; c++) {
+            SparseUniverse.Chunk chunk = chunks[c];
+            if (chunk.population == 0) {
+                continue;
+            }
+            long[] copy = this.spareCount > 0 ? this.spare[--this.spareCount] : new long[SparseUniverse.CHUNK_SIZE];
+            System.arraycopy(chunk.cells, 0, copy, 0, SparseUniverse.CHUNK_SIZE);
+            long key = ChunkMap.key(chunk.chunkX, chunk.chunkY);
+            int i = ChunkMap.slot(key, mask);
+            while (this.rows[i] != null) {
+                i = (i + 1) & mask;
+            }
+            this.keys[i] = key;
+            this.rows[i] = copy;
+            this.size++;
+            this.population += chunk.population;
+        }
+        this.generation = generation;
+    }
+
+    public int getGeneration() {
+        return this.generation;
+    }
+
+    public long getPopulation() {
+        return this.population;
+    }
+
+    /**
+     * Gets the number of chunks holding live cells.
+     */
+    public int getChunkCount() {
+        return this.size;
+    }
+
+    /**
+     * Reads 64 cells of a row at once, the cell at {@code x = wordX * 64 + i}
+     * being bit {@code i}.
+     *
+     * @param wordX Index of the word, {@code x >> 6} for any x it holds.
+     * @param y     Row index.
+     * @return the packed cells, 0 where no live chunk exists.
+     */
+    public long getWord(int wordX, int y) {
+        long key = ChunkMap.key(wordX, y >> 6);
+        int mask = this.keys.length - 1;
+        for (int i = ChunkMap.slot(key, mask); this.rows[i] != null; i = (i + 1) & mask) {
+            if (this.keys[i] == key) {
+                return this.rows[i][y & 63];
+            }
+        }
+        return 0L;
+    }
+
+    public boolean isAlive(int x, int y) {
+        return (this.getWord(x >> 6, y) & (1L << x)) != 0;
+    }
+}
@@ -0,0 +1,37 @@
+package com.leomoille.gameoflife.model;
+
+/**
+ * Hands snapshots of an unbounded universe from the thread computing
+ * generations to the thread rendering them, through three recycled buffers
+ * (see {@link TripleBuffer}), like {@link GridSnapshotPool} does for the
+ * bounded grid. Neither side ever waits for the other, and a buffer only
+ * allocates when the universe has more live chunks than it ever held.
+ * <p>
+ * {@link #publish} must be called by one thread at a time, and
+ * {@link #take()} by one thread at a time, possibly another.
+ */
+public final class UniverseSnapshotPool {
+    private final TripleBuffer<UniverseSnapshot> buffers = new TripleBuffer<>(UniverseSnapshot::new);
+
+    /**
+     * Publishes a copy of a universe, which must not change meanwhile.
+     *
+     * @param universe   The universe.
+     * @param generation Its generation.
+     */
+    public void publish(SparseUniverse universe, int generation) {
+        this.buffers.back().update(universe, generation);
+        this.buffers.publish();
+    }
+
+    /**
+     * Takes the latest snapshot published. The previous one returns to the
+     * pool, so it must no longer be read.
+     *
+     * @return the latest snapshot, the same as before if none was published since,
+     * or an empty one if none ever was.
+     */
+    public UniverseSnapshot take() {
+        return this.buffers.take();
+    }
+}
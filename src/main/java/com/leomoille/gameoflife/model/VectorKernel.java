@@ -0,0 +1,178 @@
+package com.leomoille.gameoflife.model;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link BitSlicedKernel} running on the Vector API: each instruction adds
+ * the neighbors of a whole vector of words, i.e. 64 cells per lane.
+ * <p>
+ * The words west and east of a vector are read with loads offset by one word,
+ * so no lane shuffling is needed; thanks to the grid's halo, this holds on the
+ * border too. Only a partial last word goes through the scalar path. Grids
+ * which are not arrays are stepped on rows copied out of them (see
+ * {@link #stepWindow(long[], long[], long[], long[], int)}).
+ * <p>
+ * This class may only be loaded when the {@code jdk.incubator.vector} module
+ * is present; {@link BitSlicedKernel#create} takes care of it.
+ */
+final class VectorKernel extends BitSlicedKernel {
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    private final LongVector zero;
+    private final LongVector[] flip0;
+    private final LongVector[] flip1;
+    private final LongVector[] flip2;
+    private final LongVector[] flip3;
+    private final LongVector[] birthVector;
+    private final LongVector[] survivalVector;
+
+    VectorKernel(RuleTable rule) {
+        super(rule);
+        int terms = this.counts.length;
+        this.zero = LongVector.zero(SPECIES);
+        this.flip0 = new LongVector[terms];
+        this.flip1 = new LongVector[terms];
+        this.flip2 = new LongVector[terms];
+        this.flip3 = new LongVector[terms];
+        this.birthVector = new LongVector[terms];
+        this.survivalVector = new LongVector[terms];
+        for (int i = 0; i < terms; i++) {
+            int n = this.counts[i];
+            this.flip0[i] = LongVector.broadcast(SPECIES, (n & 1) - 1L);
+            this.flip1[i] = LongVector.broadcast(SPECIES, ((n >> 1) & 1) - 1L);
+            this.flip2[i] = LongVector.broadcast(SPECIES, ((n >> 2) & 1) - 1L);
+            this.flip3[i] = LongVector.broadcast(SPECIES, ((n >> 3) & 1) - 1L);
+            this.birthVector[i] = LongVector.broadcast(SPECIES, this.birth[i]);
+            this.survivalVector[i] = LongVector.broadcast(SPECIES, this.survival[i]);
+        }
+    }
+
+    static boolean isSupported() {
+        return SPECIES.length() >= 2;
+    }
+
+    @Override
+    boolean isVectorized() {
+        return true;
+    }
+
+    @Override
+    void step(Grid source, Grid target, int fromRow, int toRow, int fromWord, int toWord) {
+        int lanes = SPECIES.length();
+        // A partial last word needs its ghost cell moved and its unused bits cleared.
+        int vectorTo = (source.getWidth() & 63) == 0 ? toWord : Math.min(toWord, source.getWordsPerRow() - 1);
+        long[] in = source.getBits();
+        long[] out = target.getBits();
+        // Off-heap grids are not arrays; the stepper streams their rows through stepWindow instead.
+        if (vectorTo - fromWord < lanes || in == null || out == null) {
+            super.step(source, target, fromRow, toRow, fromWord, toWord);
+            return;
+        }
+
+        for (int y = fromRow; y < toRow; y++) {
+            int row = source.offset(y);
+            int aboveRow = source.offset(y - 1);
+            int belowRow = source.offset(y + 1);
+            int targetRow = target.offset(y);
+            for (int w = fromWord; w < vectorTo; w += lanes) {
+                // The last vector is moved back to end on the last word; it recomputes a few words.
+                int start = Math.min(w, vectorTo - lanes);
+                this.stepVector(in, aboveRow, in, row, in, belowRow, out, targetRow, start);
+            }
+            if (vectorTo < toWord) {
+                this.stepRow(source, target, y, vectorTo, toWord);
+            }
+        }
+    }
+
+    @Override
+    void stepWindow(long[] aboveRow, long[] row, long[] belowRow, long[] out, int width) {
+        int lanes = SPECIES.length();
+        int last = (width + 63) >>> 6;
+        int vectorTo = (width & 63) == 0 ? last + 1 : last;
+        if (vectorTo - 1 < lanes) {
+            super.stepWindow(aboveRow, row, belowRow, out, width);
+            return;
+        }
+        for (int i = 1; i < vectorTo; i += lanes) {
+            this.stepVector(aboveRow, 0, row, 0, belowRow, 0, out, 0, Math.min(i, vectorTo - lanes));
+        }
+        if (vectorTo <= last) {
+            this.stepWindow(aboveRow, row, belowRow, out, width, vectorTo, last + 1);
+        }
+    }
+
+    /**
+     * Computes the vector of words starting at word {@code w} of a row. The
+     * rows above and below, and the output, may be in other arrays.
+     */
+    private void stepVector(long[] aboveIn, int aboveRow, long[] in, int row, long[] belowIn, int belowRow,
+                            long[] out, int targetRow, int w) {
+        LongVector above = LongVector.fromArray(SPECIES, aboveIn, aboveRow + w);
+        LongVector abovePrevious = LongVector.fromArray(SPECIES, aboveIn, aboveRow + w - 1);
+        LongVector aboveNext = LongVector.fromArray(SPECIES, aboveIn, aboveRow + w + 1);
+        LongVector current = LongVector.fromArray(SPECIES, in, row + w);
+        LongVector previous = LongVector.fromArray(SPECIES, in, row + w - 1);
+        LongVector next = LongVector.fromArray(SPECIES, in, row + w + 1);
+        LongVector below = LongVector.fromArray(SPECIES, belowIn, belowRow + w);
+        LongVector belowPrevious = LongVector.fromArray(SPECIES, belowIn, belowRow + w - 1);
+        LongVector belowNext = LongVector.fromArray(SPECIES, belowIn, belowRow + w + 1);
+
+        LongVector aboveWest = west(above, abovePrevious);
+        LongVector aboveEast = east(above, aboveNext);
+        LongVector west = west(current, previous);
+        LongVector east = east(current, next);
+        LongVector belowWest = west(below, belowPrevious);
+        LongVector belowEast = east(below, belowNext);
+
+        LongVector aboveLow = aboveWest.lanewise(VectorOperators.XOR, above).lanewise(VectorOperators.XOR, aboveEast);
+        LongVector aboveHigh = aboveWest.and(above)
+                .or(aboveEast.and(aboveWest.lanewise(VectorOperators.XOR, above)));
+        LongVector belowLow = belowWest.lanewise(VectorOperators.XOR, below).lanewise(VectorOperators.XOR, belowEast);
+        LongVector belowHigh = belowWest.and(below)
+                .or(belowEast.and(belowWest.lanewise(VectorOperators.XOR, below)));
+        LongVector sideLow = west.lanewise(VectorOperators.XOR, east);
+        LongVector sideHigh = west.and(east);
+
+        LongVector lowSum = aboveLow.lanewise(VectorOperators.XOR, belowLow);
+        LongVector s0 = lowSum.lanewise(VectorOperators.XOR, sideLow);
+        LongVector carry = aboveLow.and(belowLow).or(sideLow.and(lowSum));
+        LongVector highSum = aboveHigh.lanewise(VectorOperators.XOR, belowHigh);
+        LongVector highCarry = aboveHigh.and(belowHigh);
+        LongVector sideCarry = sideHigh.lanewise(VectorOperators.XOR, carry);
+        LongVector sideCarryCarry = sideHigh.and(carry);
+        LongVector s1 = highSum.lanewise(VectorOperators.XOR, sideCarry);
+        LongVector twos = highSum.and(sideCarry);
+        LongVector fours = highCarry.lanewise(VectorOperators.XOR, sideCarryCarry);
+        LongVector s2 = fours.lanewise(VectorOperators.XOR, twos);
+        LongVector s3 = highCarry.and(sideCarryCarry).or(twos.and(fours));
+
+        LongVector dead = current.not();
+        LongVector result = this.zero;
+        for (int i = 0; i < this.counts.length; i++) {
+            LongVector exactly = s0.lanewise(VectorOperators.XOR, this.flip0[i])
+                    .and(s1.lanewise(VectorOperators.XOR, this.flip1[i]))
+                    .and(s2.lanewise(VectorOperators.XOR, this.flip2[i]))
+                    .and(s3.lanewise(VectorOperators.XOR, this.flip3[i]));
+            LongVector alive = this.birthVector[i].and(dead).or(this.survivalVector[i].and(current));
+            result = result.or(exactly.and(alive));
+        }
+        result.intoArray(out, targetRow + w);
+    }
+
+    /**
+     * Shifts the words so that bit x holds the cell at x - 1.
+     */
+    private static LongVector west(LongVector words, LongVector previous) {
+        return words.lanewise(VectorOperators.LSHL, 1).or(previous.lanewise(VectorOperators.LSHR, 63));
+    }
+
+    /**
+     * Shifts the words so that bit x holds the cell at x + 1.
+     */
+    private static LongVector east(LongVector words, LongVector next) {
+        return words.lanewise(VectorOperators.LSHR, 1).or(next.lanewise(VectorOperators.LSHL, 63));
+    }
+}
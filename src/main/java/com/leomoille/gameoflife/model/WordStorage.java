@@ -0,0 +1,58 @@
+package com.leomoille.gameoflife.model;
+
+/**
+ * Fixed-size array of 64-bit words holding the cells of a {@link Grid}.
+ * <p>
+ * Implementations keep the words on the Java heap ({@link HeapWordStorage})
+ * or outside of it ({@link DirectWordStorage}). Storages that hold native
+ * memory release it in {@link #close()}; the storage must not be used afterwards.
+ */
+interface WordStorage extends AutoCloseable {
+    int size();
+
+    long get(int index);
+
+    void set(int index, long word);
+
+    /**
+     * Copies {@code length} words starting at {@code index} into {@code dest}.
+     */
+    void get(int index, long[] dest, int offset, int length);
+
+    /**
+     * Copies {@code length} words of {@code src} to the storage, starting at {@code index}.
+     */
+    void set(int index, long[] src, int offset, int length);
+
+    /**
+     * Sets words [from, to) to {@code word}.
+     */
+    void fill(int from, int to, long word);
+
+    /**
+     * Copies {@code length} words within the storage, like {@link System#arraycopy}.
+     */
+    void copy(int from, int to, int length);
+
+    /**
+     * Creates an empty storage of the same kind.
+     *
+     * @param size Number of words.
+     */
+    WordStorage allocate(int size);
+
+    /**
+     * Gets the backing array of a heap storage, for code that processes it directly.
+     *
+     * @return the array, or null if the words are not on the heap.
+     */
+    long[] array();
+
+    /**
+     * Releases the memory held outside of the heap, if any: at once when the
+     * foreign memory API is available, otherwise when the garbage collector
+     * reclaims the buffers (see {@link SlabWordStorage}).
+     */
+    @Override
+    void close();
+}
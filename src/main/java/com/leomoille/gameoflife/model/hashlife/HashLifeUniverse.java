@@ -0,0 +1,410 @@
+package com.leomoille.gameoflife.model.hashlife;
+
+import com.leomoille.gameoflife.model.Grid;
+import com.leomoille.gameoflife.model.RuleStrategy;
+import com.leomoille.gameoflife.model.RuleTable;
+
+/**
+ * Unbounded Life-like universe stepped with Gosper's HashLife algorithm.
+ * <p>
+ * The universe is a quadtree of canonical {@link Node}s centered on the
+ * origin. The future of each node is memoized, so repetitive patterns can be
+ * advanced by millions of generations in a few steps (see {@link #advance(long)}).
+ * Any outer-totalistic rule without birth on 0 neighbors is supported.
+ * <p>
+ * Unlike {@link Grid}, the universe has no border: patterns are never clipped.
+ * <p>
+ * The node cache is bounded by a memory budget. Nodes that are no longer
+ * reachable are collected before a step when the cache is over budget, and a
+ * step that fills the cache is abandoned and computed again as two steps of
+ * half the size, after a collection. The cache thus stays within the budget,
+ * except during a single generation that needs more nodes than the budget
+ * allows on its own: it is then computed regardless, and the cache collected
+ * before the next step.
+ */
+public class HashLifeUniverse {
+    /**
+     * Default memory budget of the node cache: 256 MiB.
+     */
+    public static final long DEFAULT_MEMORY_BUDGET = 256L << 20;
+
+    private static final int MIN_LEVEL = 3;
+
+    private final RuleTable ruleTable;
+    private final NodeCache cache;
+    private Node root;
+    private int stepLog;
+    private long generation;
+
+    public HashLifeUniverse(RuleStrategy rule) {
+        this(rule, DEFAULT_MEMORY_BUDGET);
+    }
+
+    /**
+     * Creates an empty universe.
+     *
+     * @param rule               An outer-totalistic rule.
+     * @param memoryBudgetBytes  Approximate maximum size of the node cache.
+     */
+    public HashLifeUniverse(RuleStrategy rule, long memoryBudgetBytes) {
+        this.ruleTable = RuleTable.of(rule);
+        if ((this.ruleTable.getBirthMask() & 1) != 0) {
+            throw new IllegalArgumentException("Rules with birth on 0 neighbors are not supported: " + this.ruleTable);
+        }
+        long maxNodes = Math.max(1024, memoryBudgetBytes / NodeCache.BYTES_PER_NODE);
+        this.cache = new NodeCache((int) Math.min(Integer.MAX_VALUE / 4, maxNodes));
+        this.root = this.cache.empty(MIN_LEVEL);
+        this.stepLog = -1;
+    }
+
+    /**
+     * Replaces the universe content with the cells of a grid.
+     *
+     * @param grid    The cells to load.
+     * @param originX Universe x coordinate of the grid's (0, 0) cell.
+     * @param originY Universe y coordinate of the grid's (0, 0) cell.
+     */
+    public void load(Grid grid, long originX, long originY) {
+        int level = MIN_LEVEL;
+        while (!this.covers(level, originX, originY)
+                || !this.covers(level, originX + grid.getWidth(), originY + grid.getHeight())) {
+            level++;
+        }
+        long half = 1L << (level - 1);
+        this.root = this.build(grid, originX, originY, level, -half, -half);
+        this.generation = 0;
+    }
+
+    private boolean covers(int level, long x, long y) {
+        long half = 1L << (level - 1);
+        return x >= -half && x <= half && y >= -half && y <= half;
+    }
+
+    private Node build(Grid grid, long originX, long originY, int level, long x, long y) {
+        long size = 1L << level;
+        if (x + size <= originX || y + size <= originY
+                || x >= originX + grid.getWidth() || y >= originY + grid.getHeight()) {
+            return this.cache.empty(level);
+        }
+        if (level == 0) {
+            return this.cache.leaf(grid.isAlive((int) (x - originX), (int) (y - originY)));
+        }
+        long half = size >> 1;
+        return this.cache.node(
+                this.build(grid, originX, originY, level - 1, x, y),
+                this.build(grid, originX, originY, level - 1, x + half, y),
+                this.build(grid, originX, originY, level - 1, x, y + half),
+                this.build(grid, originX, originY, level - 1, x + half, y + half));
+    }
+
+    /**
+     * Writes a window of the universe into a grid. Cells of the grid outside the pattern are cleared.
+     *
+     * @param grid    The grid to fill.
+     * @param originX Universe x coordinate of the grid's (0, 0) cell.
+     * @param originY Universe y coordinate of the grid's (0, 0) cell.
+     */
+    public void copyTo(Grid grid, long originX, long originY) {
+        grid.clear();
+        long half = 1L << (this.root.level - 1);
+        this.paint(this.root, grid, originX, originY, -half, -half);
+    }
+
+    private void paint(Node node, Grid grid, long originX, long originY, long x, long y) {
+        long size = 1L << node.level;
+        if (node.population == 0 || x + size <= originX || y + size <= originY
+                || x >= originX + grid.getWidth() || y >= originY + grid.getHeight()) {
+            return;
+        }
+        if (node.isLeaf()) {
+            grid.setAlive((int) (x - originX), (int) (y - originY), true);
+            return;
+        }
+        long half = size >> 1;
+        this.paint(node.nw, grid, originX, originY, x, y);
+        this.paint(node.ne, grid, originX, originY, x + half, y);
+        this.paint(node.sw, grid, originX, originY, x, y + half);
+        this.paint(node.se, grid, originX, originY, x + half, y + half);
+    }
+
+    public boolean isAlive(long x, long y) {
+        Node node = this.root;
+        long half = 1L << (node.level - 1);
+        if (x < -half || x >= half || y < -half || y >= half) {
+            return false;
+        }
+        x += half;
+        y += half;
+        while (!node.isLeaf() && node.population > 0) {
+            long quarter = 1L << (node.level - 1);
+            boolean east = x >= quarter;
+            boolean south = y >= quarter;
+            node = south ? (east ? node.se : node.sw) : (east ? node.ne : node.nw);
+            x -= east ? quarter : 0;
+            y -= south ? quarter : 0;
+        }
+        return node.population > 0;
+    }
+
+    public void setCell(long x, long y, boolean alive) {
+        while (!this.covers(this.root.level, x + 1, y + 1) || !this.covers(this.root.level, x, y)) {
+            this.root = this.expand(this.root);
+        }
+        long half = 1L << (this.root.level - 1);
+        this.root = this.set(this.root, x + half, y + half, alive);
+    }
+
+    private Node set(Node node, long x, long y, boolean alive) {
+        if (node.isLeaf()) {
+            return this.cache.leaf(alive);
+        }
+        long quarter = 1L << (node.level - 1);
+        boolean east = x >= quarter;
+        boolean south = y >= quarter;
+        long cx = east ? x - quarter : x;
+        long cy = south ? y - quarter : y;
+        Node nw = node.nw;
+        Node ne = node.ne;
+        Node sw = node.sw;
+        Node se = node.se;
+        if (south) {
+            if (east) {
+                se = this.set(se, cx, cy, alive);
+            } else {
+                sw = this.set(sw, cx, cy, alive);
+            }
+        } else if (east) {
+            ne = this.set(ne, cx, cy, alive);
+        } else {
+            nw = this.set(nw, cx, cy, alive);
+        }
+        return this.cache.node(nw, ne, sw, se);
+    }
+
+    /**
+     * Advances the universe by any number of generations.
+     * <p>
+     * The count is split into powers of two; each one is computed by a single
+     * memoized recursion over a root large enough to hold the pattern's growth.
+     * Memoized results survive from one step size to the next, so repeated
+     * calls reuse the work of the previous ones.
+     *
+     * @param generations Number of generations to compute.
+     */
+    public void advance(long generations) {
+        if (generations < 0) {
+            throw new IllegalArgumentException("Cannot advance by a negative number of generations");
+        }
+        for (int bit = 62; bit >= 0; bit--) {
+            if ((generations & (1L << bit)) != 0) {
+                this.step(bit);
+            }
+        }
+    }
+
+    /**
+     * Advances the universe by 2^log generations.
+     */
+    private void step(int log) {
+        if (this.root.population == 0) {
+            this.generation += 1L << log;
+            return;
+        }
+        if (this.cache.isOverBudget()) {
+            this.cache.collect(this.root);
+        }
+
+        // The pattern must sit in the center quarter of a root at least log + 3 levels high,
+        // so that it cannot grow out of the half returned by the step.
+        while (this.root.level < log + 3 || this.innerPopulation(this.root) != this.root.population) {
+            this.root = this.expand(this.root);
+        }
+        Node result = this.tryNext(this.root, log);
+        if (result == null) {
+            // The cache filled up: start again from the root alone, in two halves.
+            this.cache.collect(this.root);
+            this.step(log - 1);
+            this.step(log - 1);
+            return;
+        }
+        this.root = result;
+        this.generation += 1L << log;
+    }
+
+    /**
+     * Advances a root by 2^log generations within the memory budget.
+     *
+     * @return the center half of the root, or null if the cache filled up on
+     * the way; a single generation is always computed.
+     */
+    private Node tryNext(Node root, int log) {
+        this.stepLog = log;
+        this.cache.setBounded(log > 0);
+        try {
+            return this.next(root);
+        } catch (NodeCache.FullException e) {
+            return null;
+        } finally {
+            this.cache.setBounded(false);
+        }
+    }
+
+    /**
+     * Counts the cells of the center quarter (in width) of a node.
+     */
+    private long innerPopulation(Node node) {
+        return node.nw.se.se.population + node.ne.sw.sw.population
+                + node.sw.ne.ne.population + node.se.nw.nw.population;
+    }
+
+    /**
+     * Wraps a node into one twice as large, keeping it centered.
+     */
+    private Node expand(Node node) {
+        Node border = this.cache.empty(node.level - 1);
+        return this.cache.node(
+                this.cache.node(border, border, border, node.nw),
+                this.cache.node(border, border, node.ne, border),
+                this.cache.node(border, node.sw, border, border),
+                this.cache.node(node.se, border, border, border));
+    }
+
+    /**
+     * Computes the center half of a node after min(2^stepLog, 2^(level - 2)) generations.
+     * <p>
+     * Results at full speed, 2^(level - 2) generations, do not depend on the
+     * step size and are kept across steps of any size. A node only holds one
+     * result for a smaller step size, which the next such step of another
+     * size replaces.
+     */
+    private Node next(Node node) {
+        // At full speed both halves of the step advance time; otherwise the first one only recenters.
+        boolean fullSpeed = this.stepLog >= node.level - 2;
+        if (fullSpeed && node.result != null) {
+            return node.result;
+        }
+        if (!fullSpeed && node.stepResult != null && node.stepResultLog == this.stepLog) {
+            return node.stepResult;
+        }
+        Node result;
+        if (node.population == 0) {
+            result = node.nw;
+        } else if (node.level == 2) {
+            result = this.baseCase(node);
+        } else {
+            Node n00 = node.nw;
+            Node n01 = this.horizontal(node.nw, node.ne);
+            Node n02 = node.ne;
+            Node n10 = this.vertical(node.nw, node.sw);
+            Node n11 = this.center(node);
+            Node n12 = this.vertical(node.ne, node.se);
+            Node n20 = node.sw;
+            Node n21 = this.horizontal(node.sw, node.se);
+            Node n22 = node.se;
+
+            Node r00 = fullSpeed ? this.next(n00) : this.center(n00);
+            Node r01 = fullSpeed ? this.next(n01) : this.center(n01);
+            Node r02 = fullSpeed ? this.next(n02) : this.center(n02);
+            Node r10 = fullSpeed ? this.next(n10) : this.center(n10);
+            Node r11 = fullSpeed ? this.next(n11) : this.center(n11);
+            Node r12 = fullSpeed ? this.next(n12) : this.center(n12);
+            Node r20 = fullSpeed ? this.next(n20) : this.center(n20);
+            Node r21 = fullSpeed ? this.next(n21) : this.center(n21);
+            Node r22 = fullSpeed ? this.next(n22) : this.center(n22);
+
+            result = this.cache.node(
+                    this.next(this.cache.node(r00, r01, r10, r11)),
+                    this.next(this.cache.node(r01, r02, r11, r12)),
+                    this.next(this.cache.node(r10, r11, r20, r21)),
+                    this.next(this.cache.node(r11, r12, r21, r22)));
+        }
+        if (fullSpeed) {
+            node.result = result;
+        } else {
+            node.stepResult = result;
+            node.stepResultLog = this.stepLog;
+        }
+        return result;
+    }
+
+    private Node center(Node node) {
+        return this.cache.node(node.nw.se, node.ne.sw, node.sw.ne, node.se.nw);
+    }
+
+    private Node horizontal(Node west, Node east) {
+        return this.cache.node(west.ne, east.nw, west.se, east.sw);
+    }
+
+    private Node vertical(Node north, Node south) {
+        return this.cache.node(north.sw, north.se, south.nw, south.ne);
+    }
+
+    /**
+     * Computes the center 2x2 cells of a 4x4 node after one generation.
+     */
+    private Node baseCase(Node node) {
+        // Bit (y * 4 + x) holds the cell at (x, y).
+        int bits = 0;
+        Node[] quadrants = {node.nw, node.ne, node.sw, node.se};
+        for (int q = 0; q < 4; q++) {
+            Node quadrant = quadrants[q];
+            int ox = (q & 1) * 2;
+            int oy = (q >> 1) * 2;
+            bits |= (int) quadrant.nw.population << (oy * 4 + ox);
+            bits |= (int) quadrant.ne.population << (oy * 4 + ox + 1);
+            bits |= (int) quadrant.sw.population << ((oy + 1) * 4 + ox);
+            bits |= (int) quadrant.se.population << ((oy + 1) * 4 + ox + 1);
+        }
+        return this.cache.node(
+                this.cache.leaf(this.nextCell(bits, 1, 1)),
+                this.cache.leaf(this.nextCell(bits, 2, 1)),
+                this.cache.leaf(this.nextCell(bits, 1, 2)),
+                this.cache.leaf(this.nextCell(bits, 2, 2)));
+    }
+
+    private boolean nextCell(int bits, int x, int y) {
+        int neighbors = 0;
+        for (int dy = -1; dy <= 1; dy++) {
+            for (int dx = -1; dx <= 1; dx++) {
+                if (dx != 0 || dy != 0) {
+                    neighbors += (bits >> ((y + dy) * 4 + x + dx)) & 1;
+                }
+            }
+        }
+        boolean alive = ((bits >> (y * 4 + x)) & 1) != 0;
+        return this.ruleTable.nextState(alive, neighbors);
+    }
+
+    public long getGeneration() {
+        return this.generation;
+    }
+
+    public long getPopulation() {
+        return this.root.population;
+    }
+
+    public RuleTable getRuleTable() {
+        return this.ruleTable;
+    }
+
+    /**
+     * Gets the number of nodes currently held by the cache.
+     */
+    public int getNodeCount() {
+        return this.cache.size();
+    }
+
+    /**
+     * Gets the number of nodes the cache may hold before being garbage-collected.
+     */
+    public int getMaxNodes() {
+        return this.cache.getMaxNodes();
+    }
+
+    /**
+     * Gets how many times the node cache was garbage-collected.
+     */
+    public int getCollections() {
+        return this.cache.getCollections();
+    }
+}
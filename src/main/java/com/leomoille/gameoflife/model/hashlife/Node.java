@@ -0,0 +1,65 @@
+package com.leomoille.gameoflife.model.hashlife;
+
+/**
+ * Immutable quadtree node of a HashLife universe.
+ * <p>
+ * A node of level {@code k} covers a square of {@code 2^k} cells. Level 0
+ * nodes are single cells; any other node is made of four children of level
+ * {@code k - 1}. Nodes are canonicalized by {@link NodeCache}, so two nodes
+ * with the same content are the same object.
+ */
+final class Node {
+    final int level;
+    final Node nw;
+    final Node ne;
+    final Node sw;
+    final Node se;
+    final long population;
+    final long id;
+    final int hash;
+
+    // Memoized center of this node after 2^(level - 2) generations, whatever the step size.
+    Node result;
+    // Memoized center after 2^stepResultLog generations, for a step size smaller than 2^(level - 2).
+    Node stepResult;
+    int stepResultLog;
+    // Last garbage collection that reached this node.
+    int mark;
+
+    /**
+     * Creates a leaf (level 0) node.
+     */
+    Node(boolean alive, long id) {
+        this.level = 0;
+        this.nw = null;
+        this.ne = null;
+        this.sw = null;
+        this.se = null;
+        this.population = alive ? 1 : 0;
+        this.id = id;
+        this.hash = Long.hashCode(id);
+    }
+
+    Node(Node nw, Node ne, Node sw, Node se, long id) {
+        this.level = nw.level + 1;
+        this.nw = nw;
+        this.ne = ne;
+        this.sw = sw;
+        this.se = se;
+        this.population = nw.population + ne.population + sw.population + se.population;
+        this.id = id;
+        this.hash = hash(nw, ne, sw, se);
+    }
+
+    static int hash(Node nw, Node ne, Node sw, Node se) {
+        long h = nw.id * 0x9E3779B97F4A7C15L;
+        h = (h ^ ne.id) * 0xC2B2AE3D27D4EB4FL;
+        h = (h ^ sw.id) * 0x165667B19E3779F9L;
+        h = (h ^ se.id) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    boolean isLeaf() {
+        return this.level == 0;
+    }
+}
@@ -0,0 +1,180 @@
+package com.leomoille.gameoflife.model.hashlife;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Canonicalizing store of quadtree nodes.
+ * <p>
+ * Nodes live in an open-addressing hash table keyed by the identity of their
+ * four children. The table is bounded by a maximum node count: once it is
+ * exceeded, {@link #collect(Node)} keeps only the nodes reachable from the
+ * current root and drops every memoized result. While {@link #setBounded(boolean) bounded},
+ * the cache refuses to grow past the maximum and throws {@link FullException}
+ * instead, so that a step can be abandoned and retried after a collection.
+ */
+final class NodeCache {
+    /**
+     * Rough footprint of one node and its table slot, used to turn a memory budget into a node count.
+     */
+    static final int BYTES_PER_NODE = 80;
+
+    private static final int INITIAL_CAPACITY = 1 << 12;
+
+    private final int maxNodes;
+    private final Node deadLeaf;
+    private final Node aliveLeaf;
+    private final List<Node> emptyNodes;
+
+    private Node[] table;
+    private int size;
+    private long nextId;
+    private int collections;
+    private boolean bounded;
+
+    NodeCache(int maxNodes) {
+        this.maxNodes = maxNodes;
+        this.table = new Node[INITIAL_CAPACITY];
+        this.deadLeaf = new Node(false, this.nextId++);
+        this.aliveLeaf = new Node(true, this.nextId++);
+        this.emptyNodes = new ArrayList<>();
+        this.emptyNodes.add(this.deadLeaf);
+    }
+
+    Node leaf(boolean alive) {
+        return alive ? this.aliveLeaf : this.deadLeaf;
+    }
+
+    /**
+     * Gets the canonical empty node of a level.
+     */
+    Node empty(int level) {
+        while (this.emptyNodes.size() <= level) {
+            Node child = this.emptyNodes.get(this.emptyNodes.size() - 1);
+            this.emptyNodes.add(this.node(child, child, child, child));
+        }
+        return this.emptyNodes.get(level);
+    }
+
+    /**
+     * Gets the canonical node made of the given children.
+     */
+    Node node(Node nw, Node ne, Node sw, Node se) {
+        int hash = Node.hash(nw, ne, sw, se);
+        int mask = this.table.length - 1;
+        int index = hash & mask;
+        Node candidate;
+        while ((candidate = this.table[index]) != null) {
+            if (candidate.nw == nw && candidate.ne == ne && candidate.sw == sw && candidate.se == se) {
+                return candidate;
+            }
+            index = (index + 1) & mask;
+        }
+
+        if (this.bounded && this.size >= this.maxNodes) {
+            throw FullException.INSTANCE;
+        }
+        Node created = new Node(nw, ne, sw, se, this.nextId++);
+        this.table[index] = created;
+        this.size++;
+        if (this.size * 2 > this.table.length) {
+            this.rehash(this.table.length * 2);
+        }
+        return created;
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    int getMaxNodes() {
+        return this.maxNodes;
+    }
+
+    int getCollections() {
+        return this.collections;
+    }
+
+    boolean isOverBudget() {
+        return this.size > this.maxNodes;
+    }
+
+    /**
+     * Makes the creation of a node beyond the maximum count throw {@link FullException}, or allows it again.
+     */
+    void setBounded(boolean bounded) {
+        this.bounded = bounded;
+    }
+
+    /**
+     * Garbage-collects the table, keeping only the nodes reachable from {@code root}
+     * and the canonical empty nodes. Memoized results are dropped.
+     */
+    void collect(Node root) {
+        this.collections++;
+        int epoch = this.collections;
+
+        List<Node> live = new ArrayList<>();
+        this.mark(root, epoch, live);
+        for (Node empty : this.emptyNodes) {
+            this.mark(empty, epoch, live);
+        }
+
+        int capacity = INITIAL_CAPACITY;
+        while (capacity < live.size() * 2) {
+            capacity *= 2;
+        }
+        this.table = new Node[capacity];
+        this.size = 0;
+        for (Node node : live) {
+            node.result = null;
+            node.stepResult = null;
+            this.insert(node);
+        }
+    }
+
+    private void mark(Node node, int epoch, List<Node> live) {
+        if (node.isLeaf() || node.mark == epoch) {
+            return;
+        }
+        node.mark = epoch;
+        live.add(node);
+        this.mark(node.nw, epoch, live);
+        this.mark(node.ne, epoch, live);
+        this.mark(node.sw, epoch, live);
+        this.mark(node.se, epoch, live);
+    }
+
+    private void rehash(int capacity) {
+        Node[] old = this.table;
+        this.table = new Node[capacity];
+        this.size = 0;
+        for (Node node : old) {
+            if (node != null) {
+                this.insert(node);
+            }
+        }
+    }
+
+    private void insert(Node node) {
+        int mask = this.table.length - 1;
+        int index = node.hash & mask;
+        while (this.table[index] != null) {
+            index = (index + 1) & mask;
+        }
+        this.table[index] = node;
+        this.size++;
+    }
+
+    /**
+     * Thrown when a bounded cache is full. Carries no stack trace: it is
+     * caught by the step that caused it, which is retried.
+     */
+    static final class FullException extends RuntimeException {
+        private static final FullException INSTANCE = new FullException();
+
+        private FullException() {
+            super("The node cache is full", null, false, false);
+        }
+    }
+}
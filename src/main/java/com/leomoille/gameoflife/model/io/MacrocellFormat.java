@@ -0,0 +1,359 @@
+package com.leomoille.gameoflife.model.io;
+
+import com.leomoille.gameoflife.model.Pattern;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads and writes patterns in Golly's macrocell format, a quadtree whose
+ * identical subtrees are written once.
+ * <p>
+ * After the {@code [M2]} first line and optional {@code #} lines (among
+ * which {@code #R} gives the rule), every line defines a node, numbered from
+ * 1 in order. An 8 x 8 leaf is written as rows of {@code .} (dead) and
+ * {@code *} (alive) ended by {@code $}; a larger node as its level (log2 of
+ * its size) followed by the numbers of its four quadrants (north-west,
+ * north-east, south-west, south-east), 0 being an empty quadrant. The last
+ * node is the whole pattern.
+ * <p>
+ * Nodes are held in primitive arrays while reading, and the live cells are
+ * then rasterized into a {@link Pattern} cropped to their bounding box.
+ */
+public final class MacrocellFormat {
+    static final String HEADER = "[M2]";
+
+    private static final int LEAF_LEVEL = 3;
+    private static final int LEAF_SIZE = 1 << LEAF_LEVEL;
+    // Nodes are at most 2^MAX_LEVEL cells wide, so that coordinates fit in a long.
+    private static final int MAX_LEVEL = 60;
+
+    private MacrocellFormat() {
+    }
+
+    /**
+     * Reads a two-state macrocell pattern.
+     *
+     * @param reader Source of the text; it is not closed.
+     * @return the pattern cropped to its live cells, with the rule of the file if any.
+     * @throws PatternFormatException if the text is not a valid macrocell pattern, or
+     *                                if its live cells span more than a pattern can hold.
+     * @throws IOException            if the reader fails.
+     */
+    public static Pattern read(Reader reader) throws IOException {
+        BufferedReader in = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        String line = in.readLine();
+        if (line == null || !line.startsWith(HEADER)) {
+            throw new PatternFormatException(1, "Expected a macrocell file starting with " + HEADER);
+        }
+
+        Nodes nodes = new Nodes();
+        String rule = null;
+        int lineNumber = 1;
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            line = line.strip();
+            if (line.isEmpty()) {
+                continue;
+            }
+            char first = line.charAt(0);
+            if (first == '#') {
+                if (line.startsWith("#R")) {
+                    rule = RleFormat.toBsNotation(line.substring(2).strip());
+                }
+            } else if (first == '.' || first == '*' || first == '$') {
+                nodes.addLeaf(parseLeaf(line, lineNumber));
+            } else {
+                nodes.addNode(line, lineNumber);
+            }
+        }
+        return nodes.toPattern(rule);
+    }
+
+    /**
+     * Packs an 8 x 8 leaf into a long, bit {@code 8 * y + x} holding the cell at (x, y).
+     */
+    private static long parseLeaf(String line, int lineNumber) throws PatternFormatException {
+        long bits = 0L;
+        int x = 0;
+        int y = 0;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '$') {
+                x = 0;
+                y++;
+                continue;
+            }
+            if ((c != '.' && c != '*') || x >= LEAF_SIZE || y >= LEAF_SIZE) {
+                throw new PatternFormatException(lineNumber, "Invalid 8x8 leaf: " + line);
+            }
+            if (c == '*') {
+                bits |= 1L << (y * LEAF_SIZE + x);
+            }
+            x++;
+        }
+        return bits;
+    }
+
+    /**
+     * Nodes read so far, indexed by their number. Index 0 is the empty node.
+     */
+    private static final class Nodes {
+        private int count = 1;
+        private int[] levels = new int[1024];
+        private int[] children = new int[4 * 1024];
+        private long[] leaves = new long[1024];
+        // Bounding box of the live cells of each node, relative to its top-left corner; minX > maxX when empty.
+        private long[] minX = new long[1024];
+        private long[] minY = new long[1024];
+        private long[] maxX = new long[1024];
+        private long[] maxY = new long[1024];
+
+        Nodes() {
+            this.minX[0] = 0;
+            this.maxX[0] = -1;
+        }
+
+        void addLeaf(long bits) {
+            int index = this.allocate(LEAF_LEVEL);
+            this.leaves[index] = bits;
+            if (bits == 0) {
+                this.minX[index] = 0;
+                this.maxX[index] = -1;
+                return;
+            }
+            long columns = 0;
+            for (int y = 0; y < LEAF_SIZE; y++) {
+                columns |= (bits >>> (y * LEAF_SIZE)) & 0xFF;
+            }
+            this.minX[index] = Long.numberOfTrailingZeros(columns);
+            this.maxX[index] = 63 - Long.numberOfLeadingZeros(columns);
+            this.minY[index] = Long.numberOfTrailingZeros(bits) / LEAF_SIZE;
+            this.maxY[index] = (63 - Long.numberOfLeadingZeros(bits)) / LEAF_SIZE;
+        }
+
+        void addNode(String line, int lineNumber) throws PatternFormatException {
+            int[] values = new int[5];
+            int position = 0;
+            for (int i = 0; i < 5; i++) {
+                while (position < line.length() && Character.isWhitespace(line.charAt(position))) {
+                    position++;
+                }
+                int start = position;
+                long value = 0;
+                while (position < line.length() && line.charAt(position) >= '0' && line.charAt(position) <= '9'
+                        && value <= Integer.MAX_VALUE) {
+                    value = value * 10 + (line.charAt(position++) - '0');
+                }
+                if (position == start || value > Integer.MAX_VALUE) {
+                    throw new PatternFormatException(lineNumber, "Expected a level and four node numbers: " + line);
+                }
+                values[i] = (int) value;
+            }
+            if (position != line.length()) {
+                throw new PatternFormatException(lineNumber, "Expected a level and four node numbers: " + line);
+            }
+            int level = values[0];
+            if (level <= LEAF_LEVEL || level > MAX_LEVEL) {
+                throw new PatternFormatException(lineNumber, "Unsupported node level " + level
+                        + " (multi-state macrocell files are not supported)");
+            }
+            for (int i = 1; i < 5; i++) {
+                int child = values[i];
+                if (child < 0 || child >= this.count || (child != 0 && this.levels[child] != level - 1)) {
+                    throw new PatternFormatException(lineNumber, "Invalid quadrant " + child + " for a level "
+                            + level + " node");
+                }
+            }
+
+            int index = this.allocate(level);
+            long half = 1L << (level - 1);
+            this.minX[index] = Long.MAX_VALUE;
+            this.minY[index] = Long.MAX_VALUE;
+            this.maxX[index] = Long.MIN_VALUE;
+            this.maxY[index] = Long.MIN_VALUE;
+            for (int quadrant = 0; quadrant < 4; quadrant++) {
+                int child = values[quadrant + 1];
+                this.children[4 * index + quadrant] = child;
+                if (this.isEmpty(child)) {
+                    continue;
+                }
+                long offsetX = (quadrant & 1) * half;
+                long offsetY = (quadrant >> 1) * half;
+                this.minX[index] = Math.min(this.minX[index], offsetX + this.minX[child]);
+                this.minY[index] = Math.min(this.minY[index], offsetY + this.minY[child]);
+                this.maxX[index] = Math.max(this.maxX[index], offsetX + this.maxX[child]);
+                this.maxY[index] = Math.max(this.maxY[index], offsetY + this.maxY[child]);
+            }
+            if (this.minX[index] == Long.MAX_VALUE) {
+                this.minX[index] = 0;
+                this.maxX[index] = -1;
+            }
+        }
+
+        private boolean isEmpty(int index) {
+            return this.minX[index] > this.maxX[index];
+        }
+
+        private int allocate(int level) {
+            if (this.count == this.levels.length) {
+                int capacity = this.count * 2;
+                this.levels = Arrays.copyOf(this.levels, capacity);
+                this.children = Arrays.copyOf(this.children, 4 * capacity);
+                this.leaves = Arrays.copyOf(this.leaves, capacity);
+                this.minX = Arrays.copyOf(this.minX, capacity);
+                this.minY = Arrays.copyOf(this.minY, capacity);
+                this.maxX = Arrays.copyOf(this.maxX, capacity);
+                this.maxY = Arrays.copyOf(this.maxY, capacity);
+            }
+            this.levels[this.count] = level;
+            return this.count++;
+        }
+
+        Pattern toPattern(String rule) throws PatternFormatException {
+            int root = this.count - 1;
+            if (root == 0 || this.isEmpty(root)) {
+                return new Pattern(0, 0, rule);
+            }
+            long width = this.maxX[root] - this.minX[root] + 1;
+            long height = this.maxY[root] - this.minY[root] + 1;
+            if (width > Integer.MAX_VALUE || height > Integer.MAX_VALUE) {
+                throw new PatternFormatException("Pattern too large: " + width + "x" + height);
+            }
+            Pattern pattern;
+            try {
+                pattern = new Pattern((int) width, (int) height, rule);
+            } catch (IllegalArgumentException e) {
+                throw new PatternFormatException(e.getMessage());
+            }
+            this.paint(pattern, root, -this.minX[root], -this.minY[root]);
+            return pattern;
+        }
+
+        /**
+         * Sets the live cells of a node whose top-left corner is at (x, y) in the pattern.
+         */
+        private void paint(Pattern pattern, int index, long x, long y) {
+            if (this.isEmpty(index)) {
+                return;
+            }
+            int level = this.levels[index];
+            if (level == LEAF_LEVEL) {
+                long bits = this.leaves[index];
+                for (int row = 0; row < LEAF_SIZE; row++) {
+                    long rowBits = (bits >>> (row * LEAF_SIZE)) & 0xFF;
+                    if (rowBits != 0) {
+                        // Leaves only hold cells within the pattern, so x and y fit in an int.
+                        pattern.setBits((int) x, (int) y + row, rowBits, LEAF_SIZE);
+                    }
+                }
+                return;
+            }
+            long half = 1L << (level - 1);
+            for (int quadrant = 0; quadrant < 4; quadrant++) {
+                this.paint(pattern, this.children[4 * index + quadrant],
+                        x + (quadrant & 1) * half, y + (quadrant >> 1) * half);
+            }
+        }
+    }
+
+    /**
+     * Writes a pattern as a macrocell quadtree. Identical 8 x 8 leaves and
+     * identical nodes are written once.
+     *
+     * @param pattern The pattern to write.
+     * @param writer  Destination of the text; it is flushed but not closed.
+     * @throws IOException if the writer fails.
+     */
+    public static void write(Pattern pattern, Writer writer) throws IOException {
+        writer.write(HEADER + " (gameoflife)\n");
+        if (pattern.getRule() != null) {
+            writer.write("#R " + pattern.getRule() + "\n");
+        }
+        int level = LEAF_LEVEL;
+        while ((1L << level) < Math.max(pattern.getWidth(), pattern.getHeight())) {
+            level++;
+        }
+        new TreeWriter(pattern, writer).node(level, 0, 0);
+        writer.flush();
+    }
+
+    /**
+     * Builds the quadtree bottom-up, writing each distinct node the first time it is met.
+     */
+    private static final class TreeWriter {
+        private final Pattern pattern;
+        private final Writer writer;
+        private final Map<Long, Integer> leaves = new HashMap<>();
+        private final Map<NodeKey, Integer> nodes = new HashMap<>();
+        private int count;
+
+        TreeWriter(Pattern pattern, Writer writer) {
+            this.pattern = pattern;
+            this.writer = writer;
+        }
+
+        /**
+         * @return the number of the node at (x, y), 0 if it is empty.
+         */
+        int node(int level, long x, long y) throws IOException {
+            if (x >= this.pattern.getWidth() || y >= this.pattern.getHeight()) {
+                return 0;
+            }
+            if (level == LEAF_LEVEL) {
+                // Within the pattern, so the coordinates fit in an int.
+                return this.leaf((int) x, (int) y);
+            }
+            long half = 1L << (level - 1);
+            int nw = this.node(level - 1, x, y);
+            int ne = this.node(level - 1, x + half, y);
+            int sw = this.node(level - 1, x, y + half);
+            int se = this.node(level - 1, x + half, y + half);
+            if ((nw | ne | sw | se) == 0) {
+                return 0;
+            }
+            NodeKey key = new NodeKey(level, nw, ne, sw, se);
+            Integer known = this.nodes.get(key);
+            if (known != null) {
+                return known;
+            }
+            this.writer.write(level + " " + nw + " " + ne + " " + sw + " " + se + "\n");
+            this.nodes.put(key, ++this.count);
+            return this.count;
+        }
+
+        private int leaf(int x, int y) throws IOException {
+            long bits = 0L;
+            for (int row = 0; row < LEAF_SIZE && y + row < this.pattern.getHeight(); row++) {
+                bits |= (this.pattern.getBits(x, y + row) & 0xFF) << (row * LEAF_SIZE);
+            }
+            if (bits == 0) {
+                return 0;
+            }
+            Integer known = this.leaves.get(bits);
+            if (known != null) {
+                return known;
+            }
+            StringBuilder line = new StringBuilder();
+            int lastRow = (63 - Long.numberOfLeadingZeros(bits)) / LEAF_SIZE;
+            for (int row = 0; row <= lastRow; row++) {
+                long rowBits = (bits >>> (row * LEAF_SIZE)) & 0xFF;
+                for (int column = 0; column < LEAF_SIZE - Long.numberOfLeadingZeros(rowBits << 56); column++) {
+                    line.append((rowBits & (1L << column)) != 0 ? '*' : '.');
+                }
+                line.append('$');
+            }
+            this.writer.write(line.append('\n').toString());
+            this.leaves.put(bits, ++this.count);
+            return this.count;
+        }
+    }
+
+    private record NodeKey(int level, int nw, int ne, int sw, int se) {
+    }
+}
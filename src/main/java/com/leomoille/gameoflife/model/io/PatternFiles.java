@@ -0,0 +1,68 @@
+package com.leomoille.gameoflife.model.io;
+
+import com.leomoille.gameoflife.model.Pattern;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Loads and saves pattern files, choosing the format automatically.
+ * <p>
+ * A file is read as macrocell when it starts with {@code [M2]}, as RLE
+ * otherwise. A file is written as macrocell when its name ends with
+ * {@code .mc}, as RLE otherwise.
+ */
+public final class PatternFiles {
+    private PatternFiles() {
+    }
+
+    /**
+     * Reads an RLE or macrocell file.
+     *
+     * @param file The file to read.
+     * @return the pattern.
+     * @throws PatternFormatException if the file is malformed.
+     * @throws IOException            if the file cannot be read.
+     */
+    public static Pattern read(Path file) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            char[] start = new char[MacrocellFormat.HEADER.length()];
+            reader.mark(start.length);
+            int length = reader.read(start);
+            reader.reset();
+            if (length == start.length && MacrocellFormat.HEADER.equals(new String(start))) {
+                return MacrocellFormat.read(reader);
+            }
+            return RleFormat.read(reader);
+        }
+    }
+
+    /**
+     * Writes a pattern to a file, replacing it if it exists.
+     *
+     * @param file    The file to write; a {@code .mc} name selects the macrocell format.
+     * @param pattern The pattern to write.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void write(Path file, Pattern pattern) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            if (isMacrocell(file)) {
+                MacrocellFormat.write(pattern, writer);
+            } else {
+                RleFormat.write(pattern, writer);
+            }
+        }
+    }
+
+    /**
+     * Tells whether a file name selects the macrocell format.
+     */
+    public static boolean isMacrocell(Path file) {
+        return file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".mc");
+    }
+}
@@ -0,0 +1,20 @@
+package com.leomoille.gameoflife.model.io;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a pattern file is malformed.
+ */
+public class PatternFormatException extends IOException {
+    public PatternFormatException(String message) {
+        super(message);
+    }
+
+    /**
+     * @param line    Line of the file where the error was found, from 1.
+     * @param message What is wrong.
+     */
+    public PatternFormatException(int line, String message) {
+        super("Line " + line + ": " + message);
+    }
+}
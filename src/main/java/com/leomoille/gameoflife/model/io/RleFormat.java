@@ -0,0 +1,230 @@
+package com.leomoille.gameoflife.model.io;
+
+import com.leomoille.gameoflife.model.Pattern;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+
+/**
+ * Reads and writes patterns in the run length encoded (RLE) format.
+ * <p>
+ * A file starts with optional {@code #} comment lines, then a header such as
+ * {@code x = 3, y = 3, rule = B3/S23}, then the cells: {@code b} is a dead
+ * cell, {@code o} an alive one, {@code $} ends a row and {@code !} ends the
+ * pattern, each optionally preceded by a repeat count. For example, a glider
+ * is {@code bob$2bo$3o!}.
+ * <p>
+ * The reader consumes the text one character at a time and sets whole runs of
+ * cells in the {@link Pattern}; the writer finds runs a word at a time.
+ */
+public final class RleFormat {
+    // Lines written are at most this long, as recommended by the format.
+    private static final int LINE_LENGTH = 70;
+
+    private RleFormat() {
+    }
+
+    /**
+     * Reads an RLE pattern. Any state other than {@code b} or {@code .} is alive.
+     *
+     * @param reader Source of the text; it is not closed.
+     * @return the pattern, with the rule of the header if any.
+     * @throws PatternFormatException if the text is not a valid RLE pattern.
+     * @throws IOException            if the reader fails.
+     */
+    public static Pattern read(Reader reader) throws IOException {
+        BufferedReader in = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        int lineNumber = 0;
+        String line;
+        String legacyRule = null;
+        while (true) {
+            line = in.readLine();
+            lineNumber++;
+            if (line == null) {
+                throw new PatternFormatException("Missing RLE header (x = ..., y = ...)");
+            }
+            line = line.strip();
+            if (line.startsWith("#r ")) {
+                legacyRule = line.substring(3).strip();
+            } else if (!line.isEmpty() && !line.startsWith("#")) {
+                break;
+            }
+        }
+        Pattern pattern = parseHeader(line, lineNumber, legacyRule);
+
+        int x = 0;
+        int y = 0;
+        int count = 0;
+        boolean comment = false;
+        // Read in chunks: BufferedReader.read() takes a lock for every character.
+        char[] buffer = new char[8192];
+        int length;
+        while ((length = in.read(buffer)) != -1) {
+            for (int i = 0; i < length; i++) {
+                char c = buffer[i];
+                if (c == '\n') {
+                    lineNumber++;
+                    comment = false;
+                    continue;
+                }
+                if (comment || Character.isWhitespace(c)) {
+                    continue;
+                }
+                if (c >= '0' && c <= '9') {
+                    count = count * 10 + (c - '0');
+                    if (count > 100_000_000) {
+                        throw new PatternFormatException(lineNumber, "Run count too large");
+                    }
+                    continue;
+                }
+                int run = count == 0 ? 1 : count;
+                count = 0;
+                if (c == '!') {
+                    return pattern;
+                } else if (c == '$') {
+                    y += run;
+                    x = 0;
+                } else if (c == '#') {
+                    comment = true;
+                } else if (c == 'b' || c == '.') {
+                    x += run;
+                } else if (Character.isLetter(c)) {
+                    if (x + run > pattern.getWidth() || y >= pattern.getHeight()) {
+                        throw new PatternFormatException(lineNumber, "Cells outside of the declared "
+                                + pattern.getWidth() + "x" + pattern.getHeight() + " area");
+                    }
+                    pattern.setRun(x, y, run);
+                    x += run;
+                } else {
+                    throw new PatternFormatException(lineNumber, "Unexpected character '" + c + "'");
+                }
+            }
+        }
+        // Some files omit the final '!'.
+        return pattern;
+    }
+
+    private static Pattern parseHeader(String line, int lineNumber, String rule) throws PatternFormatException {
+        int width = -1;
+        int height = -1;
+        for (String field : line.split(",")) {
+            int equals = field.indexOf('=');
+            if (equals < 0) {
+                throw new PatternFormatException(lineNumber, "Expected an RLE header like x = 3, y = 3: " + line);
+            }
+            String key = field.substring(0, equals).strip();
+            String value = field.substring(equals + 1).strip();
+            try {
+                switch (key) {
+                    case "x" -> width = Integer.parseInt(value);
+                    case "y" -> height = Integer.parseInt(value);
+                    case "rule" -> rule = toBsNotation(value);
+                    default -> {
+                        // Other keys, such as the position of the pattern, are not needed.
+                    }
+                }
+            } catch (NumberFormatException e) {
+                throw new PatternFormatException(lineNumber, "Invalid " + key + " value: " + value);
+            }
+        }
+        if (width < 0 || height < 0) {
+            throw new PatternFormatException(lineNumber, "Expected an RLE header like x = 3, y = 3: " + line);
+        }
+        try {
+            return new Pattern(width, height, rule);
+        } catch (IllegalArgumentException e) {
+            throw new PatternFormatException(lineNumber, e.getMessage());
+        }
+    }
+
+    /**
+     * Converts a rule written as survival/birth digits ("23/3") to B/S notation.
+     * Other notations are returned as is.
+     */
+    static String toBsNotation(String rule) {
+        if (rule.matches("\\d*/\\d*")) {
+            int slash = rule.indexOf('/');
+            return "B" + rule.substring(slash + 1) + "/S" + rule.substring(0, slash);
+        }
+        return rule;
+    }
+
+    /**
+     * Writes a pattern in RLE, with a header giving its size and rule.
+     *
+     * @param pattern The pattern to write.
+     * @param writer  Destination of the text; it is flushed but not closed.
+     * @throws IOException if the writer fails.
+     */
+    public static void write(Pattern pattern, Writer writer) throws IOException {
+        writer.write("x = " + pattern.getWidth() + ", y = " + pattern.getHeight());
+        if (pattern.getRule() != null) {
+            writer.write(", rule = " + pattern.getRule());
+        }
+        writer.write('\n');
+
+        TokenWriter tokens = new TokenWriter(writer);
+        int pendingRows = 0;
+        for (int y = 0; y < pattern.getHeight(); y++) {
+            int x = 0;
+            while (x < pattern.getWidth()) {
+                boolean alive = pattern.isAlive(x, y);
+                int run = runLength(pattern, x, y, alive);
+                if (!alive && x + run == pattern.getWidth()) {
+                    // Dead cells at the end of a row are implied.
+                    break;
+                }
+                if (pendingRows > 0) {
+                    tokens.write(pendingRows, '$');
+                    pendingRows = 0;
+                }
+                tokens.write(run, alive ? 'o' : 'b');
+                x += run;
+            }
+            pendingRows++;
+        }
+        tokens.write(1, '!');
+        writer.write('\n');
+        writer.flush();
+    }
+
+    /**
+     * Counts the cells in the state {@code alive} starting at (x, y), 64 at a time.
+     */
+    private static int runLength(Pattern pattern, int x, int y, boolean alive) {
+        int length = 0;
+        while (x + length < pattern.getWidth()) {
+            long bits = pattern.getBits(x + length, y);
+            int same = Long.numberOfTrailingZeros(alive ? ~bits : bits);
+            length += Math.min(same, pattern.getWidth() - x - length);
+            if (same < Long.SIZE) {
+                break;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Writes run tokens, wrapping lines at {@link #LINE_LENGTH} characters.
+     */
+    private static final class TokenWriter {
+        private final Writer writer;
+        private int column;
+
+        TokenWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        void write(int run, char tag) throws IOException {
+            String token = run == 1 ? String.valueOf(tag) : run + String.valueOf(tag);
+            if (this.column + token.length() > LINE_LENGTH) {
+                this.writer.write('\n');
+                this.column = 0;
+            }
+            this.writer.write(token);
+            this.column += token.length();
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.leomoille.gameoflife.view;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+/**
+ * Draws a window of cells as an image rather than one rectangle per cell.
+ * <p>
+ * The cells are written as blocks of pixels straight into the {@code int[]}
+ * data buffer of a {@link BufferedImage} the size of the window, which is
+ * then drawn with a single {@code drawImage}. Cells are read from their
+ * packed words, 64 at a time; only the first pixel row of a row of cells is
+ * built cell by cell, the others are copies of it. Grid lines are stamped
+ * into the blocks from two cached rows of pixels, one crossing the cells and
+ * one along their top: a dead stretch of cells is a single copy of the
+ * former, and a line of the grid a copy of the latter. Painting thus costs
+ * about one array copy per row of pixels, however many cells are alive.
+ * <p>
+ * The image and the cached rows are reused from one paint to the next and
+ * must only be used on the Event Dispatch Thread.
+ */
+final class CellRenderer {
+    private static final int ALIVE_RGB = Color.GREEN.getRGB();
+    private static final int DEAD_RGB = Color.BLACK.getRGB();
+    private static final int LINE_RGB = Color.DARK_GRAY.getRGB();
+    // The image is grown by this many pixels at a time, so that resizing the window does not reallocate it each time.
+    private static final int GROWTH = 256;
+
+    private BufferedImage image;
+    private int[] pixels;
+    // Rows of pixels of dead cells, with the grid lines or without, and of a line of the grid.
+    private int[] deadRow = new int[0];
+    private int[] lineRow = new int[0];
+    private int cachedCellSize;
+    private boolean cachedGridLines;
+
+    /**
+     * Source of packed cells.
+     */
+    @FunctionalInterface
+    interface WordSource {
+        /**
+         * Reads 64 cells of a row, the cell at {@code x = wordX * 64 + i} being bit {@code i}.
+         */
+        long getWord(int wordX, int y);
+    }
+
+    /**
+     * Paints a window of cells.
+     *
+     * @param g         The graphics to paint on.
+     * @param source    The cells.
+     * @param fromX     First column of cells to paint.
+     * @param fromY     First row of cells to paint.
+     * @param columns   Number of columns to paint.
+     * @param rows      Number of rows to paint.
+     * @param screenX   Where the first column goes on screen, in pixels.
+     * @param screenY   Where the first row goes on screen, in pixels.
+     * @param cellSize  Size of a cell, in pixels.
+     * @param gridLines true to draw the lines between the cells, on the top and left pixels of each cell.
+     */
+    void paint(Graphics2D g, WordSource source, int fromX, int fromY, int columns, int rows, int screenX,
+               int screenY, int cellSize, boolean gridLines) {
+        if (columns <= 0 || rows <= 0) {
+            return;
+        }
+        // The lines close the grid on the right and bottom too.
+        int border = gridLines ? 1 : 0;
+        int width = columns * cellSize + border;
+        int height = rows * cellSize + border;
+        this.ensureCapacity(width, height);
+        this.cacheRows(width, cellSize, gridLines);
+
+        int[] pixels = this.pixels;
+        int stride = this.image.getWidth();
+        for (int row = 0; row < rows; row++) {
+            int top = row * cellSize * stride;
+            if (gridLines) {
+                System.arraycopy(this.lineRow, 0, pixels, top, width);
+            }
+            int first = top + border * stride;
+            this.fillRow(source, fromX, fromY + row, columns, cellSize, border, first);
+            for (int y = border + 1; y < cellSize; y++) {
+                System.arraycopy(pixels, first, pixels, top + y * stride, width);
+            }
+        }
+        if (gridLines) {
+            System.arraycopy(this.lineRow, 0, pixels, rows * cellSize * stride, width);
+        }
+        g.drawImage(this.image, screenX, screenY, screenX + width, screenY + height, 0, 0, width, height, null);
+    }
+
+    /**
+     * Writes one row of pixels crossing a row of cells.
+     */
+    private void fillRow(WordSource source, int fromX, int y, int columns, int cellSize, int border, int offset) {
+        int[] pixels = this.pixels;
+        int toX = fromX + columns;
+        int x = fromX;
+        int p = offset;
+        while (x < toX) {
+            int wordX = x >> 6;
+            int next = (int) Math.min(toX, (wordX + 1L) << 6);
+            long word = source.getWord(wordX, y);
+            if (word == 0L) {
+                int length = (next - x) * cellSize;
+                System.arraycopy(this.deadRow, 0, pixels, p, length);
+                p += length;
+                x = next;
+                continue;
+            }
+            // Shifts only use the low 6 bits of x: its position in the word.
+            for (; x < next; x++) {
+                int color = (word >>> x & 1L) != 0L ? ALIVE_RGB : DEAD_RGB;
+                if (border != 0) {
+                    pixels[p++] = LINE_RGB;
+                }
+                for (int i = border; i < cellSize; i++) {
+                    pixels[p++] = color;
+                }
+            }
+        }
+        if (border != 0) {
+            pixels[p] = LINE_RGB;
+        }
+    }
+
+    private void ensureCapacity(int width, int height) {
+        if (this.image != null && this.image.getWidth() >= width && this.image.getHeight() >= height) {
+            return;
+        }
+        int newWidth = roundUp(Math.max(width, this.image == null ? 0 : this.image.getWidth()));
+        int newHeight = roundUp(Math.max(height, this.image == null ? 0 : this.image.getHeight()));
+        this.image = new BufferedImage(newWidth, newHeight, BufferedImage.TYPE_INT_RGB);
+        this.pixels = ((DataBufferInt) this.image.getRaster().getDataBuffer()).getData();
+    }
+
+    /**
+     * Rebuilds the cached rows when the cell size, the grid lines or the width changed.
+     */
+    private void cacheRows(int width, int cellSize, boolean gridLines) {
+        if (this.deadRow.length >= width && this.cachedCellSize == cellSize && this.cachedGridLines == gridLines) {
+            return;
+        }
+        int length = roundUp(Math.max(width, this.deadRow.length));
+        this.deadRow = new int[length];
+        Arrays.fill(this.deadRow, DEAD_RGB);
+        if (gridLines) {
+            for (int x = 0; x < length; x += cellSize) {
+                this.deadRow[x] = LINE_RGB;
+            }
+        }
+        this.lineRow = new int[length];
+        Arrays.fill(this.lineRow, LINE_RGB);
+        this.cachedCellSize = cellSize;
+        this.cachedGridLines = gridLines;
+    }
+
+    private static int roundUp(int pixels) {
+        return (pixels + GROWTH - 1) / GROWTH * GROWTH;
+    }
+}
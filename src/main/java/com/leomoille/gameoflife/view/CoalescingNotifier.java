@@ -0,0 +1,223 @@
+package com.leomoille.gameoflife.view;
+
+import com.leomoille.gameoflife.model.CycleDetector;
+import com.leomoille.gameoflife.model.GameModel;
+import com.leomoille.gameoflife.model.GenerationHistory;
+import com.leomoille.gameoflife.model.GridSnapshot;
+import com.leomoille.gameoflife.model.GridSnapshotPool;
+import com.leomoille.gameoflife.model.SparseUniverse;
+import com.leomoille.gameoflife.model.UniverseSnapshot;
+import com.leomoille.gameoflife.model.UniverseSnapshotPool;
+
+import javax.swing.*;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Relays the events of a {@link GameModel} to Swing components, on the
+ * Event Dispatch Thread and at most once per display frame.
+ * <p>
+ * The model fires its events on whatever thread changed it, usually the
+ * engine thread. This notifier records them and schedules a single dispatch
+ * on the EDT; events arriving before the dispatch are merged with those
+ * still pending, so listeners get the latest state however fast the
+ * generations go, and never more than one dispatch per {@link #FRAME_NANOS}.
+ * <p>
+ * Listeners receive the same property names as from the model, but a "grid"
+ * event carries a {@link GridSnapshot}, copied when the model fired it,
+ * instead of the live grid. Its changed bounds cover every change since the
+ * previous "grid" event they received. Snapshots come from a
+ * {@link GridSnapshotPool}, so the engine computes the next generations
+ * while the EDT paints one, without allocating or waiting: a snapshot does
+ * not change until the next "grid" event, after which it is recycled and
+ * must no longer be read. Likewise, a "universe" event carries a
+ * {@link UniverseSnapshot} from a {@link UniverseSnapshotPool} instead of
+ * the live universe, which the engine thread keeps stepping.
+ * <p>
+ * Every "generation" event is followed by a "history" event carrying the
+ * {@link GenerationHistory.Range} of the model's history when the generation
+ * was fired, or null if nothing is recorded, and a "cycle" event carries the
+ * {@link CycleDetector.Status} of the detector instead of the bare period:
+ * listeners never need to read the history or the detector, which the engine
+ * thread keeps changing. Within a dispatch, "grid" or "universe" comes first,
+ * then "generation" (from the first skipped generation to the last) and
+ * "history", then "cycle".
+ */
+public class CoalescingNotifier implements PropertyChangeListener {
+    /**
+     * Shortest time between two dispatches: one frame at 60 Hz.
+     */
+    public static final long FRAME_NANOS = 16_666_667L;
+
+    private final GameModel model;
+    private final PropertyChangeSupport support;
+    // Filled by the thread firing "grid" and "universe" events, taken on the EDT.
+    private final GridSnapshotPool snapshots = new GridSnapshotPool();
+    private final UniverseSnapshotPool universes = new UniverseSnapshotPool();
+    // Events not dispatched yet, merged; written by any thread, taken on the EDT.
+    private final AtomicReference<Pending> pending = new AtomicReference<>();
+    // Set while a dispatch is scheduled, so that only one is.
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final Timer frameTimer;
+    // EDT only.
+    private long lastDispatch = System.nanoTime() - FRAME_NANOS;
+    private GridSnapshot grid;
+    private UniverseSnapshot universe;
+
+    /**
+     * Starts relaying the events of a model.
+     *
+     * @param model The model, whose current grid becomes the first snapshot.
+     */
+    public CoalescingNotifier(GameModel model) {
+        this.model = model;
+        this.support = new PropertyChangeSupport(this);
+        this.snapshots.publish(model.getGrid(), model.getGeneration(), null);
+        this.grid = this.snapshots.take();
+        if (model.getUniverse() != null) {
+            this.universes.publish(model.getUniverse(), model.getGeneration());
+            this.universe = this.universes.take();
+        }
+        this.frameTimer = new Timer(0, e -> this.dispatch());
+        this.frameTimer.setRepeats(false);
+        model.addPropertyChangeListener(this);
+    }
+
+    /**
+     * Gets the last snapshot of the grid dispatched to listeners. Must be
+     * called on the EDT.
+     */
+    public GridSnapshot getGrid() {
+        return this.grid;
+    }
+
+    /**
+     * Gets the last snapshot of the unbounded universe dispatched to
+     * listeners. Must be called on the EDT.
+     *
+     * @return the snapshot, or null if the last one dispatched was a grid.
+     */
+    public UniverseSnapshot getUniverse() {
+        return this.universe;
+    }
+
+    public void addPropertyChangeListener(PropertyChangeListener listener) {
+        this.support.addPropertyChangeListener(listener);
+    }
+
+    public void removePropertyChangeListener(PropertyChangeListener listener) {
+        this.support.removePropertyChangeListener(listener);
+    }
+
+    /**
+     * Records an event of the model. Called on the thread which fired it.
+     */
+    @Override
+    public void propertyChange(PropertyChangeEvent evt) {
+        Pending event = switch (evt.getPropertyName()) {
+            case "grid" -> {
+                // The model does not change while its listeners run, nor fires from two threads at once.
+                this.snapshots.publish(this.model.getGrid(), this.model.getGeneration(),
+                        this.model.getChangedBounds());
+                yield new Pending(true, false, null, null, null, null);
+            }
+            case "universe" -> {
+                this.universes.publish((SparseUniverse) evt.getNewValue(), this.model.getGeneration());
+                yield new Pending(false, true, null, null, null, null);
+            }
+            case "generation" -> {
+                GenerationHistory history = this.model.getHistory();
+                yield new Pending(false, false, (Integer) evt.getOldValue(), (Integer) evt.getNewValue(),
+                        history != null ? history.getRange() : null, null);
+            }
+            case "cycle" -> {
+                CycleDetector detector = this.model.getCycleDetector();
+                // The period of the event is the detector's, unless detection was disabled since.
+                int period = (Integer) evt.getNewValue();
+                yield new Pending(false, false, null, null, null,
+                        new CycleDetector.Status(period, detector != null && detector.isExtinct()));
+            }
+            default -> null;
+        };
+        if (event == null) {
+            return;
+        }
+        this.pending.accumulateAndGet(event, Pending::merge);
+        if (this.scheduled.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::scheduleDispatch);
+        }
+    }
+
+    /**
+     * Dispatches at once if the previous dispatch was at least a frame ago,
+     * or at the next frame otherwise.
+     */
+    private void scheduleDispatch() {
+        long wait = this.lastDispatch + FRAME_NANOS - System.nanoTime();
+        if (wait <= 0) {
+            this.dispatch();
+        } else {
+            this.frameTimer.setInitialDelay((int) ((wait + 999_999L) / 1_000_000L));
+            this.frameTimer.restart();
+        }
+    }
+
+    private void dispatch() {
+        // Cleared before taking the events: any event recorded after this schedules another dispatch.
+        this.scheduled.set(false);
+        this.lastDispatch = System.nanoTime();
+        Pending events = this.pending.getAndSet(null);
+        if (events == null) {
+            return;
+        }
+        if (events.grid()) {
+            this.grid = this.snapshots.take();
+            this.universe = null;
+            this.support.firePropertyChange("grid", null, this.grid);
+        } else if (events.universe()) {
+            this.universe = this.universes.take();
+            this.support.firePropertyChange("universe", null, this.universe);
+        }
+        if (events.generationTo() != null) {
+            this.support.firePropertyChange("generation", events.generationFrom(), events.generationTo());
+            this.support.firePropertyChange("history", null, events.history());
+        }
+        if (events.cycle() != null) {
+            this.support.firePropertyChange("cycle", null, events.cycle());
+        }
+    }
+
+    /**
+     * Events waiting for a dispatch; null components have not happened,
+     * except the history, which goes with the generation and is null when
+     * nothing is recorded. The grid and the universe, whose snapshots wait in
+     * their pools, exclude each other: the last one wins.
+     */
+    private record Pending(boolean grid, boolean universe, Integer generationFrom,
+                           Integer generationTo, GenerationHistory.Range history, CycleDetector.Status cycle) {
+
+        static Pending merge(Pending older, Pending newer) {
+            if (older == null) {
+                return newer;
+            }
+            boolean grid = older.grid;
+            boolean universe = older.universe;
+            if (newer.grid) {
+                grid = true;
+                universe = false;
+            } else if (newer.universe) {
+                grid = false;
+                universe = true;
+            }
+            boolean newerGeneration = newer.generationTo != null;
+            return new Pending(grid, universe,
+                    older.generationTo != null ? older.generationFrom : newer.generationFrom,
+                    newerGeneration ? newer.generationTo : older.generationTo,
+                    newerGeneration ? newer.history : older.history,
+                    newer.cycle != null ? newer.cycle : older.cycle);
+        }
+    }
+}
@@ -1,44 +1,83 @@
 package com.leomoille.gameoflife.view;
 
 import com.leomoille.gameoflife.controller.GameController;
-import com.leomoille.gameoflife.model.GameModel;
+import com.leomoille.gameoflife.model.CycleDetector;
+import com.leomoille.gameoflife.model.GenerationHistory;
 
 import javax.swing.*;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.io.IOException;
+import java.nio.file.Path;
 
 /**
- * Panel containing game controls (Start, Reset, Randomize, Speed).
- * Observes the GameModel to update generation count.
+ * Panel containing game controls (Start, Step, Advance, Back, Reset, Randomize, Open, Save, Speed, Max, History).
+ * Patterns are opened and saved in RLE or macrocell format. The history slider
+ * scrubs through the generations recorded by the model, and a status label
+ * tells when the grid died out, became still or oscillates. A metrics line,
+ * refreshed twice a second, shows how long generations take.
+ * Observes the GameModel, through a {@link CoalescingNotifier}, to update generation count.
  */
 public class ControlPanel extends JPanel implements PropertyChangeListener {
+    private static final int METRICS_REFRESH_MS = 500;
+
     private final GameController controller;
+    private static final int DEFAULT_ADVANCE = 100;
+
     private JButton startPauseButton;
     private JLabel generationLabel;
+    private JLabel cycleLabel;
+    private JLabel metricsLabel;
+    private JSlider historySlider;
+    private JFileChooser fileChooser;
+    // Set while the slider follows the model, so that it does not seek in return.
+    private boolean updatingHistory;
 
     public ControlPanel(GameController controller) {
         this.controller = controller;
         this.initUI();
     }
 
-    public void setModel(GameModel model) {
-        model.addPropertyChangeListener(this);
+    /**
+     * Set the model to observe.
+     *
+     * @param notifier Relays the events of the model on the Event Dispatch
+     *                 Thread, with its history range and cycle status.
+     */
+    public void setModel(CoalescingNotifier notifier) {
+        notifier.addPropertyChangeListener(this);
     }
 
     private void initUI() {
-        this.setLayout(new FlowLayout(FlowLayout.CENTER, 10, 10));
+        this.setLayout(new BorderLayout());
+        JPanel controls = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 10));
 
         this.startPauseButton = new JButton("Start");
         this.startPauseButton.addActionListener(e -> {
             this.controller.togglePause();
+            this.updateStartPauseButton();
+        });
 
-            // Update button text to reflect next action
-            if (this.startPauseButton.getText().equals("Start")) {
-                this.startPauseButton.setText("Pause");
-            } else {
-                this.startPauseButton.setText("Start");
-            }
+        JButton stepButton = new JButton("Step");
+        stepButton.addActionListener(e -> {
+            this.controller.step();
+            this.updateStartPauseButton();
+        });
+
+        JSpinner advanceSpinner = new JSpinner(new SpinnerNumberModel(DEFAULT_ADVANCE, 1, Integer.MAX_VALUE, 1));
+        JButton advanceButton = new JButton("Advance");
+        advanceButton.addActionListener(e -> {
+            this.controller.advance((Integer) advanceSpinner.getValue());
+            this.updateStartPauseButton();
+        });
+
+        JButton backButton = new JButton("Back");
+        backButton.addActionListener(e -> {
+            this.controller.stepBack();
+            // Seeking stops the simulation
+            this.startPauseButton.setText("Start");
         });
 
         JButton resetButton = new JButton("Reset");
@@ -51,25 +90,150 @@ public class ControlPanel extends JPanel implements PropertyChangeListener {
         JButton randomButton = new JButton("Randomize");
         randomButton.addActionListener(e -> this.controller.randomize());
 
-        JSlider speedSlider = new JSlider(10, 500, 100);
+        JButton openButton = new JButton("Open...");
+        openButton.addActionListener(e -> this.openPattern());
+
+        JButton saveButton = new JButton("Save...");
+        saveButton.addActionListener(e -> this.savePattern());
+
+        JSlider speedSlider = new JSlider(1, 500, 100);
         speedSlider.setInverted(true); // Lower delay = faster
         speedSlider.addChangeListener(e -> this.controller.setSpeed(speedSlider.getValue()));
+        JCheckBox maxSpeedBox = new JCheckBox("Max");
+        maxSpeedBox.setToolTipText("Compute generations as fast as possible");
+        maxSpeedBox.addActionListener(e -> {
+            this.controller.setUnthrottled(maxSpeedBox.isSelected());
+            speedSlider.setEnabled(!maxSpeedBox.isSelected());
+        });
 
         this.generationLabel = new JLabel("Gen: 0");
+        this.cycleLabel = new JLabel();
+
+        this.historySlider = new JSlider(0, 0, 0);
+        this.historySlider.setEnabled(false);
+        this.historySlider.addChangeListener(e -> {
+            if (!this.updatingHistory) {
+                this.controller.seekGeneration(this.historySlider.getValue());
+                this.startPauseButton.setText("Start");
+            }
+        });
+
+        controls.add(this.startPauseButton);
+        controls.add(stepButton);
+        controls.add(advanceSpinner);
+        controls.add(advanceButton);
+        controls.add(backButton);
+        controls.add(resetButton);
+        controls.add(randomButton);
+        controls.add(openButton);
+        controls.add(saveButton);
+        controls.add(new JLabel("Speed:"));
+        controls.add(speedSlider);
+        controls.add(maxSpeedBox);
+        controls.add(this.generationLabel);
+        controls.add(this.cycleLabel);
+        controls.add(new JLabel("History:"));
+        controls.add(this.historySlider);
+
+        this.metricsLabel = new JLabel(" ", SwingConstants.CENTER);
+        this.metricsLabel.setFont(this.metricsLabel.getFont().deriveFont(Font.PLAIN, 11f));
+        this.add(controls, BorderLayout.CENTER);
+        this.add(this.metricsLabel, BorderLayout.SOUTH);
+        // Polled on the EDT rather than pushed by the game loop at every generation.
+        new Timer(METRICS_REFRESH_MS, e -> this.metricsLabel.setText(this.controller.getMetrics().toString()))
+                .start();
+    }
 
-        this.add(this.startPauseButton);
-        this.add(resetButton);
-        this.add(randomButton);
-        this.add(new JLabel("Speed:"));
-        this.add(speedSlider);
-        this.add(this.generationLabel);
+    private void updateCycleLabel(CycleDetector.Status status) {
+        if (status.period() == 0) {
+            this.cycleLabel.setText("");
+        } else if (status.extinct()) {
+            this.cycleLabel.setText("Extinct");
+        } else if (status.period() == 1) {
+            this.cycleLabel.setText("Still life");
+        } else {
+            this.cycleLabel.setText("Period " + status.period());
+        }
+        // The engine may have stopped on the cycle
+        this.updateStartPauseButton();
+    }
+
+    /**
+     * Makes the button show the next action, as the engine may have stopped by itself.
+     */
+    private void updateStartPauseButton() {
+        this.startPauseButton.setText(this.controller.isRunning() ? "Pause" : "Start");
+    }
+
+    /**
+     * Sets the range of the history slider to the recorded generations.
+     *
+     * @param range The generations recorded when the event was fired, or null if none.
+     */
+    private void updateHistorySlider(GenerationHistory.Range range) {
+        this.updatingHistory = true;
+        try {
+            if (range == null) {
+                this.historySlider.setEnabled(false);
+                this.historySlider.setValue(0);
+                return;
+            }
+            this.historySlider.setEnabled(true);
+            this.historySlider.getModel().setRangeProperties(range.currentGeneration(), 0,
+                    range.oldestGeneration(), range.newestGeneration(), false);
+        } finally {
+            this.updatingHistory = false;
+        }
+    }
+
+    private JFileChooser getFileChooser() {
+        // Created on first use: building a file chooser scans the file system.
+        if (this.fileChooser == null) {
+            this.fileChooser = new JFileChooser();
+            this.fileChooser.setFileFilter(new FileNameExtensionFilter("Patterns (*.rle, *.mc)", "rle", "mc"));
+        }
+        return this.fileChooser;
+    }
+
+    private void openPattern() {
+        JFileChooser chooser = this.getFileChooser();
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        try {
+            this.controller.openPattern(chooser.getSelectedFile().toPath());
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, "Cannot open the pattern:\n" + e.getMessage(), "Open",
+                    JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    private void savePattern() {
+        JFileChooser chooser = this.getFileChooser();
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path file = chooser.getSelectedFile().toPath();
+        if (!file.getFileName().toString().contains(".")) {
+            file = file.resolveSibling(file.getFileName() + ".rle");
+        }
+        try {
+            this.controller.savePattern(file);
+        } catch (IOException | IllegalStateException e) {
+            JOptionPane.showMessageDialog(this, "Cannot save the pattern:\n" + e.getMessage(), "Save",
+                    JOptionPane.ERROR_MESSAGE);
+        }
     }
 
     @Override
     public void propertyChange(PropertyChangeEvent evt) {
         if ("generation".equals(evt.getPropertyName())) {
-            int gen = (Integer) evt.getNewValue();
-            this.generationLabel.setText("Gen: " + gen);
+            this.generationLabel.setText("Gen: " + evt.getNewValue());
+            this.updateStartPauseButton();
+        } else if ("history".equals(evt.getPropertyName())) {
+            this.updateHistorySlider((GenerationHistory.Range) evt.getNewValue());
+        } else if ("cycle".equals(evt.getPropertyName())) {
+            this.updateCycleLabel((CycleDetector.Status) evt.getNewValue());
         }
     }
 }
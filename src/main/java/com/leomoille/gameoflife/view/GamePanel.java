@@ -1,8 +1,9 @@
 package com.leomoille.gameoflife.view;
 
 import com.leomoille.gameoflife.controller.GameController;
-import com.leomoille.gameoflife.model.GameModel;
-import com.leomoille.gameoflife.model.Grid;
+import com.leomoille.gameoflife.model.CellBounds;
+import com.leomoille.gameoflife.model.GridSnapshot;
+import com.leomoille.gameoflife.model.UniverseSnapshot;
 
 import javax.swing.*;
 import java.awt.*;
@@ -14,16 +15,36 @@ import java.beans.PropertyChangeListener;
 
 /**
  * Custom Swing component to render the Game of Life grid.
- * Observes GameModel for updates.
+ * Observes GameModel for updates, through a {@link CoalescingNotifier}: it
+ * paints immutable snapshots of the grid, on the Event Dispatch Thread, at
+ * most once per display frame.
  * Supports Zoom via Mouse Wheel (Ctrl/Cmd + Scroll).
+ * <p>
+ * Cells are written into an image by a {@link CellRenderer} and drawn at
+ * once. After a generation, only the cells the model reports as changed
+ * are repainted, and the layout is only revalidated when the grid changed
+ * size.
+ * <p>
+ * When the model is unbounded, the panel fills the scroll pane's viewport and
+ * shows a window of the universe which can be panned by dragging with the
+ * right or middle mouse button (or scrolled with the mouse wheel).
  */
-public class GamePanel extends JPanel implements PropertyChangeListener {
+public class GamePanel extends JPanel implements PropertyChangeListener, Scrollable {
     private GameController controller;
-    private Grid grid;
+    private GridSnapshot grid;
+    private UniverseSnapshot universe;
+
+    // Universe coordinates of the top-left visible cell (unbounded mode only).
+    private int originX;
+    private int originY;
+    private Point panStart;
+    private int panStartOriginX;
+    private int panStartOriginY;
 
     // Default pixel size per Cell.
     private int cellSize = 20;
     private boolean showGridLines = true;
+    private final CellRenderer renderer = new CellRenderer();
 
     // Limits
     private static final int MIN_CELL_SIZE = 2;
@@ -37,12 +58,25 @@ public class GamePanel extends JPanel implements PropertyChangeListener {
         MouseAdapter mouseHandler = new MouseAdapter() {
             @Override
             public void mousePressed(MouseEvent e) {
-                GamePanel.this.handleMouseClick(e);
+                if (GamePanel.this.isPanGesture(e)) {
+                    GamePanel.this.startPan(e);
+                } else {
+                    GamePanel.this.handleMouseClick(e);
+                }
             }
 
             @Override
             public void mouseDragged(MouseEvent e) {
-                GamePanel.this.handleMouseClick(e);
+                if (GamePanel.this.panStart != null) {
+                    GamePanel.this.pan(e);
+                } else {
+                    GamePanel.this.handleMouseClick(e);
+                }
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                GamePanel.this.panStart = null;
             }
 
             @Override
@@ -57,6 +91,10 @@ public class GamePanel extends JPanel implements PropertyChangeListener {
                     } else {
                         GamePanel.this.zoomOut();
                     }
+                } else if (GamePanel.this.universe != null) {
+                    // Nothing to scroll: the universe is panned instead.
+                    GamePanel.this.originY += e.getWheelRotation() * 3;
+                    GamePanel.this.repaint();
                 } else {
                     // Propagate to parent (ScrollPane)
                     GamePanel.this.getParent().dispatchEvent(e);
@@ -89,22 +127,55 @@ public class GamePanel extends JPanel implements PropertyChangeListener {
 
     /**
      * Set the model to observe. Usually called during initialization.
+     *
+     * @param notifier Relays the events of the model, with snapshots of its grid or universe.
      */
-    public void setModel(GameModel model) {
-        this.grid = model.getGrid();
-        model.addPropertyChangeListener(this);
+    public void setModel(CoalescingNotifier notifier) {
+        this.grid = notifier.getGrid();
+        this.universe = notifier.getUniverse();
+        notifier.addPropertyChangeListener(this);
         this.updatePreferredSize();
     }
 
     private void updatePreferredSize() {
-        if (this.grid != null) {
+        if (this.universe == null && this.grid != null) {
             int width = this.grid.getWidth() * this.cellSize;
             int height = this.grid.getHeight() * this.cellSize;
             this.setPreferredSize(new Dimension(width, height));
         }
     }
 
+    private boolean isPanGesture(MouseEvent e) {
+        return this.universe != null && (SwingUtilities.isRightMouseButton(e) || SwingUtilities.isMiddleMouseButton(e));
+    }
+
+    private void startPan(MouseEvent e) {
+        this.panStart = e.getPoint();
+        this.panStartOriginX = this.originX;
+        this.panStartOriginY = this.originY;
+    }
+
+    private void pan(MouseEvent e) {
+        this.originX = this.panStartOriginX - Math.floorDiv(e.getX() - this.panStart.x, this.cellSize);
+        this.originY = this.panStartOriginY - Math.floorDiv(e.getY() - this.panStart.y, this.cellSize);
+        this.repaint();
+    }
+
+    /**
+     * Centers the view of an unbounded universe on a cell.
+     */
+    public void centerOn(int x, int y) {
+        this.originX = x - this.getWidth() / this.cellSize / 2;
+        this.originY = y - this.getHeight() / this.cellSize / 2;
+        this.repaint();
+    }
+
     private void handleMouseClick(MouseEvent e) {
+        if (this.universe != null) {
+            this.controller.onCellClicked(this.originX + Math.floorDiv(e.getX(), this.cellSize),
+                    this.originY + Math.floorDiv(e.getY(), this.cellSize));
+            return;
+        }
         if (this.grid == null) {
             return;
         }
@@ -126,6 +197,10 @@ public class GamePanel extends JPanel implements PropertyChangeListener {
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
 
+        if (this.universe != null) {
+            this.paintUniverse((Graphics2D) g);
+            return;
+        }
         if (this.grid == null) {
             return;
         }
@@ -136,59 +211,122 @@ public class GamePanel extends JPanel implements PropertyChangeListener {
         int height = this.grid.getHeight();
 
         Rectangle clip = g.getClipBounds();
-
-        int startX = 0;
-        int startY = 0;
-        int endX = width;
-        int endY = height;
-
-        if (clip != null) {
-            startX = Math.max(0, clip.x / this.cellSize);
-            startY = Math.max(0, clip.y / this.cellSize);
-            endX = Math.min(width, (clip.x + clip.width) / this.cellSize + 1);
-            endY = Math.min(height, (clip.y + clip.height) / this.cellSize + 1);
+        if (clip == null) {
+            // The cell image covers what is painted: never more than what can be seen.
+            clip = this.getVisibleRect();
         }
 
-        g2d.setColor(Color.GREEN);
+        int startX = Math.max(0, clip.x / this.cellSize);
+        int startY = Math.max(0, clip.y / this.cellSize);
+        int endX = Math.min(width, (clip.x + clip.width) / this.cellSize + 1);
+        int endY = Math.min(height, (clip.y + clip.height) / this.cellSize + 1);
 
-        for (int y = startY; y < endY; y++) {
-            for (int x = startX; x < endX; x++) {
-                if (this.grid.getCell(x, y).isAlive()) {
-                    g2d.fillRect(x * this.cellSize, y * this.cellSize, this.cellSize, this.cellSize);
-                }
-            }
-        }
+        GridSnapshot current = this.grid;
+        this.renderer.paint(g2d, (wordX, y) -> current.getWord(y, wordX), startX, startY, endX - startX,
+                endY - startY, startX * this.cellSize, startY * this.cellSize, this.cellSize,
+                this.showGridLines && this.cellSize > 2);
+    }
 
-        if (this.showGridLines && this.cellSize > 2) {
-            g2d.setColor(Color.DARK_GRAY);
-            // Draw grid lines only in visible area
-            for (int y = startY; y <= endY; y++) {
-                g2d.drawLine(startX * this.cellSize, y * this.cellSize, endX * this.cellSize, y * this.cellSize);
-            }
-            for (int x = startX; x <= endX; x++) {
-                g2d.drawLine(x * this.cellSize, startY * this.cellSize, x * this.cellSize, endY * this.cellSize);
-            }
+    /**
+     * Renders the visible window of the unbounded universe.
+     */
+    private void paintUniverse(Graphics2D g2d) {
+        Rectangle clip = g2d.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, this.getWidth(), this.getHeight());
         }
+        int startX = clip.x / this.cellSize;
+        int startY = clip.y / this.cellSize;
+        int endX = (clip.x + clip.width) / this.cellSize + 1;
+        int endY = (clip.y + clip.height) / this.cellSize + 1;
+
+        UniverseSnapshot current = this.universe;
+        this.renderer.paint(g2d, current::getWord, this.originX + startX, this.originY + startY, endX - startX,
+                endY - startY, startX * this.cellSize, startY * this.cellSize, this.cellSize,
+                this.showGridLines && this.cellSize > 2);
     }
 
     @Override
     public void propertyChange(PropertyChangeEvent evt) {
-        if ("grid".equals(evt.getPropertyName())) {
-            Grid newGrid = (Grid) evt.getNewValue();
+        if ("universe".equals(evt.getPropertyName())) {
+            boolean wasBounded = this.universe == null;
+            this.universe = (UniverseSnapshot) evt.getNewValue();
+            if (wasBounded) {
+                this.centerOn(0, 0);
+            }
+            this.repaint();
+        } else if ("grid".equals(evt.getPropertyName())) {
+            GridSnapshot newGrid = (GridSnapshot) evt.getNewValue();
 
             if (newGrid != null) {
+                // The previous snapshot went back to the pool and may already be overwritten: compare sizes instead.
+                Dimension oldSize = this.getPreferredSize();
+                boolean wasUnbounded = this.universe != null;
                 this.grid = newGrid;
-
+                this.universe = null;
                 this.updatePreferredSize();
-                this.revalidate();
-                this.repaint();
+
+                if (wasUnbounded || !oldSize.equals(this.getPreferredSize())) {
+                    this.revalidate();
+                    this.repaint();
+                } else {
+                    this.repaintCells(newGrid.getChangedBounds());
+                }
             }
         }
     }
 
+    /**
+     * Repaints the screen area of some cells.
+     *
+     * @param bounds The cells, or null for the whole grid.
+     */
+    private void repaintCells(CellBounds bounds) {
+        if (bounds == null) {
+            this.repaint();
+        } else if (!bounds.isEmpty()) {
+            int size = this.cellSize;
+            // One more pixel for the grid line on the right and bottom.
+            this.repaint(bounds.x() * size, bounds.y() * size, bounds.width() * size + 1,
+                    bounds.height() * size + 1);
+        }
+    }
+
     public void setCellSize(int size) {
         this.cellSize = size;
         this.updatePreferredSize();
         this.repaint();
     }
+
+    public boolean isUnbounded() {
+        return this.universe != null;
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return this.getPreferredSize();
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return this.cellSize;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.HORIZONTAL ? visibleRect.width : visibleRect.height;
+    }
+
+    /**
+     * An unbounded universe has no size of its own: the panel follows the viewport.
+     */
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return this.universe != null;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return this.universe != null;
+    }
 }
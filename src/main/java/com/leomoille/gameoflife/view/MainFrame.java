@@ -1,6 +1,7 @@
 package com.leomoille.gameoflife.view;
 
 import com.leomoille.gameoflife.controller.GameController;
+import com.leomoille.gameoflife.model.BoundaryMode;
 import com.leomoille.gameoflife.model.GameModel;
 import com.leomoille.gameoflife.model.RuleStrategy;
 
@@ -16,8 +17,9 @@ import java.awt.*;
  */
 public class MainFrame extends JFrame implements GameView {
 
-    private final GameModel model;
     private final GameController controller;
+    // Relays the model's events to the panels on the EDT, once per frame at most.
+    private final CoalescingNotifier notifier;
 
     private CardLayout cardLayout;
     private JPanel cardsPanel;
@@ -25,13 +27,17 @@ public class MainFrame extends JFrame implements GameView {
     private MenuPanel menuPanel;
     // Holds ScrollPane + Controls
     private JPanel gameContainerPanel;
+    private GamePanel gamePanel;
+    // Centers a bounded grid inside the scroll pane
+    private JPanel wrapperPanel;
+    private JScrollPane scrollPane;
 
     private static final String MENU_VIEW = "MENU";
     private static final String GAME_VIEW = "GAME";
 
     public MainFrame(GameController controller, GameModel model) {
         this.controller = controller;
-        this.model = model;
+        this.notifier = new CoalescingNotifier(model);
         this.initUI();
     }
 
@@ -61,19 +67,19 @@ public class MainFrame extends JFrame implements GameView {
         JPanel mainPanel = new JPanel(new BorderLayout());
 
         // Game Panel
-        GamePanel gamePanel = new GamePanel(this.controller);
-        gamePanel.setModel(this.model);
+        this.gamePanel = new GamePanel(this.controller);
+        this.gamePanel.setModel(this.notifier);
 
-        JPanel wrapperPanel = new JPanel(new GridBagLayout());
-        wrapperPanel.setBackground(Color.DARK_GRAY); // Background for empty space
-        wrapperPanel.add(gamePanel); // Centered by default in GridBag
+        this.wrapperPanel = new JPanel(new GridBagLayout());
+        this.wrapperPanel.setBackground(Color.DARK_GRAY); // Background for empty space
+        this.wrapperPanel.add(this.gamePanel); // Centered by default in GridBag
 
-        JScrollPane scrollPane = new JScrollPane(wrapperPanel);
-        scrollPane.setBorder(null); // Optional: clean look
+        this.scrollPane = new JScrollPane(this.wrapperPanel);
+        this.scrollPane.setBorder(null); // Optional: clean look
 
         // Control Panel
         ControlPanel controlPanel = new ControlPanel(this.controller);
-        controlPanel.setModel(this.model);
+        controlPanel.setModel(this.notifier);
 
         JButton backButton = new JButton("Menu");
         backButton.addActionListener(e -> this.showMenu());
@@ -82,18 +88,41 @@ public class MainFrame extends JFrame implements GameView {
         bottomPanel.add(controlPanel, BorderLayout.CENTER);
         bottomPanel.add(backButton, BorderLayout.WEST);
 
-        mainPanel.add(scrollPane, BorderLayout.CENTER);
+        mainPanel.add(this.scrollPane, BorderLayout.CENTER);
         mainPanel.add(bottomPanel, BorderLayout.SOUTH);
 
         return mainPanel;
     }
 
-    public void showGame(int width, int height, RuleStrategy rule) {
+    public void showGame(int width, int height, RuleStrategy rule, BoundaryMode boundaryMode) {
         this.controller.pauseGame(); // Safety
+        this.controller.setUnbounded(false);
         this.controller.onResizeGrid(width, height);
         this.controller.changeRule(rule);
+        this.controller.setBoundaryMode(boundaryMode);
 
+        // The grid is centered in the wrapper, which scrolls when larger than the window.
+        if (this.gamePanel.getParent() != this.wrapperPanel) {
+            this.wrapperPanel.add(this.gamePanel);
+            this.scrollPane.setViewportView(this.wrapperPanel);
+        }
+
+        this.cardLayout.show(this.cardsPanel, GAME_VIEW);
+    }
+
+    /**
+     * Shows an unbounded universe, which the game panel pans over instead of scrolling.
+     *
+     * @throws IllegalArgumentException if the rule has birth on 0 neighbors.
+     */
+    public void showUnboundedGame(RuleStrategy rule) {
+        this.controller.pauseGame();
+        this.controller.changeRule(rule);
+        this.controller.setUnbounded(true);
+
+        this.scrollPane.setViewportView(this.gamePanel);
         this.cardLayout.show(this.cardsPanel, GAME_VIEW);
+        SwingUtilities.invokeLater(() -> this.gamePanel.centerOn(0, 0));
     }
 
     public void showMenu() {
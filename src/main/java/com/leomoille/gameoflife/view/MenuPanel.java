@@ -1,7 +1,9 @@
 package com.leomoille.gameoflife.view;
 
+import com.leomoille.gameoflife.model.BoundaryMode;
 import com.leomoille.gameoflife.model.ConwayRules;
 import com.leomoille.gameoflife.model.HighLifeRules;
+import com.leomoille.gameoflife.model.LifeLikeRule;
 import com.leomoille.gameoflife.model.RuleStrategy;
 
 import javax.swing.*;
@@ -11,12 +13,18 @@ import java.awt.event.ItemEvent;
 /**
  * The introductory menu panel.
  * Allows the user to select the grid size and game rules before starting.
+ * Rules can also be typed in B/S notation (e.g. "B36/S23").
+ * The edges of a bounded grid can be dead, wrap around (torus) or mirror the border.
  */
 public class MenuPanel extends JPanel {
+    // Marks the size item of the unbounded universe
+    private static final int UNBOUNDED = -2;
+
     private final MainFrame mainFrame;
 
-    private JComboBox<RuleItem> rulesComboBox;
+    private JComboBox<Object> rulesComboBox;
     private JComboBox<SizeItem> sizeComboBox;
+    private JComboBox<BoundaryMode> boundaryComboBox;
 
     private JPanel customSizePanel;
     private JTextField widthField;
@@ -52,6 +60,12 @@ public class MenuPanel extends JPanel {
         this.rulesComboBox = new JComboBox<>();
         this.rulesComboBox.addItem(new RuleItem(new ConwayRules()));
         this.rulesComboBox.addItem(new RuleItem(new HighLifeRules()));
+        this.rulesComboBox.addItem(new RuleItem(new LifeLikeRule("B2/S", "Seeds (B2/S)")));
+        this.rulesComboBox.addItem(new RuleItem(new LifeLikeRule("B3678/S34678", "Day & Night (B3678/S34678)")));
+        this.rulesComboBox.addItem(new RuleItem(new LifeLikeRule("B3/S12345", "Maze (B3/S12345)")));
+        // Any other rule can be typed in B/S notation
+        this.rulesComboBox.setEditable(true);
+        this.rulesComboBox.setToolTipText("Pick a rule or type one in B/S notation, e.g. B36/S23");
         gbc.gridx = 1;
         this.add(this.rulesComboBox, gbc);
 
@@ -65,6 +79,7 @@ public class MenuPanel extends JPanel {
         this.sizeComboBox.addItem(new SizeItem("Medium (100x100)", 100, 100));
         this.sizeComboBox.addItem(new SizeItem("Large (200x200)", 200, 200));
         this.sizeComboBox.addItem(new SizeItem("Custom...", -1, -1)); // Special item
+        this.sizeComboBox.addItem(new SizeItem("Unbounded", UNBOUNDED, UNBOUNDED)); // Special item
 
         this.sizeComboBox.addItemListener(e -> {
             if (e.getStateChange() == ItemEvent.SELECTED) {
@@ -92,12 +107,22 @@ public class MenuPanel extends JPanel {
         gbc.gridy = 3;
         this.add(this.customSizePanel, gbc);
 
+        // Boundary Selection
+        gbc.gridx = 0;
+        gbc.gridy = 4;
+        this.add(new JLabel("Edges:"), gbc);
+
+        this.boundaryComboBox = new JComboBox<>(BoundaryMode.values());
+        this.boundaryComboBox.setToolTipText("What lies beyond the edges of a bounded grid");
+        gbc.gridx = 1;
+        this.add(this.boundaryComboBox, gbc);
+
         // Start Button
         JButton startButton = new JButton("Start Game");
         startButton.setFont(new Font("SansSerif", Font.BOLD, 18));
         startButton.addActionListener(e -> this.startGame());
         gbc.gridx = 0;
-        gbc.gridy = 4;
+        gbc.gridy = 5;
         gbc.gridwidth = 2;
         gbc.fill = GridBagConstraints.NONE;
         gbc.anchor = GridBagConstraints.CENTER;
@@ -106,17 +131,26 @@ public class MenuPanel extends JPanel {
         // Exit Button
         JButton exitButton = new JButton("Exit");
         exitButton.addActionListener(e -> System.exit(0));
-        gbc.gridy = 5;
+        gbc.gridy = 6;
         this.add(exitButton, gbc);
     }
 
     private void startGame() {
-        RuleItem selectedRule = (RuleItem) this.rulesComboBox.getSelectedItem();
+        RuleStrategy selectedRule = this.getSelectedRule();
         SizeItem selectedSize = (SizeItem) this.sizeComboBox.getSelectedItem();
 
         if (selectedRule == null || selectedSize == null)
             return;
 
+        if (selectedSize.width == UNBOUNDED) {
+            try {
+                this.mainFrame.showUnboundedGame(selectedRule);
+            } catch (IllegalArgumentException e) {
+                JOptionPane.showMessageDialog(this, e.getMessage(), "Invalid Rule", JOptionPane.ERROR_MESSAGE);
+            }
+            return;
+        }
+
         int width, height;
 
         if (selectedSize.width == -1) {
@@ -136,7 +170,29 @@ public class MenuPanel extends JPanel {
             height = selectedSize.height;
         }
 
-        this.mainFrame.showGame(width, height, selectedRule.strategy);
+        this.mainFrame.showGame(width, height, selectedRule,
+                (BoundaryMode) this.boundaryComboBox.getSelectedItem());
+    }
+
+    /**
+     * Gets the selected preset, or parses the rule typed in the combo box.
+     *
+     * @return the rule, or null if the typed rule is invalid (an error is shown).
+     */
+    private RuleStrategy getSelectedRule() {
+        Object selected = this.rulesComboBox.getSelectedItem();
+        if (selected instanceof RuleItem item) {
+            return item.strategy;
+        }
+        if (selected == null || selected.toString().isBlank()) {
+            return null;
+        }
+        try {
+            return new LifeLikeRule(selected.toString());
+        } catch (IllegalArgumentException e) {
+            JOptionPane.showMessageDialog(this, e.getMessage(), "Invalid Rule", JOptionPane.ERROR_MESSAGE);
+            return null;
+        }
     }
 
     // Helper classes for ComboBox items
@@ -4,6 +4,11 @@ import com.leomoille.gameoflife.model.*;
 import com.leomoille.gameoflife.view.GameView;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -117,6 +122,39 @@ class GameControllerTest {
         assertFalse(this.engine.isRunning());
     }
 
+    @Test
+    void testStepComputesOneGeneration() {
+        this.controller.step();
+        this.controller.step();
+
+        assertEquals(2, this.model.getGeneration());
+        assertFalse(this.engine.isRunning(), "Stepping should leave the engine paused");
+    }
+
+    @Test
+    void testAdvanceComputesExactlyNGenerations() {
+        this.engine.setSpeed(500); // Advancing ignores the speed
+
+        this.controller.advance(250);
+
+        this.awaitCondition(() -> !this.engine.isRunning(), 5000, "Engine failed to stop after advancing");
+        assertEquals(250, this.model.getGeneration());
+    }
+
+    @Test
+    void testUnthrottledRunsFasterThanTheSpeed() throws InterruptedException {
+        this.engine.setSpeed(500);
+        this.controller.setUnthrottled(true);
+
+        this.controller.startGame();
+        this.awaitCondition(() -> this.model.getGeneration() >= 100, 2000, "Unthrottled engine too slow");
+        this.controller.pauseGame();
+
+        int paused = this.model.getGeneration();
+        Thread.sleep(50);
+        assertEquals(paused, this.model.getGeneration(), "Pausing should wait for the last generation");
+    }
+
     @Test
     void testRandomize() {
         this.controller.randomize();
@@ -149,4 +187,92 @@ class GameControllerTest {
         assertFalse(this.model.getGrid().getCell(5, 5).isAlive(), "Cell should be dead after second click");
         assertTrue(this.mockView.refreshCalled, "View should be refreshed after second click");
     }
+
+    @Test
+    void testBirthOnZeroRulesAreRejectedWhenUnbounded() {
+        RuleStrategy birthOnZero = new LifeLikeRule("B0/S8");
+        this.controller.changeRule(birthOnZero);
+
+        assertThrows(IllegalArgumentException.class, () -> this.controller.setUnbounded(true));
+        assertFalse(this.model.isUnbounded(), "The model should stay bounded");
+
+        this.controller.changeRule(new ConwayRules());
+        this.controller.setUnbounded(true);
+        assertThrows(IllegalArgumentException.class, () -> this.controller.changeRule(birthOnZero));
+        assertInstanceOf(ConwayRules.class, this.model.getRuleStrategy(), "The rule should be unchanged");
+    }
+
+    @Test
+    void testRuleAndBoundaryChangesApplyDuringARun() {
+        this.model.randomize(0.3);
+        this.engine.setUnthrottled(true);
+        this.controller.startGame();
+        try {
+            this.controller.changeRule(new HighLifeRules());
+            this.controller.setBoundaryMode(BoundaryMode.TORUS);
+            this.awaitCondition(() -> this.model.getRuleStrategy() instanceof HighLifeRules
+                    && this.model.getBoundaryMode() == BoundaryMode.TORUS, 1000,
+                    "The changes should be applied between two generations");
+            assertTrue(this.engine.isRunning(), "The simulation should go on");
+        } finally {
+            this.controller.pauseGame();
+        }
+    }
+
+    @Test
+    void testEditsDuringARunAreAppliedByTheEngine() {
+        String[] appliedBy = new String[1];
+        this.controller.startGame();
+        try {
+            this.awaitCondition(() -> this.model.getGeneration() > 0, 1000, "Engine failed to start");
+            this.model.submit(m -> appliedBy[0] = Thread.currentThread().getName());
+            this.awaitCondition(() -> appliedBy[0] != null, 1000, "The edit should be applied during the run");
+            assertEquals("game-loop", appliedBy[0], "The engine thread should apply the edit");
+        } finally {
+            this.controller.pauseGame();
+        }
+    }
+
+    @Test
+    void testPatternsOpenDuringARun(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("block.rle");
+        Files.writeString(file, "x = 2, y = 2, rule = B36/S23\n2o$2o!\n");
+        this.controller.startGame();
+        try {
+            this.controller.openPattern(file);
+            this.awaitCondition(() -> this.model.getRuleStrategy() instanceof LifeLikeRule, 1000,
+                    "The pattern should be loaded between two generations");
+            assertTrue(this.engine.isRunning(), "The simulation should go on");
+        } finally {
+            this.controller.pauseGame();
+        }
+        assertEquals(4, this.model.getGrid().getPopulation(), "A block should stay a block");
+    }
+
+    @Test
+    void testEngineStopsWhenAGenerationFails() {
+        this.controller.changeRule(new RuleStrategy() {
+            @Override
+            public CellState computeNextState(Grid grid, int x, int y) {
+                throw new IllegalStateException("Broken rule");
+            }
+
+            @Override
+            public String getName() {
+                return "Broken";
+            }
+        });
+
+        Thread.UncaughtExceptionHandler handler = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler((thread, e) -> {
+            // Expected on the engine thread.
+        });
+        try {
+            this.controller.startGame();
+            this.awaitCondition(() -> !this.engine.isRunning(), 1000, "The engine should stop when a generation fails");
+        } finally {
+            this.controller.pauseGame();
+            Thread.setDefaultUncaughtExceptionHandler(handler);
+        }
+    }
 }
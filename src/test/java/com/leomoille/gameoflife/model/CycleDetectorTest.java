@@ -0,0 +1,107 @@
+package com.leomoille.gameoflife.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CycleDetectorTest {
+
+    private static GameModel modelWith(int size, int[][] cells) {
+        GameModel model = new GameModel(size, size);
+        model.setCycleDetection(true);
+        for (int[] cell : cells) {
+            model.toggleCell(cell[0], cell[1]);
+        }
+        return model;
+    }
+
+    @Test
+    void testBlockIsAStillLife() {
+        GameModel model = modelWith(10, new int[][]{{4, 4}, {5, 4}, {4, 5}, {5, 5}});
+        model.nextGeneration();
+
+        assertEquals(1, model.getCycleDetector().getPeriod());
+        assertFalse(model.getCycleDetector().isExtinct());
+    }
+
+    @Test
+    void testBlinkerHasPeriodTwo() {
+        GameModel model = modelWith(10, new int[][]{{3, 4}, {4, 4}, {5, 4}});
+        model.nextGeneration();
+        assertEquals(0, model.getCycleDetector().getPeriod());
+        model.nextGeneration();
+
+        assertEquals(2, model.getCycleDetector().getPeriod());
+        assertEquals(0, model.getCycleDetector().getCycleStart());
+    }
+
+    @Test
+    void testGliderOnATorusHasPeriodOfItsLap() {
+        GameModel model = modelWith(16, new int[][]{{1, 0}, {2, 1}, {0, 2}, {1, 2}, {2, 2}});
+        model.setBoundaryMode(BoundaryMode.TORUS);
+        for (int i = 0; i < 64; i++) {
+            assertEquals(0, model.getCycleDetector().getPeriod(), "Generation " + model.getGeneration());
+            model.nextGeneration();
+        }
+
+        // A glider moves one cell diagonally every 4 generations.
+        assertEquals(64, model.getCycleDetector().getPeriod());
+    }
+
+    @Test
+    void testDyingGridIsExtinct() {
+        GameModel model = modelWith(10, new int[][]{{4, 4}, {6, 6}});
+        List<Object> events = new ArrayList<>();
+        model.addPropertyChangeListener(evt -> {
+            if ("cycle".equals(evt.getPropertyName())) {
+                events.add(evt.getNewValue());
+            }
+        });
+        model.nextGeneration();
+
+        assertTrue(model.getCycleDetector().isExtinct());
+        assertEquals(1, model.getCycleDetector().getPeriod());
+        assertEquals(List.of(1), events);
+
+        model.toggleCell(1, 1);
+        assertEquals(0, model.getCycleDetector().getPeriod());
+        assertEquals(List.of(1, 0), events);
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void testIncrementalHashMatchesFullHash(boolean offHeap) {
+        GameModel model = new GameModel(700, 300, offHeap);
+        model.setCycleDetection(true);
+        model.setParallelism(4);
+        model.setSequentialCutoff(0);
+        model.setBoundaryMode(BoundaryMode.TORUS);
+        model.randomize(0.4, 9L);
+        for (int i = 0; i < 30; i++) {
+            model.nextGeneration();
+        }
+
+        assertEquals(CycleDetector.hash(model.getGrid()), model.getCycleDetector().getHash());
+        model.shutdown();
+    }
+
+    @Test
+    void testEngineStopsOnCycle() throws InterruptedException {
+        GameModel model = modelWith(10, new int[][]{{3, 4}, {4, 4}, {5, 4}});
+        GameEngine engine = new GameEngine(model);
+        engine.setSpeed(0);
+        engine.setStopOnCycle(true);
+        engine.start();
+        for (int i = 0; i < 200 && engine.isRunning(); i++) {
+            Thread.sleep(10);
+        }
+
+        assertFalse(engine.isRunning());
+        assertEquals(2, model.getCycleDetector().getPeriod());
+    }
+}
@@ -0,0 +1,510 @@
+package com.leomoille.gameoflife.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class GameModelTest {
+
+    @Test
+    void testBlinkerOscillates() {
+        GameModel model = new GameModel(5, 5);
+        model.getGrid().setCell(1, 2, CellState.ALIVE);
+        model.getGrid().setCell(2, 2, CellState.ALIVE);
+        model.getGrid().setCell(3, 2, CellState.ALIVE);
+
+        model.nextGeneration();
+
+        assertTrue(model.getGrid().isAlive(2, 1));
+        assertTrue(model.getGrid().isAlive(2, 2));
+        assertTrue(model.getGrid().isAlive(2, 3));
+        assertEquals(3, model.getGrid().getPopulation());
+
+        model.nextGeneration();
+
+        assertTrue(model.getGrid().isAlive(1, 2));
+        assertTrue(model.getGrid().isAlive(3, 2));
+        assertEquals(3, model.getGrid().getPopulation());
+        assertEquals(2, model.getGeneration());
+    }
+
+    @Test
+    void testBuffersAreSwappedNotReallocated() {
+        GameModel model = new GameModel(8, 8);
+        Grid first = model.getGrid();
+
+        model.nextGeneration();
+        Grid second = model.getGrid();
+        model.nextGeneration();
+
+        assertNotSame(first, second, "Each generation should be written to the back buffer");
+        assertSame(first, model.getGrid(), "Buffers should be reused after two generations");
+    }
+
+    @Test
+    void testAdvanceNotifiesOnce() {
+        GameModel model = new GameModel(5, 5);
+        model.getGrid().setCell(1, 2, CellState.ALIVE);
+        model.getGrid().setCell(2, 2, CellState.ALIVE);
+        model.getGrid().setCell(3, 2, CellState.ALIVE);
+        java.util.List<java.beans.PropertyChangeEvent> events = new java.util.ArrayList<>();
+        model.addPropertyChangeListener(events::add);
+
+        model.advance(5);
+
+        assertEquals(5, model.getGeneration());
+        assertTrue(model.getGrid().isAlive(2, 1), "Five generations of a blinker should leave it vertical");
+        assertEquals(2, events.size(), "One grid and one generation event expected");
+        java.beans.PropertyChangeEvent generation = events.get(1);
+        assertEquals("generation", generation.getPropertyName());
+        assertEquals(0, generation.getOldValue());
+        assertEquals(5, generation.getNewValue());
+        assertSame(model.getGrid(), events.get(0).getNewValue());
+
+        model.advance(0);
+        assertEquals(2, events.size(), "Nothing computed, nothing notified");
+    }
+
+    @Test
+    void testChangedBoundsCoverOnlyMovingCells() {
+        GameModel model = new GameModel(512, 512);
+        java.util.List<CellBounds> published = new java.util.ArrayList<>();
+        model.addPropertyChangeListener(evt -> {
+            if ("grid".equals(evt.getPropertyName())) {
+                published.add(model.getChangedBounds());
+            }
+        });
+        // Glider heading down-right, in the tile of columns 256-319 and rows 128-191
+        int[][] glider = {{1, 0}, {2, 1}, {0, 2}, {1, 2}, {2, 2}};
+        for (int[] cell : glider) {
+            model.getGrid().setCell(300 + cell[0], 150 + cell[1], CellState.ALIVE);
+        }
+
+        model.nextGeneration();
+        model.nextGeneration();
+
+        assertEquals(new CellBounds(256, 128, 64, 64), published.get(0), "First tick recomputes every tile");
+        assertEquals(new CellBounds(256, 128, 64, 64), published.get(1));
+
+        model.toggleCell(10, 10);
+        assertEquals(new CellBounds(10, 10, 1, 1), published.get(2));
+        model.advance(4);
+        assertEquals(new CellBounds(0, 0, 320, 192), published.get(3),
+                "A batch covers the dying cell and the glider");
+
+        model.randomize(0.0);
+        assertNull(published.get(4), "Edits may change any cell");
+
+        model.advance(3);
+        assertTrue(published.get(5).isEmpty(), "Nothing changed on an empty grid");
+    }
+
+    @Test
+    void testEditsSubmittedDuringARunAreNeverLost() throws InterruptedException {
+        GameModel model = new GameModel(256, 256);
+        // Nothing is born and nothing dies: every toggled cell stays.
+        model.setRuleStrategy(new LifeLikeRule("B/S012345678"));
+        Thread engine = new Thread(() -> {
+            for (int i = 0; i < 2000; i++) {
+                model.nextGeneration();
+            }
+        });
+        Thread[] editors = new Thread[4];
+        for (int t = 0; t < editors.length; t++) {
+            int row = t;
+            editors[t] = new Thread(() -> {
+                for (int x = 0; x < 256; x++) {
+                    int column = x;
+                    model.submit(m -> m.toggleCell(column, row * 64));
+                }
+            });
+        }
+
+        engine.start();
+        for (Thread editor : editors) {
+            editor.start();
+        }
+        engine.join();
+        for (Thread editor : editors) {
+            editor.join();
+        }
+
+        assertEquals(4 * 256, model.getGrid().getPopulation());
+        assertEquals(2000, model.getGeneration());
+    }
+
+    @Test
+    void testEditBetweenGenerationsReportsTheUnnotifiedChanges() {
+        GameModel model = new GameModel(192, 192);
+        // A glider heading south-east, across the tile boundaries at x = 64 and y = 64.
+        model.getGrid().setAlive(51, 50, true);
+        model.getGrid().setAlive(52, 51, true);
+        model.getGrid().setAlive(50, 52, true);
+        model.getGrid().setAlive(51, 52, true);
+        model.getGrid().setAlive(52, 52, true);
+        GridSnapshotPool pool = new GridSnapshotPool();
+        pool.publish(model.getGrid(), 0, null);
+        pool.take();
+        model.addPropertyChangeListener(evt -> {
+            if ("grid".equals(evt.getPropertyName())) {
+                pool.publish(model.getGrid(), model.getGeneration(), model.getChangedBounds());
+            }
+        });
+
+        model.attach();
+        try {
+            for (int i = 0; i < 60; i++) {
+                // As the engine thread does, with an edit submitted meanwhile applied in between.
+                model.computeGeneration();
+                model.toggleCell(5, 5);
+                if (i % 3 == 0) {
+                    model.notifyAdvanced();
+                }
+                GridSnapshot snapshot = pool.take();
+                for (int y = 0; y < 192; y++) {
+                    for (int x = 0; x < 192; x++) {
+                        assertEquals(model.getGrid().isAlive(x, y), snapshot.isAlive(x, y),
+                                "Cell (" + x + ", " + y + ") at generation " + model.getGeneration());
+                    }
+                }
+            }
+        } finally {
+            model.detach();
+        }
+    }
+
+    @Test
+    void testSubmittedEditsApplyInOrderAtOnceWhenIdle() {
+        GameModel model = new GameModel(8, 8);
+
+        model.submit(m -> m.toggleCell(3, 3));
+        assertTrue(model.getGrid().isAlive(3, 3), "An idle model should be edited at once");
+
+        model.submit(m -> {
+            m.toggleCell(4, 4);
+            // Queued by the edit itself, applied after it
+            m.submit(n -> n.toggleCell(4, 4));
+            assertTrue(m.getGrid().isAlive(4, 4));
+        });
+        assertFalse(model.getGrid().isAlive(4, 4), "Both toggles should have been applied, in order");
+    }
+
+    @Test
+    void testSubmittedEditsAreOnlyQueuedWhileTheModelIsAttached() throws InterruptedException {
+        GameModel model = new GameModel(8, 8);
+        model.attach();
+        try {
+            Thread editor = new Thread(() -> model.submit(m -> m.toggleCell(3, 3)));
+            editor.start();
+            editor.join(1000);
+            assertFalse(editor.isAlive(), "Submitting should not wait for the model");
+            assertFalse(model.getGrid().isAlive(3, 3), "The edit should wait for the attached thread");
+
+            model.computeGeneration();
+            assertEquals(1, model.getGeneration());
+            // A lone cell dies: the toggle was applied before the generation.
+            assertFalse(model.getGrid().isAlive(3, 3));
+
+            model.submit(m -> m.toggleCell(5, 5));
+            assertFalse(model.getGrid().isAlive(5, 5), "The attached thread should apply its own edits later");
+        } finally {
+            model.detach();
+        }
+        assertTrue(model.getGrid().isAlive(5, 5), "Detaching should apply the queued edits");
+    }
+
+    @Test
+    void testSteadyStateTickAllocatesNothing() {
+        var threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threadBean.isThreadAllocatedMemorySupported() && threadBean.isThreadAllocatedMemoryEnabled(),
+                "Thread allocation tracking unavailable");
+
+        GameModel model = new GameModel(100, 100);
+        model.randomize(0.3);
+
+        // Warm up so that the measurement is not polluted by class loading or JIT compilation.
+        for (int i = 0; i < 2_000; i++) {
+            model.nextGeneration();
+        }
+
+        long before = threadBean.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 100; i++) {
+            model.nextGeneration();
+        }
+        long allocated = threadBean.getCurrentThreadAllocatedBytes() - before;
+
+        assertEquals(0, allocated, "Steady-state ticks should not allocate");
+    }
+
+    @Test
+    void testParallelSteppingMatchesSequential() {
+        GameModel sequential = new GameModel(300, 200);
+        GameModel parallel = new GameModel(300, 200);
+        sequential.setParallelism(1);
+        parallel.setParallelism(4);
+        parallel.setSequentialCutoff(0);
+
+        sequential.randomize(0.35);
+        copyGrid(sequential.getGrid(), parallel.getGrid());
+
+        try {
+            for (int i = 0; i < 20; i++) {
+                sequential.nextGeneration();
+                parallel.nextGeneration();
+            }
+            assertGridEquals(sequential.getGrid(), parallel.getGrid());
+        } finally {
+            parallel.shutdown();
+        }
+    }
+
+    @Test
+    void testStableAreasAreSkipped() {
+        GameModel model = new GameModel(256, 256);
+        placeGlider(model.getGrid(), 100, 100);
+
+        model.nextGeneration();
+        assertEquals(0, model.getSkippedTiles(), "The first generation recomputes every tile");
+
+        model.nextGeneration();
+        assertEquals(16, model.getTileCount());
+        assertEquals(7, model.getSkippedTiles(), "Only the glider's tile and its neighbors should be recomputed");
+    }
+
+    @Test
+    void testTileTrackingMatchesFullRecomputation() {
+        GameModel model = new GameModel(200, 150);
+        model.randomize(0.3);
+        Grid expected = new Grid(200, 150);
+        copyGrid(model.getGrid(), expected);
+
+        for (int i = 0; i < 60; i++) {
+            if (i == 30) {
+                // Edits on a stable board must wake up the affected tiles.
+                placeGlider(model.getGrid(), 150, 20);
+                placeGlider(expected, 150, 20);
+            }
+            model.nextGeneration();
+            expected = referenceGeneration(expected, model.getRuleStrategy());
+        }
+
+        assertGridEquals(expected, model.getGrid());
+    }
+
+    @Test
+    void testLoadPatternCentersAndEnlargesTheGrid() {
+        Pattern pattern = new Pattern(120, 3, "B36/S23");
+        pattern.setRun(0, 0, 120);
+        pattern.setRun(5, 2, 1);
+        GameModel model = new GameModel(100, 50);
+        model.nextGeneration();
+
+        model.loadPattern(pattern);
+
+        assertEquals(0, model.getGeneration());
+        assertEquals(120, model.getGrid().getWidth());
+        assertEquals(50, model.getGrid().getHeight());
+        assertEquals(121, model.getGrid().getPopulation());
+        assertTrue(model.getGrid().isAlive(5, 25));
+        assertTrue(model.getGrid().isAlive(119, 23));
+
+        model.setRuleStrategy(new LifeLikeRule("B36/S23"));
+        Pattern saved = model.toPattern();
+        assertEquals("B36/S23", saved.getRule());
+        assertEquals(120, saved.getWidth());
+        assertEquals(3, saved.getHeight());
+        assertTrue(saved.isAlive(5, 2));
+    }
+
+    @Test
+    void testSeededRandomizeIsReproducible() {
+        GameModel first = new GameModel(130, 70);
+        GameModel second = new GameModel(130, 70);
+
+        first.randomize(0.3, 42L);
+        second.randomize(0.3, 42L);
+
+        assertGridEquals(first.getGrid(), second.getGrid());
+        assertTrue(first.getGrid().getPopulation() > 0);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {20, 512})
+    void testGliderWrapsAroundTorus(int size) {
+        GameModel model = new GameModel(size, size);
+        model.setBoundaryMode(BoundaryMode.TORUS);
+        placeGlider(model.getGrid(), size - 3, size - 3);
+        Grid start = new Grid(size, size);
+        copyGrid(model.getGrid(), start);
+
+        // A glider moves one cell diagonally every 4 generations.
+        for (int i = 0; i < 4 * size; i++) {
+            model.nextGeneration();
+            assertEquals(5, model.getGrid().getPopulation(), "Generation " + model.getGeneration());
+        }
+
+        assertGridEquals(start, model.getGrid());
+    }
+
+    @ParameterizedTest
+    @EnumSource(BoundaryMode.class)
+    void testBoundaryModesMatchPerCellRule(BoundaryMode mode) {
+        GameModel model = new GameModel(200, 130);
+        model.setBoundaryMode(mode);
+        model.randomize(0.4);
+        Grid expected = new Grid(200, 130);
+        expected.setBoundaryMode(mode);
+        copyGrid(model.getGrid(), expected);
+
+        for (int i = 0; i < 30; i++) {
+            model.nextGeneration();
+            expected = referenceGeneration(expected, model.getRuleStrategy());
+        }
+
+        assertGridEquals(expected, model.getGrid());
+    }
+
+    @Test
+    void testOffHeapModelMatchesHeapModel() {
+        GameModel heap = new GameModel(300, 140);
+        GameModel offHeap = new GameModel(300, 140, true);
+        heap.setBoundaryMode(BoundaryMode.TORUS);
+        offHeap.setBoundaryMode(BoundaryMode.TORUS);
+        heap.randomize(0.35);
+        copyGrid(heap.getGrid(), offHeap.getGrid());
+
+        try {
+            for (int i = 0; i < 40; i++) {
+                heap.nextGeneration();
+                offHeap.nextGeneration();
+            }
+            assertTrue(offHeap.isOffHeap());
+            assertGridEquals(heap.getGrid(), offHeap.getGrid());
+
+            // Moving the cells back to the heap keeps them.
+            offHeap.setOffHeap(false);
+            assertFalse(offHeap.isOffHeap());
+            assertGridEquals(heap.getGrid(), offHeap.getGrid());
+        } finally {
+            offHeap.shutdown();
+        }
+    }
+
+    @Test
+    void testMappedModelMatchesHeapModelAndResumes(@TempDir Path directory) throws IOException {
+        // Wide enough for the vector kernel to stream rows, with a partial last word.
+        GameModel heap = new GameModel(1000, 150);
+        heap.setRuleStrategy(new LifeLikeRule("B36/S23"));
+        heap.setBoundaryMode(BoundaryMode.TORUS);
+        heap.randomize(0.3);
+
+        GameModel mapped = GameModel.openMapped(directory, 1000, 150);
+        try {
+            assertTrue(mapped.isMapped());
+            mapped.setRuleStrategy(new LifeLikeRule("B36/S23"));
+            mapped.setBoundaryMode(BoundaryMode.TORUS);
+            copyGrid(heap.getGrid(), mapped.getGrid());
+            for (int i = 0; i < 25; i++) {
+                heap.nextGeneration();
+                mapped.nextGeneration();
+            }
+            assertGridEquals(heap.getGrid(), mapped.getGrid());
+        } finally {
+            mapped.shutdown();
+        }
+
+        // A new model on the same files resumes where the previous one stopped.
+        GameModel resumed = GameModel.openMapped(directory, 1000, 150);
+        try {
+            assertEquals(25, resumed.getGeneration());
+            assertEquals(BoundaryMode.TORUS, resumed.getBoundaryMode());
+            assertGridEquals(heap.getGrid(), resumed.getGrid());
+            resumed.setRuleStrategy(new LifeLikeRule("B36/S23"));
+            for (int i = 0; i < 5; i++) {
+                heap.nextGeneration();
+                resumed.nextGeneration();
+            }
+            assertGridEquals(heap.getGrid(), resumed.getGrid());
+        } finally {
+            resumed.shutdown();
+        }
+
+        assertThrows(IOException.class, () -> GameModel.openMapped(directory, 500, 150));
+    }
+
+    private static void placeGlider(Grid grid, int x, int y) {
+        grid.setCell(x + 1, y, CellState.ALIVE);
+        grid.setCell(x + 2, y + 1, CellState.ALIVE);
+        grid.setCell(x, y + 2, CellState.ALIVE);
+        grid.setCell(x + 1, y + 2, CellState.ALIVE);
+        grid.setCell(x + 2, y + 2, CellState.ALIVE);
+    }
+
+    private static Grid referenceGeneration(Grid grid, RuleStrategy rule) {
+        Grid next = new Grid(grid.getWidth(), grid.getHeight());
+        next.setBoundaryMode(grid.getBoundaryMode());
+        for (int y = 0; y < grid.getHeight(); y++) {
+            for (int x = 0; x < grid.getWidth(); x++) {
+                next.setCell(x, y, rule.computeNextState(grid, x, y));
+            }
+        }
+        return next;
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void testChangeCountingTracksThePopulation(boolean offHeap) {
+        GameModel model = new GameModel(300, 200, offHeap);
+        model.setChangeCounting(true);
+        model.setParallelism(3);
+        model.setSequentialCutoff(0);
+        model.randomize(0.3, 4L);
+        Grid previous = new Grid(300, 200);
+        for (int i = 0; i < 40; i++) {
+            copyGrid(model.getGrid(), previous);
+            model.nextGeneration();
+
+            long births = 0;
+            long deaths = 0;
+            for (int y = 0; y < 200; y++) {
+                for (int w = 0; w < previous.getWordsPerRow(); w++) {
+                    births += Long.bitCount(model.getGrid().getWord(y, w) & ~previous.getWord(y, w));
+                    deaths += Long.bitCount(previous.getWord(y, w) & ~model.getGrid().getWord(y, w));
+                }
+            }
+            assertEquals(births, model.getBirths());
+            assertEquals(deaths, model.getDeaths());
+            assertEquals(model.getGrid().getPopulation(), model.getPopulation());
+        }
+
+        model.toggleCell(0, 0);
+        assertEquals(-1, model.getBirths());
+        assertEquals(model.getGrid().getPopulation(), model.getPopulation());
+        model.shutdown();
+    }
+
+    static void copyGrid(Grid from, Grid to) {
+        long[] row = new long[from.getWordsPerRow()];
+        for (int y = 0; y < from.getHeight(); y++) {
+            from.getRow(y, row);
+            to.setRow(y, row);
+        }
+    }
+
+    static void assertGridEquals(Grid expected, Grid actual) {
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int w = 0; w < expected.getWordsPerRow(); w++) {
+                assertEquals(expected.getWord(y, w), actual.getWord(y, w), "Row " + y + ", word " + w);
+            }
+        }
+    }
+}
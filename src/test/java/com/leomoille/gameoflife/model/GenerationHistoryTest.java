@@ -0,0 +1,107 @@
+package com.leomoille.gameoflife.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GenerationHistoryTest {
+
+    /**
+     * Runs a model for some generations and keeps a copy of each of them.
+     */
+    private static List<Grid> run(GameModel model, int generations) {
+        List<Grid> copies = new ArrayList<>();
+        for (int i = 0; i <= generations; i++) {
+            if (i > 0) {
+                model.nextGeneration();
+            }
+            Grid copy = new Grid(model.getGrid().getWidth(), model.getGrid().getHeight());
+            GameModelTest.copyGrid(model.getGrid(), copy);
+            copies.add(copy);
+        }
+        return copies;
+    }
+
+    @Test
+    void testSeekingReachesEveryRecordedGeneration() {
+        GameModel model = new GameModel(200, 150);
+        model.setBoundaryMode(BoundaryMode.TORUS);
+        model.setHistoryLimit(64L << 20);
+        model.randomize(0.3, 7L);
+        List<Grid> copies = run(model, 600);
+
+        for (int generation : new int[]{599, 300, 1, 0, 256, 512, 513, 100, 600}) {
+            assertEquals(generation, model.seekGeneration(generation));
+            assertEquals(generation, model.getGeneration());
+            GameModelTest.assertGridEquals(copies.get(generation), model.getGrid());
+        }
+    }
+
+    @Test
+    void testSteppingAfterSeekingBackRecomputesTheSameGenerations() {
+        GameModel model = new GameModel(120, 100);
+        model.setHistoryLimit(64L << 20);
+        model.randomize(0.35, 3L);
+        List<Grid> copies = run(model, 80);
+
+        model.seekGeneration(30);
+        for (int generation = 31; generation <= 80; generation++) {
+            model.nextGeneration();
+            GameModelTest.assertGridEquals(copies.get(generation), model.getGrid());
+        }
+        assertEquals(80, model.getHistory().getNewestGeneration());
+    }
+
+    @Test
+    void testOldestGenerationsAreEvictedAtTheMemoryLimit() {
+        GameModel model = new GameModel(256, 256);
+        model.setHistoryLimit(256L << 10);
+        model.randomize(0.3, 5L);
+        List<Grid> copies = run(model, 500);
+        GenerationHistory history = model.getHistory();
+
+        assertTrue(history.getMemoryUsage() <= history.getMemoryLimit());
+        assertTrue(history.getOldestGeneration() > 0);
+        assertEquals(500, history.getNewestGeneration());
+        assertEquals(history.getOldestGeneration(), model.seekGeneration(0));
+        GameModelTest.assertGridEquals(copies.get(history.getOldestGeneration()), model.getGrid());
+    }
+
+    @Test
+    void testStillLifeCostsAlmostNothing() {
+        GameModel model = new GameModel(512, 512);
+        model.setHistoryLimit(64L << 20);
+        model.toggleCell(10, 10);
+        model.toggleCell(11, 10);
+        model.toggleCell(10, 11);
+        model.toggleCell(11, 11);
+        for (int i = 0; i < 1000; i++) {
+            model.nextGeneration();
+        }
+
+        assertEquals(0, model.getHistory().getOldestGeneration());
+        assertTrue(model.getHistory().getMemoryUsage() < 64 * 1024, "Usage: " + model.getHistory().getMemoryUsage());
+    }
+
+    @Test
+    void testEditingStartsANewHistory() {
+        GameModel model = new GameModel(50, 50);
+        model.setHistoryLimit(1L << 20);
+        model.randomize(0.3, 1L);
+        run(model, 20);
+
+        model.toggleCell(25, 25);
+        assertTrue(model.getHistory().isEmpty());
+        assertEquals(20, model.seekGeneration(5));
+
+        Grid edited = new Grid(50, 50);
+        GameModelTest.copyGrid(model.getGrid(), edited);
+        model.nextGeneration();
+        assertEquals(20, model.getHistory().getOldestGeneration());
+        assertEquals(20, model.seekGeneration(0));
+        GameModelTest.assertGridEquals(edited, model.getGrid());
+    }
+}
@@ -0,0 +1,91 @@
+package com.leomoille.gameoflife.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GridSnapshotPoolTest {
+
+    @Test
+    void testTakenSnapshotIsKeptWhileLaterOnesAreSkipped() {
+        Grid grid = new Grid(200, 100);
+        GridSnapshotPool pool = new GridSnapshotPool();
+        pool.publish(grid, 0, null);
+        GridSnapshot held = pool.take();
+        assertNull(held.getChangedBounds(), "The first snapshot should report every cell");
+
+        grid.setAlive(10, 20, true);
+        pool.publish(grid, 1, new CellBounds(10, 20, 1, 1));
+        grid.setAlive(150, 90, true);
+        pool.publish(grid, 2, new CellBounds(150, 90, 1, 1));
+
+        assertEquals(0, held.getGeneration(), "A held snapshot should not be written to");
+        assertFalse(held.isAlive(10, 20));
+
+        GridSnapshot latest = pool.take();
+        assertNotSame(held, latest);
+        assertEquals(2, latest.getGeneration(), "The latest snapshot should be taken");
+        assertTrue(latest.isAlive(10, 20));
+        assertTrue(latest.isAlive(150, 90));
+        assertEquals(new CellBounds(10, 20, 141, 71), latest.getChangedBounds(),
+                "The bounds should cover the skipped snapshot too");
+        assertSame(latest, pool.take(), "Nothing new was published");
+    }
+
+    @Test
+    void testRecycledBuffersCatchUpOnChangesTheyMissed() {
+        Grid grid = new Grid(130, 3);
+        GridSnapshotPool pool = new GridSnapshotPool();
+        pool.publish(grid, 0, null);
+        pool.take();
+        // Every buffer gets recycled several times, each missing some of the edits.
+        for (int x = 0; x < 130; x++) {
+            grid.setAlive(x, x % 3, true);
+            pool.publish(grid, x + 1, new CellBounds(x, x % 3, 1, 1));
+            if (x % 4 == 0) {
+                pool.take();
+            }
+        }
+
+        GridSnapshot snapshot = pool.take();
+        for (int y = 0; y < 3; y++) {
+            for (int x = 0; x < 130; x++) {
+                assertEquals(grid.isAlive(x, y), snapshot.isAlive(x, y), "Cell (" + x + ", " + y + ")");
+            }
+        }
+    }
+
+    @Test
+    void testConsumerNeverSeesATornSnapshot() throws InterruptedException {
+        int generations = 20_000;
+        Grid grid = new Grid(64, 64);
+        GridSnapshotPool pool = new GridSnapshotPool();
+        pool.publish(grid, 0, null);
+        AtomicBoolean done = new AtomicBoolean();
+        Thread producer = new Thread(() -> {
+            // Every row holds the generation number, so that a snapshot mixing two generations shows.
+            for (int generation = 1; generation <= generations; generation++) {
+                for (int y = 0; y < 64; y++) {
+                    grid.setWord(y, 0, generation);
+                }
+                pool.publish(grid, generation, new CellBounds(0, 0, 64, 64));
+            }
+            done.set(true);
+        });
+        producer.start();
+
+        int last = 0;
+        while (!done.get() || last < generations) {
+            GridSnapshot snapshot = pool.take();
+            int generation = snapshot.getGeneration();
+            assertTrue(generation >= last, "Snapshots should not go back in time");
+            for (int y = 0; y < 64; y++) {
+                assertEquals(generation, snapshot.getWord(y, 0), "Row " + y + " of generation " + generation);
+            }
+            last = generation;
+        }
+        producer.join();
+    }
+}
@@ -0,0 +1,250 @@
+package com.leomoille.gameoflife.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.IOException;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class GridTest {
+
+    @Test
+    void testCellViewWritesThrough() {
+        Grid grid = new Grid(5, 5);
+        Cell cell = grid.getCell(2, 3);
+
+        cell.setState(CellState.ALIVE);
+
+        assertTrue(grid.isAlive(2, 3), "Cell view should write to the packed storage");
+        assertTrue(grid.getCell(2, 3).isAlive());
+        assertNull(grid.getCell(5, 0), "Out-of-bounds cells should be null");
+    }
+
+    @Test
+    void testGridsTooLargeToAddressAreRejected() {
+        // 18752 words per row, halo included, times 1200002 rows wraps around int to a positive size.
+        assertThrows(IllegalArgumentException.class, () -> Grid.offHeap(1_200_000, 1_200_000));
+        assertThrows(IllegalArgumentException.class, () -> new Grid(Integer.MAX_VALUE, 64));
+
+        Grid grid = new Grid(10, 10);
+        grid.setAlive(3, 4, true);
+        assertThrows(IllegalArgumentException.class, () -> grid.resize(1_200_000, 1_200_000));
+        assertEquals(10, grid.getWidth(), "A rejected resize should keep the grid");
+        assertTrue(grid.isAlive(3, 4));
+    }
+
+    @ParameterizedTest(name = "Neighbors around ({0}, {1}) on a {2}-wide grid")
+    @CsvSource({
+            "1,   1,   3",
+            "0,   0,   70",
+            "63,  1,   70",
+            "64,  1,   70",
+            "69,  2,   70",
+            "127, 1,   128"
+    })
+    void testNeighborsAcrossWordBoundaries(int x, int y, int width) {
+        Grid grid = new Grid(width, 3);
+        grid.randomize(0.5);
+
+        int expected = 0;
+        for (int dy = -1; dy <= 1; dy++) {
+            for (int dx = -1; dx <= 1; dx++) {
+                if ((dx != 0 || dy != 0) && grid.isAlive(x + dx, y + dy)) {
+                    expected++;
+                }
+            }
+        }
+
+        assertEquals(expected, grid.getAliveNeighbors(x, y));
+    }
+
+    @Test
+    void testFullNeighborhood() {
+        Grid grid = new Grid(3, 3);
+        grid.randomize(1.0);
+
+        assertEquals(8, grid.getAliveNeighbors(1, 1));
+        assertEquals(3, grid.getAliveNeighbors(0, 0), "Corners only see three cells");
+        assertEquals(9, grid.getPopulation());
+    }
+
+    @Test
+    void testResizeKeepsCellsAndTrimsColumns() {
+        Grid grid = new Grid(100, 10);
+        grid.setCell(10, 2, CellState.ALIVE);
+        grid.setCell(80, 2, CellState.ALIVE);
+
+        grid.resize(70, 5);
+
+        assertTrue(grid.isAlive(10, 2));
+        assertEquals(1, grid.getPopulation(), "Cells past the new width should be dropped");
+
+        grid.resize(100, 10);
+        assertFalse(grid.isAlive(80, 2), "Trimmed cells should not reappear when growing again");
+    }
+
+    @Test
+    void testRowAccessors() {
+        Grid grid = new Grid(70, 2);
+        grid.setRow(1, new long[]{-1L, -1L});
+
+        assertEquals(70, grid.getPopulation(), "Bits past the width should be masked");
+        assertEquals(0b11_1111L, grid.getWord(1, 1));
+
+        long[] row = new long[grid.getWordsPerRow()];
+        grid.getRow(1, row);
+        assertEquals(-1L, row[0]);
+
+        grid.clear();
+        assertEquals(0, grid.getPopulation());
+    }
+
+    @ParameterizedTest(name = "Torus neighbors on a {0}-wide grid")
+    @CsvSource({"70", "128"})
+    void testTorusNeighborsWrapAround(int width) {
+        Grid grid = new Grid(width, 10);
+        grid.setBoundaryMode(BoundaryMode.TORUS);
+        grid.setAlive(width - 1, 9, true);
+        grid.setAlive(0, 9, true);
+        grid.setAlive(width - 1, 0, true);
+
+        // All three are neighbors of the top-left corner through the edges.
+        assertEquals(3, grid.getAliveNeighbors(0, 0));
+        assertEquals(2, grid.getAliveNeighbors(width - 1, 9));
+        assertEquals(2, grid.getAliveNeighbors(width - 2, 0));
+
+        grid.setBoundaryMode(BoundaryMode.DEAD);
+        assertEquals(0, grid.getAliveNeighbors(0, 0));
+    }
+
+    @Test
+    void testMirrorNeighborsReflectTheBorder() {
+        Grid grid = new Grid(70, 10);
+        grid.setBoundaryMode(BoundaryMode.MIRROR);
+        grid.setAlive(0, 0, true);
+        grid.setAlive(69, 5, true);
+
+        // A corner cell sees its own reflections above, to the left and diagonally.
+        assertEquals(3, grid.getAliveNeighbors(0, 0));
+        assertEquals(2, grid.getAliveNeighbors(1, 0));
+        // The east ghost column is in the word after the row, as the width is not a multiple of 64.
+        assertEquals(1, grid.getAliveNeighbors(69, 5));
+        assertEquals(2, grid.getAliveNeighbors(69, 4));
+    }
+
+    @Test
+    void testOffHeapGridBehavesLikeHeapGrid() {
+        Grid heap = new Grid(150, 40);
+        try (Grid offHeap = Grid.offHeap(150, 40)) {
+            assertTrue(offHeap.isOffHeap());
+            heap.randomize(0.5);
+            long[] row = new long[heap.getWordsPerRow()];
+            for (int y = 0; y < 40; y++) {
+                heap.getRow(y, row);
+                offHeap.setRow(y, row);
+            }
+
+            heap.resize(100, 50);
+            offHeap.resize(100, 50);
+
+            assertEquals(heap.getPopulation(), offHeap.getPopulation());
+            for (int y = 0; y < 50; y++) {
+                for (int x = 0; x < 100; x++) {
+                    assertEquals(heap.isAlive(x, y), offHeap.isAlive(x, y), "Cell (" + x + ", " + y + ")");
+                    assertEquals(heap.getAliveNeighbors(x, y), offHeap.getAliveNeighbors(x, y));
+                }
+            }
+        }
+    }
+
+    @Test
+    void testMappedGridIsReopenedWithItsCells(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("grid.gol");
+        Grid heap = new Grid(130, 20);
+        heap.randomize(0.4);
+        try (Grid mapped = Grid.mapped(file, 130, 20)) {
+            assertTrue(mapped.isMapped());
+            long[] row = new long[heap.getWordsPerRow()];
+            for (int y = 0; y < 20; y++) {
+                heap.getRow(y, row);
+                mapped.setRow(y, row);
+            }
+            mapped.setBoundaryMode(BoundaryMode.MIRROR);
+            assertThrows(UnsupportedOperationException.class, () -> mapped.resize(10, 10));
+        }
+
+        try (Grid reopened = Grid.openMapped(file)) {
+            assertEquals(130, reopened.getWidth());
+            assertEquals(20, reopened.getHeight());
+            assertEquals(BoundaryMode.MIRROR, reopened.getBoundaryMode());
+            for (int y = 0; y < 20; y++) {
+                for (int x = 0; x < 130; x++) {
+                    assertEquals(heap.isAlive(x, y), reopened.isAlive(x, y), "Cell (" + x + ", " + y + ")");
+                }
+            }
+        }
+
+        Path other = directory.resolve("other.gol");
+        Files.write(other, new byte[100]);
+        assertThrows(IOException.class, () -> Grid.openMapped(other));
+    }
+
+    @Test
+    void testDirectStorageAcrossSlabs() {
+        // Slabs of 8 words, so that bulk accesses cross slab boundaries.
+        try (DirectWordStorage storage = new DirectWordStorage(30, 3)) {
+            long[] words = new long[20];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = i * 0x0101010101010101L;
+            }
+            storage.set(5, words, 0, 20);
+            storage.copy(5, 7, 20);
+
+            long[] read = new long[30];
+            storage.get(0, read, 0, 30);
+            assertEquals(0L, read[4]);
+            assertEquals(words[1], read[6]);
+            for (int i = 0; i < 20; i++) {
+                assertEquals(words[i], read[7 + i], "Word " + (7 + i));
+            }
+            assertNull(storage.array());
+        }
+    }
+
+    @Test
+    void testOffHeapMemoryIsReleasedOnClose(@TempDir Path directory) throws IOException {
+        assumeTrue(SlabWordStorage.isArenaAvailable(), "The foreign memory API needs --enable-preview");
+        long direct = bufferPoolUsage("direct");
+        long mapped = bufferPoolUsage("mapped");
+
+        Grid offHeap = Grid.offHeap(4096, 1024);
+        assertTrue(bufferPoolUsage("direct") >= direct + 4096 / 8 * 1024);
+        offHeap.resize(2048, 1024);
+        assertTrue(bufferPoolUsage("direct") < direct + 4096 / 8 * 1024, "Resizing should free the old grid");
+        offHeap.close();
+        assertEquals(direct, bufferPoolUsage("direct"), "Closing should free the memory without a collection");
+        assertThrows(RuntimeException.class, () -> offHeap.isAlive(0, 0));
+
+        Grid file = Grid.mapped(directory.resolve("grid.gol"), 4096, 1024);
+        assertTrue(bufferPoolUsage("mapped") > mapped);
+        file.close();
+        assertEquals(mapped, bufferPoolUsage("mapped"), "Closing should unmap the file without a collection");
+    }
+
+    private static long bufferPoolUsage(String name) {
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (pool.getName().equals(name)) {
+                return pool.getMemoryUsed();
+            }
+        }
+        throw new IllegalStateException("No buffer pool named " + name);
+    }
+}
@@ -0,0 +1,62 @@
+package com.leomoille.gameoflife.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void testBucketsKeepValuesWithinTheirPrecision() {
+        int previous = -1;
+        for (long value = 0; value < 1 << 20; value += 1 + value / 1000) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(bucket >= previous, "Buckets must grow with values");
+            long highest = LatencyHistogram.highestValueOf(bucket);
+            assertTrue(highest >= value, "Value " + value);
+            assertTrue(highest - value <= value / 64, "Value " + value + ", bucket up to " + highest);
+            previous = bucket;
+        }
+        assertEquals(LatencyHistogram.MAX_VALUE,
+                LatencyHistogram.highestValueOf(LatencyHistogram.bucketOf(LatencyHistogram.MAX_VALUE)));
+    }
+
+    @Test
+    void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500_000, histogram.getValueAtPercentile(50), 500_000 / 64.0);
+        assertEquals(990_000, histogram.getValueAtPercentile(99), 990_000 / 64.0);
+        assertEquals(1_000_000, histogram.getValueAtPercentile(100));
+        assertEquals(1_000_000, histogram.getMax());
+        assertEquals(1000, histogram.getMin());
+        assertEquals(500_500, histogram.getMean(), 1e-9);
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+
+    @Test
+    void testMetricsSnapshot() {
+        TickMetrics metrics = new TickMetrics();
+        long time = 0L;
+        for (int i = 0; i < 100; i++) {
+            // One generation every 10 ms, each taking 2 ms.
+            metrics.record(time, time + 2_000_000L, 42, 3, 1);
+            time += 10_000_000L;
+        }
+        MetricsSnapshot snapshot = metrics.snapshot();
+
+        assertEquals(100, snapshot.ticks());
+        assertEquals(2_000_000, snapshot.p50Nanos(), 2_000_000 / 64.0);
+        assertEquals(2_000_000, snapshot.maxNanos());
+        assertEquals(42, snapshot.population());
+        assertEquals(3, snapshot.births());
+        assertEquals(1, snapshot.deaths());
+    }
+}
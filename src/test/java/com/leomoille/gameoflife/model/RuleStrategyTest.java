@@ -1,9 +1,14 @@
 package com.leomoille.gameoflife.model;
 
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 class RuleStrategyTest {
 
@@ -36,6 +41,113 @@ class RuleStrategyTest {
         this.verifyRule(new HighLifeRules(), isAlive, neighbors, expectedState);
     }
 
+    @ParameterizedTest(name = "Seeds: {0} (Alive: {1}, Neighbors: {2}) -> {3}")
+    @CsvSource({
+            "Birth,         false, 2, ALIVE",
+            "No Birth,      false, 3, DEAD",
+            "No Survival,   true,  2, DEAD",
+            "No Survival,   true,  3, DEAD"
+    })
+    void testSeedsRule(String description, boolean isAlive, int neighbors, CellState expectedState) {
+        this.verifyRule(new LifeLikeRule("B2/S"), isAlive, neighbors, expectedState);
+    }
+
+    @ParameterizedTest(name = "\"{0}\" is parsed as B36/S23")
+    @ValueSource(strings = {"B36/S23", "b36/s23", "S23/B36", " B63/S32 "})
+    void testRuleNotationParsing(String notation) {
+        LifeLikeRule rule = new LifeLikeRule(notation);
+
+        assertEquals("B36/S23", rule.getNotation());
+        assertEquals(new HighLifeRules().getRuleTable(), rule.getRuleTable());
+    }
+
+    @ParameterizedTest(name = "\"{0}\" is rejected")
+    @ValueSource(strings = {"", "B3", "B3/S23/X", "B9/S23", "X3/S23", "B3/B3"})
+    void testInvalidRuleNotation(String notation) {
+        assertThrows(IllegalArgumentException.class, () -> new LifeLikeRule(notation));
+    }
+
+    @Test
+    void testProbedTableMatchesBuiltInRules() {
+        RuleStrategy handWritten = new RuleStrategy() {
+            @Override
+            public CellState computeNextState(Grid grid, int x, int y) {
+                int n = grid.getAliveNeighbors(x, y);
+                return n == 3 || (n == 2 && grid.isAlive(x, y)) ? CellState.ALIVE : CellState.DEAD;
+            }
+
+            @Override
+            public String getName() {
+                return "Conway";
+            }
+        };
+
+        assertEquals(new ConwayRules().getRuleTable(), RuleTable.of(handWritten));
+    }
+
+    @ParameterizedTest(name = "Sliding-window step of {0} matches the per-cell rule")
+    @ValueSource(strings = {"B3/S23", "B36/S23", "B2/S", "B3678/S34678", "B1/S012345678"})
+    void testRegionStepMatchesPerCellAdapter(String notation) {
+        LifeLikeRule rule = new LifeLikeRule(notation);
+        // Only implements the per-cell method, so the default region adapter is used.
+        RuleStrategy perCell = new RuleStrategy() {
+            @Override
+            public CellState computeNextState(Grid grid, int x, int y) {
+                return rule.computeNextState(grid, x, y);
+            }
+
+            @Override
+            public String getName() {
+                return rule.getName();
+            }
+        };
+
+        Grid source = new Grid(150, 70);
+        source.randomize(0.4);
+        Grid expected = new Grid(150, 70);
+        Grid actual = new Grid(150, 70);
+
+        perCell.step(source, expected, 0, 70, 0, source.getWordsPerRow());
+        rule.step(source, actual, 0, 70, 0, source.getWordsPerRow());
+
+        for (int y = 0; y < 70; y++) {
+            for (int w = 0; w < source.getWordsPerRow(); w++) {
+                assertEquals(expected.getWord(y, w), actual.getWord(y, w), "Row " + y + ", word " + w);
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"B3/S23", "B36/S23", "B3678/S34678", "B2/S"})
+    void testVectorKernelMatchesScalarKernel(String notation) {
+        assumeTrue(BitSlicedKernel.isVectorAvailable(), "The Vector API is not available");
+        RuleTable table = RuleTable.parse(notation);
+        BitSlicedKernel scalar = BitSlicedKernel.create(table, false);
+        BitSlicedKernel vector = BitSlicedKernel.create(table, true);
+        assertTrue(vector.isVectorized());
+
+        Grid source = new Grid(1000, 90);
+        source.setBoundaryMode(BoundaryMode.TORUS);
+        source.randomize(0.35);
+        source.refreshHalo();
+        Grid expected = new Grid(1000, 90);
+        Grid actual = new Grid(1000, 90);
+        int words = source.getWordsPerRow();
+
+        scalar.step(source, expected, 0, 90, 0, words);
+        vector.step(source, actual, 0, 40, 0, words);
+        // Regions that start and end inside the row.
+        vector.step(source, actual, 40, 90, 0, 3);
+        vector.step(source, actual, 40, 90, 3, words - 2);
+        vector.step(source, actual, 40, 90, words - 2, words);
+
+        for (int y = 0; y < 90; y++) {
+            for (int w = 0; w < words; w++) {
+                assertEquals(expected.getWord(y, w), actual.getWord(y, w), "Row " + y + ", word " + w);
+            }
+        }
+    }
+
     private void verifyRule(RuleStrategy strategy, boolean isAlive, int neighbors, CellState expected) {
         Grid grid = new Grid(3, 3);
         // Center cell
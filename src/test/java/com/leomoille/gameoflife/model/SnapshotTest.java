@@ -0,0 +1,118 @@
+package com.leomoille.gameoflife.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotTest {
+
+    @Test
+    void testEngineCheckpointsEveryInterval(@TempDir Path directory) throws Exception {
+        GameModel model = new GameModel(100, 100);
+        model.randomize(0.3, 5L);
+        GameEngine engine = new GameEngine(model);
+        Path file = directory.resolve("engine.snap");
+        try (Checkpointer checkpointer = new Checkpointer(file)) {
+            engine.setCheckpointer(checkpointer, 5);
+            engine.advance(23);
+            long deadline = System.nanoTime() + 5_000_000_000L;
+            while (engine.isRunning() && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            engine.stop();
+        }
+
+        GameModel reference = new GameModel(100, 100);
+        reference.randomize(0.3, 5L);
+        for (int i = 0; i < 20; i++) {
+            reference.nextGeneration();
+        }
+        Snapshot snapshot = Snapshot.read(file);
+        assertEquals(20, snapshot.getGeneration(), "The last multiple of the interval should be written");
+        GameModel restored = new GameModel(100, 100);
+        restored.restore(snapshot);
+        GameModelTest.assertGridEquals(reference.getGrid(), restored.getGrid());
+    }
+
+    @Test
+    void testRestoredModelContinuesIdentically(@TempDir Path directory) throws IOException {
+        GameModel model = new GameModel(500, 300);
+        model.setRuleStrategy(new LifeLikeRule("B36/S23", "HighLife"));
+        model.setBoundaryMode(BoundaryMode.TORUS);
+        model.randomize(0.3, 11L);
+        for (int i = 0; i < 7; i++) {
+            model.nextGeneration();
+        }
+        Path file = directory.resolve("run.snap");
+        model.snapshot().write(file);
+
+        GameModel restored = new GameModel(20, 20);
+        restored.restore(Snapshot.read(file));
+
+        assertEquals(7, restored.getGeneration());
+        assertEquals("HighLife", restored.getRuleStrategy().getName());
+        assertEquals(BoundaryMode.TORUS, restored.getBoundaryMode());
+        GameModelTest.assertGridEquals(model.getGrid(), restored.getGrid());
+        for (int i = 0; i < 10; i++) {
+            model.nextGeneration();
+            restored.nextGeneration();
+        }
+        GameModelTest.assertGridEquals(model.getGrid(), restored.getGrid());
+    }
+
+    @Test
+    void testEmptyTilesAreNotStored(@TempDir Path directory) throws IOException {
+        GameModel model = new GameModel(2048, 2048);
+        model.toggleCell(1000, 1000);
+        model.toggleCell(5, 2040);
+        Path file = directory.resolve("sparse.snap");
+
+        Snapshot snapshot = model.snapshot();
+        snapshot.write(file);
+
+        assertEquals(2, snapshot.getPopulation());
+        // Two tiles of 64 words, far below the 512 KiB of the grid.
+        assertTrue(Files.size(file) < 2 * 64 * Long.BYTES + 1024, "Size: " + Files.size(file));
+        Snapshot read = Snapshot.read(file);
+        assertEquals(2048, read.getWidth());
+        assertEquals(2, read.getPopulation());
+    }
+
+    @Test
+    void testCorruptedSnapshotIsRejected(@TempDir Path directory) throws IOException {
+        GameModel model = new GameModel(100, 100);
+        model.randomize(0.5, 3L);
+        Path file = directory.resolve("run.snap");
+        model.snapshot().write(file);
+
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(file, bytes);
+        assertThrows(IOException.class, () -> Snapshot.read(file));
+
+        Files.writeString(file, "not a snapshot");
+        assertThrows(IOException.class, () -> Snapshot.read(file));
+    }
+
+    @Test
+    void testCheckpointerWritesTheLatestSnapshot(@TempDir Path directory) throws IOException {
+        GameModel model = new GameModel(300, 300);
+        model.randomize(0.3, 5L);
+        Path file = directory.resolve("checkpoint.snap");
+
+        try (Checkpointer checkpointer = new Checkpointer(file)) {
+            for (int i = 0; i < 20; i++) {
+                model.nextGeneration();
+                checkpointer.submit(model.snapshot());
+            }
+        }
+
+        assertEquals(20, Snapshot.read(file).getGeneration());
+        assertFalse(Files.exists(directory.resolve("checkpoint.snap.tmp")));
+    }
+}
@@ -0,0 +1,71 @@
+package com.leomoille.gameoflife.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SparseUniverseTest {
+
+    private static final RuleTable CONWAY = RuleTable.of(new ConwayRules());
+
+    @Test
+    void testGliderCrossesChunksWithoutGrowingMemory() {
+        SparseUniverse universe = new SparseUniverse();
+        // A glider heading north-west, starting next to negative coordinates.
+        universe.setAlive(0, 0, true);
+        universe.setAlive(1, 0, true);
+        universe.setAlive(2, 0, true);
+        universe.setAlive(0, 1, true);
+        universe.setAlive(1, 2, true);
+
+        for (int i = 0; i < 4_000; i++) {
+            universe.step(CONWAY);
+        }
+
+        assertEquals(5, universe.getPopulation());
+        assertTrue(universe.isAlive(-1000, -1000), "The glider should have moved 1000 cells diagonally");
+        assertTrue(universe.getChunkCount() <= 9, "Chunks left behind should be freed, got " + universe.getChunkCount());
+    }
+
+    @Test
+    void testMatchesBoundedGridAwayFromTheBorder() {
+        GameModel model = new GameModel(400, 400);
+        SparseUniverse universe = new SparseUniverse();
+        Grid soup = new Grid(40, 40);
+        soup.randomize(0.4);
+        for (int y = 0; y < soup.getHeight(); y++) {
+            for (int x = 0; x < soup.getWidth(); x++) {
+                model.getGrid().setAlive(180 + x, 180 + y, soup.isAlive(x, y));
+                // Straddle the four chunks around the origin.
+                universe.setAlive(x - 20, y - 20, soup.isAlive(x, y));
+            }
+        }
+
+        for (int i = 0; i < 60; i++) {
+            model.nextGeneration();
+            universe.step(CONWAY);
+        }
+
+        assertEquals(model.getGrid().getPopulation(), universe.getPopulation());
+        for (int y = 0; y < 400; y++) {
+            for (int x = 0; x < 400; x++) {
+                assertEquals(model.getGrid().isAlive(x, y), universe.isAlive(x - 200, y - 200),
+                        "Cell (" + x + ", " + y + ")");
+            }
+        }
+    }
+
+    @Test
+    void testUnboundedModelTogglesUniverseCells() {
+        GameModel model = new GameModel(10, 10);
+        model.setUnbounded(true);
+
+        model.toggleCell(-500, 7000);
+
+        assertTrue(model.getUniverse().isAlive(-500, 7000));
+        assertEquals(1, model.getUniverse().getChunkCount());
+
+        model.setUnbounded(false);
+        assertNull(model.getUniverse());
+    }
+}
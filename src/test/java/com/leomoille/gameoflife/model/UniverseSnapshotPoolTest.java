@@ -0,0 +1,74 @@
+package com.leomoille.gameoflife.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UniverseSnapshotPoolTest {
+    private static final RuleTable CONWAY = RuleTable.of(new ConwayRules());
+
+    @Test
+    void testSnapshotMatchesTheUniverseAndIsKeptWhileHeld() {
+        SparseUniverse universe = new SparseUniverse();
+        universe.setAlive(-1, 5, true);
+        universe.setAlive(0, 5, true);
+        universe.setAlive(1, 5, true);
+        UniverseSnapshotPool pool = new UniverseSnapshotPool();
+        pool.publish(universe, 0);
+        UniverseSnapshot held = pool.take();
+
+        universe.step(CONWAY);
+        pool.publish(universe, 1);
+        universe.step(CONWAY);
+        pool.publish(universe, 2);
+
+        assertEquals(0, held.getGeneration(), "A held snapshot should not be written to");
+        assertTrue(held.isAlive(-1, 5) && held.isAlive(1, 5) && !held.isAlive(0, 4));
+        assertEquals(2, held.getChunkCount(), "The blinker straddles two chunks");
+
+        UniverseSnapshot latest = pool.take();
+        assertEquals(2, latest.getGeneration(), "The latest snapshot should be taken");
+        assertEquals(3, latest.getPopulation());
+        assertTrue(latest.isAlive(-1, 5) && latest.isAlive(0, 5) && latest.isAlive(1, 5));
+        assertFalse(latest.isAlive(0, 4));
+    }
+
+    @Test
+    void testConsumerReadsWhileTheUniverseIsStepped() throws InterruptedException {
+        SparseUniverse universe = new SparseUniverse();
+        // An acorn, whose debris and gliders keep allocating and freeing chunks.
+        int[][] acorn = {{1, 0}, {3, 1}, {0, 2}, {1, 2}, {4, 2}, {5, 2}, {6, 2}};
+        for (int[] cell : acorn) {
+            universe.setAlive(cell[0], cell[1], true);
+        }
+        UniverseSnapshotPool pool = new UniverseSnapshotPool();
+        pool.publish(universe, 0);
+        AtomicBoolean done = new AtomicBoolean();
+        Thread producer = new Thread(() -> {
+            for (int generation = 1; generation <= 1000; generation++) {
+                universe.step(CONWAY);
+                pool.publish(universe, generation);
+            }
+            done.set(true);
+        });
+        producer.start();
+
+        int last = 0;
+        while (!done.get() || last < 1000) {
+            UniverseSnapshot snapshot = pool.take();
+            // Every live cell is within 512 cells of the origin by generation 1000.
+            long population = 0;
+            for (int y = -512; y < 512; y++) {
+                for (int wordX = -8; wordX < 8; wordX++) {
+                    population += Long.bitCount(snapshot.getWord(wordX, y));
+                }
+            }
+            assertEquals(snapshot.getPopulation(), population, "Generation " + snapshot.getGeneration());
+            assertTrue(snapshot.getGeneration() >= last, "Snapshots should not go back in time");
+            last = snapshot.getGeneration();
+        }
+        producer.join();
+    }
+}
@@ -0,0 +1,152 @@
+package com.leomoille.gameoflife.model.hashlife;
+
+import com.leomoille.gameoflife.model.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashLifeUniverseTest {
+
+    @Test
+    void testGliderTravelsOverAMillionGenerations() {
+        HashLifeUniverse universe = new HashLifeUniverse(new ConwayRules());
+        universe.setCell(1, 0, true);
+        universe.setCell(2, 1, true);
+        universe.setCell(0, 2, true);
+        universe.setCell(1, 2, true);
+        universe.setCell(2, 2, true);
+
+        universe.advance(1_000_000);
+
+        // A glider moves one cell diagonally every four generations.
+        long shift = 250_000;
+        assertEquals(1_000_000, universe.getGeneration());
+        assertEquals(5, universe.getPopulation());
+        assertTrue(universe.isAlive(1 + shift, shift));
+        assertTrue(universe.isAlive(2 + shift, 1 + shift));
+        assertTrue(universe.isAlive(shift, 2 + shift));
+        assertTrue(universe.isAlive(1 + shift, 2 + shift));
+        assertTrue(universe.isAlive(2 + shift, 2 + shift));
+    }
+
+    @ParameterizedTest(name = "Matches GameModel with {0}")
+    @ValueSource(strings = {"conway", "highlife"})
+    void testMatchesCellByCellStepping(String ruleName) {
+        RuleStrategy rule = "conway".equals(ruleName) ? new ConwayRules() : new HighLifeRules();
+
+        // A soup in the middle of a board large enough for its debris never to reach the dead border.
+        GameModel model = new GameModel(512, 512);
+        model.setRuleStrategy(rule);
+        Grid soup = new Grid(48, 48);
+        soup.randomize(0.4);
+        for (int y = 0; y < soup.getHeight(); y++) {
+            for (int x = 0; x < soup.getWidth(); x++) {
+                model.getGrid().setAlive(232 + x, 232 + y, soup.isAlive(x, y));
+            }
+        }
+
+        HashLifeUniverse universe = new HashLifeUniverse(rule);
+        universe.load(model.getGrid(), -256, -256);
+
+        for (int i = 0; i < 77; i++) {
+            model.nextGeneration();
+        }
+        universe.advance(77);
+
+        Grid actual = new Grid(512, 512);
+        universe.copyTo(actual, -256, -256);
+        assertEquals(model.getGrid().getPopulation(), universe.getPopulation());
+        for (int y = 0; y < 512; y++) {
+            for (int x = 0; x < 512; x++) {
+                assertEquals(model.getGrid().isAlive(x, y), actual.isAlive(x, y), "Cell (" + x + ", " + y + ")");
+            }
+        }
+    }
+
+    @Test
+    void testNodeCacheStaysWithinBudget() {
+        HashLifeUniverse universe = new HashLifeUniverse(new ConwayRules(), 0);
+        Grid soup = new Grid(64, 64);
+        soup.randomize(0.4);
+        universe.load(soup, 0, 0);
+        HashLifeUniverse reference = new HashLifeUniverse(new ConwayRules());
+        reference.load(soup, 0, 0);
+
+        for (int i = 0; i < 50; i++) {
+            universe.advance(8);
+        }
+        reference.advance(400);
+
+        assertTrue(universe.getCollections() > 0, "A tiny budget should force garbage collections");
+        assertEquals(reference.getPopulation(), universe.getPopulation());
+    }
+
+    @Test
+    void testLargeJumpsAreSplitToStayWithinBudget() {
+        long budget = 20_000L * NodeCache.BYTES_PER_NODE;
+        HashLifeUniverse universe = new HashLifeUniverse(new ConwayRules(), budget);
+        Grid soup = new Grid(64, 64);
+        soup.randomize(0.4, new Random(7));
+        universe.load(soup, 0, 0);
+        HashLifeUniverse reference = new HashLifeUniverse(new ConwayRules());
+        reference.load(soup, 0, 0);
+
+        universe.advance(1 << 14);
+        reference.advance(1 << 14);
+
+        assertTrue(universe.getCollections() > 0, "The jump should not fit in the budget at once");
+        assertTrue(universe.getNodeCount() <= universe.getMaxNodes(),
+                universe.getNodeCount() + " nodes for a budget of " + universe.getMaxNodes());
+        assertTrue(reference.getNodeCount() > universe.getMaxNodes(), "The reference should need more nodes");
+        assertEquals(reference.getPopulation(), universe.getPopulation());
+        assertEquals(1 << 14, universe.getGeneration());
+    }
+
+    @Test
+    void testMemoizedResultsSurviveChangesOfStepSize() {
+        Grid soup = new Grid(64, 64);
+        soup.randomize(0.4);
+        HashLifeUniverse universe = new HashLifeUniverse(new ConwayRules());
+        universe.load(soup, 0, 0);
+        HashLifeUniverse reference = new HashLifeUniverse(new ConwayRules());
+        reference.load(soup, 0, 0);
+
+        // 1000 = 512 + 256 + 128 + 64 + 32 + 8: six step sizes per call, reusing each other's results.
+        for (int i = 0; i < 3; i++) {
+            universe.advance(1000);
+        }
+        reference.advance(1);
+        reference.advance(2999);
+
+        Grid expected = new Grid(512, 512);
+        reference.copyTo(expected, -224, -224);
+        Grid actual = new Grid(512, 512);
+        universe.copyTo(actual, -224, -224);
+        assertEquals(reference.getPopulation(), universe.getPopulation());
+        for (int y = 0; y < 512; y++) {
+            for (int x = 0; x < 512; x++) {
+                assertEquals(expected.isAlive(x, y), actual.isAlive(x, y), "Cell (" + x + ", " + y + ")");
+            }
+        }
+    }
+
+    @Test
+    void testBirthOnZeroIsRejected() {
+        RuleStrategy seedsEverywhere = new RuleStrategy() {
+            @Override
+            public CellState computeNextState(Grid grid, int x, int y) {
+                return CellState.ALIVE;
+            }
+
+            @Override
+            public String getName() {
+                return "B0";
+            }
+        };
+        assertThrows(IllegalArgumentException.class, () -> new HashLifeUniverse(seedsEverywhere));
+    }
+}
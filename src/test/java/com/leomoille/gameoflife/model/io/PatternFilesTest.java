@@ -0,0 +1,136 @@
+package com.leomoille.gameoflife.model.io;
+
+import com.leomoille.gameoflife.model.Pattern;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PatternFilesTest {
+
+    private static final String GLIDER_RLE = """
+            #N Glider
+            #C The smallest spaceship.
+            x = 3, y = 3, rule = B3/S23
+            bob$2bo$3o!
+            """;
+
+    @Test
+    void testReadRle() throws IOException {
+        Pattern glider = RleFormat.read(new StringReader(GLIDER_RLE));
+
+        assertEquals(3, glider.getWidth());
+        assertEquals(3, glider.getHeight());
+        assertEquals("B3/S23", glider.getRule());
+        assertEquals(5, glider.getPopulation());
+        assertTrue(glider.isAlive(1, 0));
+        assertTrue(glider.isAlive(2, 1));
+        assertTrue(glider.isAlive(0, 2));
+        assertFalse(glider.isAlive(0, 0));
+    }
+
+    @Test
+    void testReadRleWithLongRunsAndSurvivalBirthRule() throws IOException {
+        Pattern line = RleFormat.read(new StringReader("x = 200, y = 3, rule = 23/36\n150o$\n$2b\n198o!"));
+
+        assertEquals("B36/S23", line.getRule());
+        assertEquals(150 + 198, line.getPopulation());
+        assertTrue(line.isAlive(149, 0));
+        assertFalse(line.isAlive(150, 0));
+        assertFalse(line.isAlive(1, 2));
+        assertTrue(line.isAlive(2, 2));
+        assertTrue(line.isAlive(199, 2));
+    }
+
+    @Test
+    void testRejectMalformedRle() {
+        assertThrows(PatternFormatException.class, () -> RleFormat.read(new StringReader("bob$2bo$3o!")));
+        assertThrows(PatternFormatException.class, () -> RleFormat.read(new StringReader("x = 2, y = 2\n3o!")));
+        assertThrows(PatternFormatException.class, () -> RleFormat.read(new StringReader("x = 2, y = 2\no?!")));
+    }
+
+    @Test
+    void testReadMacrocell() throws IOException {
+        String glider = """
+                [M2] (golly 2.0)
+                #R B3/S23
+                .*$..*$***$
+                4 0 0 0 1
+                5 2 0 0 2
+                """;
+        Pattern pattern = MacrocellFormat.read(new StringReader(glider));
+
+        // The same 16x16 node in the north-west and south-east quadrants, cropped to the two gliders.
+        assertEquals("B3/S23", pattern.getRule());
+        assertEquals(10, pattern.getPopulation());
+        assertEquals(16 + 3, pattern.getWidth());
+        assertEquals(16 + 3, pattern.getHeight());
+        assertTrue(pattern.isAlive(1, 0));
+        assertTrue(pattern.isAlive(0, 2));
+        assertTrue(pattern.isAlive(16 + 1, 16));
+        assertFalse(pattern.isAlive(16, 16));
+        assertThrows(PatternFormatException.class,
+                () -> MacrocellFormat.read(new StringReader("[M2]\n4 2 0 0 0\n")));
+    }
+
+    @ParameterizedTest(name = "Round trip through {0}")
+    @ValueSource(strings = {"soup.rle", "soup.mc"})
+    void testWriteThenReadGivesTheSamePattern(String name, @TempDir Path directory) throws IOException {
+        Pattern soup = new Pattern(300, 90, "B36/S23");
+        Random random = new Random(7);
+        for (int y = 0; y < 90; y++) {
+            for (int x = 0; x < 300; x++) {
+                // Sparse on the left, dense on the right, with a repeated block to share macrocell nodes.
+                if (random.nextDouble() < x / 400.0 || (x % 40 < 4 && y % 40 < 4)) {
+                    soup.setRun(x, y, 1);
+                }
+            }
+        }
+        Path file = directory.resolve(name);
+
+        PatternFiles.write(file, soup);
+        Pattern read = PatternFiles.read(file);
+
+        assertEquals(soup.getRule(), read.getRule());
+        assertEquals(soup.getPopulation(), read.getPopulation());
+        // Macrocell files crop the pattern to its live cells, which start at (0, 0) here.
+        for (int y = 0; y < 90; y++) {
+            for (int x = 0; x < 300; x++) {
+                assertEquals(soup.isAlive(x, y), read.isAlive(x, y), "Cell (" + x + ", " + y + ")");
+            }
+        }
+    }
+
+    @Test
+    void testRleLinesStayShort() throws IOException {
+        StringWriter writer = new StringWriter();
+        Pattern checkerboard = new Pattern(500, 2, null);
+        for (int x = 0; x < 500; x += 2) {
+            checkerboard.setRun(x, 0, 1);
+        }
+        RleFormat.write(checkerboard, writer);
+
+        for (String line : writer.toString().split("\n")) {
+            assertTrue(line.length() <= 70, line);
+        }
+        assertTrue(writer.toString().stripTrailing().endsWith("o!"));
+        assertFalse(writer.toString().contains("rule"));
+    }
+
+    @Test
+    void testDetectFormatFromContent(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("glider.txt");
+        Files.writeString(file, "[M2] (golly)\n.*$..*$***$\n");
+
+        assertEquals(5, PatternFiles.read(file).getPopulation());
+    }
+}
@@ -0,0 +1,150 @@
+package com.leomoille.gameoflife.view;
+
+import com.leomoille.gameoflife.model.CellState;
+import com.leomoille.gameoflife.model.CycleDetector;
+import com.leomoille.gameoflife.model.GameModel;
+import com.leomoille.gameoflife.model.GenerationHistory;
+import com.leomoille.gameoflife.model.GridSnapshot;
+import com.leomoille.gameoflife.model.UniverseSnapshot;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import java.beans.PropertyChangeEvent;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoalescingNotifierTest {
+
+    @Test
+    void testGenerationsAreCoalescedOnTheEventDispatchThread() throws Exception {
+        GameModel model = new GameModel(64, 64);
+        model.getGrid().setCell(10, 11, CellState.ALIVE);
+        model.getGrid().setCell(11, 11, CellState.ALIVE);
+        model.getGrid().setCell(12, 11, CellState.ALIVE);
+        CoalescingNotifier notifier = new CoalescingNotifier(model);
+        List<PropertyChangeEvent> events = new ArrayList<>();
+        List<Boolean> onEdt = new ArrayList<>();
+        notifier.addPropertyChangeListener(evt -> {
+            synchronized (events) {
+                events.add(evt);
+                onEdt.add(SwingUtilities.isEventDispatchThread());
+            }
+        });
+
+        // Fired on this thread, as by the engine thread
+        for (int i = 0; i < 1001; i++) {
+            model.nextGeneration();
+        }
+        long deadline = System.nanoTime() + 2_000_000_000L;
+        while (System.nanoTime() < deadline && !this.hasGeneration(events, 1001)) {
+            Thread.sleep(10);
+        }
+
+        GridSnapshot[] last = new GridSnapshot[1];
+        SwingUtilities.invokeAndWait(() -> {
+            assertTrue(this.hasGeneration(events, 1001), "The latest generation should be delivered");
+            assertFalse(onEdt.contains(false), "Listeners should only be called on the EDT");
+            long grids = events.stream().filter(evt -> "grid".equals(evt.getPropertyName())).count();
+            assertTrue(grids < 1001, "Generations should be coalesced, got " + grids + " dispatches");
+            // A dispatch may come between the "grid" and "generation" events of a generation.
+            PropertyChangeEvent first = events.stream().filter(evt -> "generation".equals(evt.getPropertyName()))
+                    .findFirst().orElseThrow();
+            assertEquals(0, first.getOldValue(), "The first generation event starts at generation 0");
+
+            last[0] = notifier.getGrid();
+        });
+        assertEquals(1001, last[0].getGeneration());
+        // An odd generation of the blinker is vertical
+        assertTrue(last[0].isAlive(11, 10) && last[0].isAlive(11, 12) && !last[0].isAlive(10, 11));
+
+        model.nextGeneration();
+        assertTrue(last[0].isAlive(11, 10), "A snapshot should not follow the live grid");
+    }
+
+    @Test
+    void testUniverseEventsCarrySnapshots() throws Exception {
+        GameModel model = new GameModel(64, 64);
+        model.setUnbounded(true);
+        model.toggleCell(-1, 0);
+        model.toggleCell(0, 0);
+        model.toggleCell(1, 0);
+        CoalescingNotifier notifier = new CoalescingNotifier(model);
+        List<Object> universes = new ArrayList<>();
+        notifier.addPropertyChangeListener(evt -> {
+            if ("universe".equals(evt.getPropertyName())) {
+                synchronized (universes) {
+                    universes.add(evt.getNewValue());
+                }
+            }
+        });
+
+        model.advance(3);
+        long deadline = System.nanoTime() + 2_000_000_000L;
+        UniverseSnapshot[] last = new UniverseSnapshot[1];
+        while (System.nanoTime() < deadline && (last[0] == null || last[0].getGeneration() < 3)) {
+            Thread.sleep(10);
+            SwingUtilities.invokeAndWait(() -> last[0] = notifier.getUniverse());
+        }
+        synchronized (universes) {
+            assertFalse(universes.isEmpty(), "A universe event should be dispatched");
+            assertInstanceOf(UniverseSnapshot.class, universes.get(universes.size() - 1),
+                    "Listeners should get a snapshot, not the live universe");
+        }
+        assertEquals(3, last[0].getGeneration());
+        // An odd generation of the blinker is vertical
+        assertTrue(last[0].isAlive(0, -1) && last[0].isAlive(0, 1) && !last[0].isAlive(-1, 0));
+
+        model.nextGeneration();
+        assertTrue(last[0].isAlive(0, -1), "A snapshot should not follow the live universe");
+    }
+
+    @Test
+    void testHistoryRangeAndCycleStatusTravelWithTheEvents() throws Exception {
+        GameModel model = new GameModel(64, 64);
+        model.setHistoryLimit(1L << 20);
+        model.setCycleDetection(true);
+        model.getGrid().setCell(10, 11, CellState.ALIVE);
+        model.getGrid().setCell(11, 11, CellState.ALIVE);
+        model.getGrid().setCell(12, 11, CellState.ALIVE);
+        CoalescingNotifier notifier = new CoalescingNotifier(model);
+        List<PropertyChangeEvent> events = new ArrayList<>();
+        notifier.addPropertyChangeListener(evt -> {
+            synchronized (events) {
+                events.add(evt);
+            }
+        });
+
+        model.advance(10);
+        long deadline = System.nanoTime() + 2_000_000_000L;
+        while (System.nanoTime() < deadline && !this.hasGeneration(events, 10)) {
+            Thread.sleep(10);
+        }
+        // Moving on must not change what was dispatched.
+        model.advance(5);
+
+        SwingUtilities.invokeAndWait(() -> {
+            int index = 0;
+            while (!"generation".equals(events.get(index).getPropertyName())
+                    || !Integer.valueOf(10).equals(events.get(index).getNewValue())) {
+                index++;
+            }
+            assertTrue(index + 1 < events.size(), "A history event should follow the generation event");
+            PropertyChangeEvent history = events.get(index + 1);
+            assertEquals("history", history.getPropertyName());
+            assertEquals(new GenerationHistory.Range(0, 10, 10), history.getNewValue());
+
+            PropertyChangeEvent cycle = events.stream().filter(evt -> "cycle".equals(evt.getPropertyName()))
+                    .findFirst().orElseThrow();
+            assertEquals(new CycleDetector.Status(2, false), cycle.getNewValue());
+        });
+    }
+
+    private boolean hasGeneration(List<PropertyChangeEvent> events, int generation) {
+        synchronized (events) {
+            return events.stream().anyMatch(evt -> "generation".equals(evt.getPropertyName())
+                    && Integer.valueOf(generation).equals(evt.getNewValue()));
+        }
+    }
+}